@@ -0,0 +1,174 @@
+/*
+ * PageWriteBenchmark.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writes a page of a table of the given number of rows to a file, the way
+ * the pages were written before, through an autoflushing PrintWriter over
+ * an unbuffered FileOutputStream, and the way they are written now, through
+ * an HtmlWriter collecting the page in a PageBuffer and a FilePageSink.
+ *
+ * Besides the time per page, the number of write system calls per page is
+ * printed at the end of each iteration, as counted by Linux for the thread
+ * (syscw of /proc/thread-self/io). Elsewhere it is not printed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageWriteBenchmark {
+    private static final File THREAD_IO = new File("/proc/thread-self/io");
+
+    @Param({"100", "2000"})
+    public int rows;
+
+    private File        dir;
+    private File        file;
+    private FilePageSink sink;
+    private Configuration configuration;
+
+    private long writeCalls;
+    private long pages;
+
+    @Setup(Level.Trial)
+    public void createDirectory() throws IOException {
+        dir  = Files.createTempDirectory("oradoclet-bench").toFile();
+        file = new File(dir, "page.html");
+        sink = new FilePageSink();
+        configuration = new Configuration();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDirectory() {
+        File[] files = dir.listFiles();
+        for(int i=0; null!=files && i<files.length; i++) {
+            files[i].delete();
+        }
+        dir.delete();
+    }
+
+    @Setup(Level.Iteration)
+    public void startCounting() throws IOException {
+        writeCalls = getWriteCalls();
+        pages = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printCount() throws IOException {
+        long calls = getWriteCalls();
+        if(calls >= 0 && pages > 0) {
+            System.out.println();
+            System.out.println("write calls per page: " + (double) (calls - writeCalls) / pages);
+        }
+    }
+
+    /**
+     * The page written by an autoflushing PrintWriter, as HtmlWriter did before:
+     * each println is written to the file at once
+     */
+    @Benchmark
+    public void printWriter() throws IOException {
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"), true);
+        writePage(writer);
+        writer.close();
+        pages++;
+    }
+
+    /**
+     * The page collected by an HtmlWriter and written by a FilePageSink in one piece
+     */
+    @Benchmark
+    public void pageBuffer() throws IOException {
+        HtmlWriter writer = new HtmlWriter(configuration, sink, dir.getPath(), file.getName(), "UTF-8");
+        writePage(writer);
+        writer.close();
+        pages++;
+    }
+
+    /**
+     * Writes a page like the page of a table: a header and a row per column,
+     * each part of a row on a line of its own
+     */
+    private void writePage(PrintWriter writer) {
+        writer.println("<html><head><title>ORDERS</title></head><body>");
+        writer.println("<table border=\"1\" width=\"100%\">");
+        for(int i=0; i<rows; i++) {
+            writer.print("<tr class=\"");
+            writer.print((i % 2 == 0) ? "even" : "odd");
+            writer.println("\">");
+            writer.println("<td>COLUMN_" + i + "</td>");
+            writer.println("<td>VARCHAR2(30)</td>");
+            writer.println("<td>The column &amp; its comment</td>");
+            writer.println("</tr>");
+        }
+        writer.println("</table>");
+        writer.println("</body></html>");
+    }
+
+    /**
+     * Returns the number of the write system calls of the current thread, -1 if unknown
+     */
+    private static long getWriteCalls() throws IOException {
+        if(!THREAD_IO.canRead()) {
+            return -1;
+        }
+        BufferedReader reader = new BufferedReader(new FileReader(THREAD_IO));
+        try {
+            String line;
+            while(null != (line = reader.readLine())) {
+                if(line.startsWith("syscw:")) {
+                    return Long.parseLong(line.substring("syscw:".length()).trim());
+                }
+            }
+            return -1;
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * ArchivePageSink.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes the pages into a single ZIP or TAR archive instead of separate files.
+ * The entries are written one after another as the pages come, there are no
+ * temporary files. The archive is a ZIP file if its name ends with .zip, a TAR
+ * file otherwise. The name "-" stands for the standard output (TAR format).
+ *
+ * The entries are named by the page paths relative to the output directory,
+ * e.g. SCHEMA/table-orders.html.
+ *
+ * The archive is reproducible: all the entries have the same modification
+ * time, the one given by the SOURCE_DATE_EPOCH environment variable
+ * or 1980-01-01 00:00 UTC. The entries come in the order the pages are written,
+ * an OrderedPageSink in front of the archive keeps that order whatever the
+ * number of threads rendering the pages.
+ */
+public class ArchivePageSink implements PageSink {
+    /** The archive name standing for the standard output */
+    public static final String STDOUT = "-";
+
+    /** The default modification time of the entries: 1980-01-01 00:00 UTC, the earliest time of ZIP */
+    private static final long DEFAULT_MTIME = 315532800;
+
+    private static final int BLOCK_SIZE  = 512;
+    private static final int RECORD_SIZE = 20 * BLOCK_SIZE;
+
+    private final String        rootdir;
+    private final OutputStream  out;
+    private final ZipOutputStream zip;
+
+    /** Modification time of the entries, in seconds */
+    private final long          mtime;
+
+    /** Bytes written into the TAR archive */
+    private long                written = 0;
+    private boolean             closed  = false;
+
+    /**
+     * @param archive The archive file name, "-" for the standard output
+     * @param rootdir The output directory, the entries are named relative to it
+     * @throws IOException
+     */
+    public ArchivePageSink(String archive, String rootdir) throws IOException {
+        this.rootdir = (null == rootdir) ? "" : rootdir;
+        this.mtime   = getModificationTime();
+
+        OutputStream os = STDOUT.equals(archive)
+            ? new FileOutputStream(FileDescriptor.out)
+            : new FileOutputStream(archive);
+        os = new BufferedOutputStream(os, 64 * 1024);
+
+        if(!STDOUT.equals(archive) && archive.toLowerCase().endsWith(".zip")) {
+            zip = new ZipOutputStream(os);
+            out = zip;
+        } else {
+            zip = null;
+            out = os;
+        }
+    }
+
+    public synchronized void writePage(String dirname, String filename, ByteBuffer page) throws IOException {
+        if(closed) {
+            throw new IOException("The archive is closed, cannot write " + filename);
+        }
+        writeEntry(getEntryName(dirname, filename), page);
+    }
+
+    /**
+     * Completes the archive
+     */
+    public synchronized void close() throws IOException {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if(null != zip) {
+                zip.finish();
+            } else {
+                // Two empty blocks end the archive, the last record is filled up
+                out.write(new byte[2 * BLOCK_SIZE]);
+                written += 2 * BLOCK_SIZE;
+                if(written % RECORD_SIZE != 0) {
+                    out.write(new byte[(int) (RECORD_SIZE - written % RECORD_SIZE)]);
+                }
+            }
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes a page into the archive
+     */
+    private void writeEntry(String name, ByteBuffer page) throws IOException {
+        if(null != zip) {
+            ZipEntry entry = new ZipEntry(name);
+            entry.setTime(getLocalTime(mtime));
+            zip.putNextEntry(entry);
+            writeBuffer(page);
+            zip.closeEntry();
+        } else {
+            writeTarHeader(name, page.remaining());
+            writeBuffer(page);
+            pad();
+        }
+    }
+
+    /**
+     * Returns the modification time of the entries in seconds
+     */
+    protected static long getModificationTime() {
+        String epoch = System.getenv("SOURCE_DATE_EPOCH");
+        if(null != epoch && epoch.trim().length() > 0) {
+            try {
+                return Math.max(DEFAULT_MTIME, Long.parseLong(epoch.trim()));
+            } catch(NumberFormatException ex) {
+                OraDoclet.writeLog("Invalid SOURCE_DATE_EPOCH: " + epoch, OraDoclet.WARNING, "getModificationTime()", ex);
+            }
+        }
+        return DEFAULT_MTIME;
+    }
+
+    /**
+     * ZIP stores the local time, the returned time in milliseconds has the same
+     * local fields as the given UTC time. The archive does not depend on the time zone.
+     */
+    private static long getLocalTime(long seconds) {
+        Calendar utc = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        utc.setTimeInMillis(seconds * 1000);
+        Calendar local = new GregorianCalendar(utc.get(Calendar.YEAR), utc.get(Calendar.MONTH),
+            utc.get(Calendar.DAY_OF_MONTH), utc.get(Calendar.HOUR_OF_DAY), utc.get(Calendar.MINUTE), utc.get(Calendar.SECOND));
+        return local.getTimeInMillis();
+    }
+
+    /**
+     * Returns the path of the page relative to the output directory
+     */
+    protected String getEntryName(String dirname, String filename) {
+        return getRelativePath(rootdir, dirname, filename);
+    }
+
+    /**
+     * Returns the path of a page relative to the output directory, using slashes
+     *
+     * @param rootdir The output directory
+     * @param dirname The directory of the page
+     * @param filename The name of the page
+     * @return e.g. SCHEMA/table-orders.html
+     */
+    public static String getRelativePath(String rootdir, String dirname, String filename) {
+        String dir = (null == dirname) ? "" : dirname.replace('\\', '/');
+        String root = (null == rootdir) ? "" : rootdir.replace('\\', '/');
+        if(dir.startsWith(root)) {
+            dir = dir.substring(root.length());
+        }
+        while(dir.startsWith("/")) {
+            dir = dir.substring(1);
+        }
+        while(dir.startsWith("./")) {
+            dir = dir.substring(2);
+        }
+        if(dir.length() > 0 && !dir.endsWith("/")) {
+            dir += "/";
+        }
+        return dir + filename;
+    }
+
+    private void writeBuffer(ByteBuffer page) throws IOException {
+        if(page.hasArray()) {
+            out.write(page.array(), page.arrayOffset() + page.position(), page.remaining());
+            written += page.remaining();
+            page.position(page.limit());
+        } else {
+            byte[] bytes = new byte[page.remaining()];
+            page.get(bytes);
+            out.write(bytes);
+            written += bytes.length;
+        }
+    }
+
+    /**
+     * Fills up the last block of the entry
+     */
+    private void pad() throws IOException {
+        int rest = (int) (written % BLOCK_SIZE);
+        if(rest != 0) {
+            out.write(new byte[BLOCK_SIZE - rest]);
+            written += BLOCK_SIZE - rest;
+        }
+    }
+
+    /**
+     * Writes the ustar header of a regular file. A name not fitting into
+     * the header is given by a preceding pax extended header.
+     */
+    private void writeTarHeader(String name, long size) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        String prefix = "";
+        String shortName = name;
+
+        if(nameBytes.length > 100) {
+            int slash = name.lastIndexOf('/');
+            if(slash > 0
+                && name.substring(0, slash).getBytes(StandardCharsets.UTF_8).length <= 155
+                && name.substring(slash + 1).getBytes(StandardCharsets.UTF_8).length <= 100) {
+                prefix    = name.substring(0, slash);
+                shortName = name.substring(slash + 1);
+            } else {
+                byte[] record = getPaxRecord("path", name);
+                writeHeaderBlock("PaxHeader", "", record.length, 'x');
+                out.write(record);
+                written += record.length;
+                pad();
+                // The name in the header is truncated, the extended header gives the full one
+                shortName = name.substring(slash + 1);
+            }
+        }
+        writeHeaderBlock(shortName, prefix, size, '0');
+    }
+
+    private void writeHeaderBlock(String name, String prefix, long size, char type) throws IOException {
+        byte[] header = new byte[BLOCK_SIZE];
+
+        putString(header, 0, 100, name);
+        putOctal(header, 100, 8, 0644);
+        putOctal(header, 108, 8, 0);
+        putOctal(header, 116, 8, 0);
+        putOctal(header, 124, 12, size);
+        putOctal(header, 136, 12, mtime);
+        header[156] = (byte) type;
+        putString(header, 257, 6, "ustar");
+        putString(header, 263, 2, "00");
+        putString(header, 345, 155, prefix);
+
+        // The checksum is computed with the checksum field filled with spaces
+        for(int i=148; i<156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for(int i=0; i<BLOCK_SIZE; i++) {
+            checksum += header[i] & 0xFF;
+        }
+        putOctal(header, 148, 7, checksum);
+
+        out.write(header);
+        written += BLOCK_SIZE;
+    }
+
+    /**
+     * Returns the pax record "length key=value\n", the length includes itself
+     */
+    private static byte[] getPaxRecord(String key, String value) {
+        int length = (" " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8).length;
+        int digits = String.valueOf(length).length();
+        while(String.valueOf(length + digits).length() != digits) {
+            digits++;
+        }
+        return ((length + digits) + " " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(byte[] header, int offset, int length, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(bytes, 0, header, offset, Math.min(bytes.length, length));
+    }
+
+    /**
+     * Puts a zero terminated octal number, padded with leading zeros
+     */
+    private static void putOctal(byte[] header, int offset, int length, long value) {
+        String octal = Long.toOctalString(value);
+        StringBuilder field = new StringBuilder();
+        for(int i=octal.length(); i<length - 1; i++) {
+            field.append('0');
+        }
+        field.append(octal);
+        putString(header, offset, length - 1, field.toString());
+        header[offset + length - 1] = 0;
+    }
+}
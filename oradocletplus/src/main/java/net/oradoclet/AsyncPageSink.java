@@ -0,0 +1,173 @@
+/*
+ * AsyncPageSink.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes the pages behind the rendering. The pages are queued and written
+ * into the underlying sink by a few writer threads, so that the rendering
+ * does not wait for the file system. The queue is bounded: when the writers
+ * fall behind, the rendering waits until there is room in the queue.
+ * The time the rendering waited is reported as the stall time.
+ */
+public class AsyncPageSink implements PageSink {
+    /** Marks the end of the queue for a writer */
+    private static final Page END = new Page(null, null, null);
+
+    private final PageSink      sink;
+    private final BlockingQueue<Page> queue;
+    private final Thread[]      writers;
+
+    /** The first failure of a writer, reported when the sink is closed */
+    private IOException failure   = null;
+
+    private long        stallTime = 0;
+    private long        pageCount = 0;
+    private long        byteCount = 0;
+    private boolean     closed    = false;
+
+    /**
+     * @param sink The sink the pages are written into
+     * @param threads Number of writer threads
+     * @param capacity Number of pages which may wait for being written
+     */
+    public AsyncPageSink(PageSink sink, int threads, int capacity) {
+        this.sink    = sink;
+        this.queue   = new ArrayBlockingQueue<Page>(Math.max(1, capacity));
+        this.writers = new Thread[Math.max(1, threads)];
+        for(int i=0; i<writers.length; i++) {
+            writers[i] = new Thread(new Runnable() {
+                public void run() {
+                    work();
+                }
+            }, "oradoclet-writer-" + (i + 1));
+            writers[i].setDaemon(true);
+            writers[i].start();
+        }
+    }
+
+    /**
+     * Queues a copy of the page, waits while the queue is full
+     */
+    public void writePage(String dirname, String filename, ByteBuffer page) throws IOException {
+        byte[] bytes = new byte[page.remaining()];
+        page.get(bytes);
+
+        long start = System.nanoTime();
+        try {
+            queue.put(new Page(dirname, filename, bytes));
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while queueing " + filename);
+        }
+        long stall = System.nanoTime() - start;
+
+        synchronized(this) {
+            stallTime += stall;
+            pageCount++;
+            byteCount += bytes.length;
+        }
+    }
+
+    /**
+     * Waits until all the queued pages are written and closes the underlying sink
+     *
+     * @throws IOException The first error occured while writing the pages
+     */
+    public void close() throws IOException {
+        synchronized(this) {
+            if(closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            for(int i=0; i<writers.length; i++) {
+                queue.put(END);
+            }
+            for(int i=0; i<writers.length; i++) {
+                writers[i].join();
+            }
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the pages");
+        }
+        sink.close();
+
+        OraDoclet.writeLog(pageCount + " pages (" + byteCount / 1024 + " KB) written, rendering stalled "
+            + getStallTime() + " ms waiting for the writers", OraDoclet.INFO, "close()", null);
+        if(null != failure) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return The time the rendering waited for room in the queue, in milliseconds
+     */
+    public synchronized long getStallTime() {
+        return stallTime / 1000000;
+    }
+
+    private void work() {
+        try {
+            for(;;) {
+                Page page = queue.take();
+                if(END == page) {
+                    return;
+                }
+                try {
+                    sink.writePage(page.dirname, page.filename, ByteBuffer.wrap(page.bytes));
+                } catch(IOException iox) {
+                    OraDoclet.writeLog("Failed to write " + page.filename + ": " + iox.getMessage(),
+                        OraDoclet.ERROR, "work()", iox);
+                    synchronized(this) {
+                        if(null == failure) {
+                            failure = iox;
+                        }
+                    }
+                }
+            }
+        } catch(InterruptedException ex) {
+            // Stop working
+        }
+    }
+
+    /**
+     * A page waiting for being written
+     */
+    private static class Page {
+        final String dirname;
+        final String filename;
+        final byte[] bytes;
+
+        Page(String dirname, String filename, byte[] bytes) {
+            this.dirname  = dirname;
+            this.filename = filename;
+            this.bytes    = bytes;
+        }
+    }
+}
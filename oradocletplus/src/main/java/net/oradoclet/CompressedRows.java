@@ -0,0 +1,77 @@
+/*
+ * CompressedRows.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.util.Arrays;
+
+/**
+ * Builds the compressed sparse rows of a directed graph out of its edges:
+ * the nodes reached from the node n are target[start[n] .. start[n + 1] - 1],
+ * ascending and without duplicates. The edges are sorted into the rows by a
+ * counting sort, the time taken is proportional to the nodes and the edges.
+ */
+public class CompressedRows {
+    private CompressedRows() {
+        // Static methods only
+    }
+
+    /**
+     * Sorts the edges into rows by the given end and removes the duplicates,
+     * e.g. a package and its body using the same table
+     *
+     * @param edges The edges in pairs: the node the edge comes from, the node it goes to
+     * @param edgeCount The number of the edges
+     * @param start The row starts, one more than the nodes, filled in
+     * @param end 0 to sort by the node the edges come from, 1 by the node they go to
+     * @return The other ends of the edges, by row
+     */
+    public static int[] fill(int[] edges, int edgeCount, int[] start, int end) {
+        int nodeCount = start.length - 1;
+        for(int i=0; i<edgeCount; i++) {
+            start[edges[i * 2 + end] + 1]++;
+        }
+        for(int i=0; i<nodeCount; i++) {
+            start[i + 1] += start[i];
+        }
+        int[] target = new int[edgeCount];
+        int[] next   = Arrays.copyOf(start, nodeCount);
+        for(int i=0; i<edgeCount; i++) {
+            target[next[edges[i * 2 + end]]++] = edges[i * 2 + 1 - end];
+        }
+        // Sort and compact each row
+        int count = 0;
+        for(int i=0; i<nodeCount; i++) {
+            int from = start[i];
+            int to   = start[i + 1];
+            Arrays.sort(target, from, to);
+            start[i] = count;
+            for(int j=from; j<to; j++) {
+                if(j == from || target[j] != target[j - 1]) {
+                    target[count++] = target[j];
+                }
+            }
+        }
+        start[nodeCount] = count;
+        return (count == target.length) ? target : Arrays.copyOf(target, count);
+    }
+}
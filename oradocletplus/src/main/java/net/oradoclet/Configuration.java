@@ -51,6 +51,65 @@ public class Configuration {
     public String applicationTitle;
     public String copyrightLabel;    
 
+    /** Port of the embedded HTTP server, the pages are written to files when not set */
+    public int serverPort;
+    /** Size limit of the server page cache, in megabytes */
+    public int serverCacheSize;
+
+    /** Number of threads rendering the pages */
+    public int threads;
+
+    /** Number of objects queued for rendering while the dictionary is read, the pages are written after reading when 0 */
+    public int pipeline;
+
+    /** Number of threads writing the pages behind the rendering, the rendering threads write the pages when 0 */
+    public int writers;
+
+    /** Name of the archive the pages are written into instead of separate files, "-" for the standard output */
+    public String archive;
+
+    /** Whether the pages are compressed with gzip: "only" for compressed pages, "both" for the plain ones too, null if not */
+    public String gzip;
+
+    /** Manifest of the pages written, only the pages changed since the previous run are written when set */
+    public String manifest;
+
+    /** Directory keeping a version of the documentation per run, the unchanged pages are hard-linked to the previous version */
+    public String history;
+
+    /** Number of threads of the parallel rendering compared with the serial one, when set nothing is written */
+    public int checkThreads;
+
+    /** Whether the object pages are written into directories by type and name prefix, e.g. table/OR/table-orders.html */
+    public boolean sharded;
+
+    /** Maximal number of names on a page of the name index split by the leading character, 0 for no limit, -1 for a single page */
+    public int nameIndexBucket;
+
+    /** Number of rows on a page of a list or an index of objects, the lists are not split when 0 */
+    public int pageSize;
+
+    /** Whether the source code is written as a single text block with the line numbers beside it, rather than a list item per line */
+    public boolean compactSource;
+
+    /** Number of source lines per page, longer source is split into pages loaded on demand, not split when 0 */
+    public int sourceChunk;
+
+    /** Whether a trigram index of the source code is written next to the pages of each schema */
+    public boolean sourceIndex;
+
+    /** Whether the names of the objects found in the source code are linked to their pages */
+    public boolean sourceLinks;
+
+    /** Whether the identifiers collected by PL/Scope are read and cross-referenced on the pages */
+    public boolean plscope;
+
+    /** Number of foreign keys between a table and the farthest tables of the diagram on its page, no diagram when 0 */
+    public int erDepth;
+
+    /** Destination of the generated pages */
+    public PageSink pageSink;
+
     protected Set excludedDocFileDirs;
     protected Set excludedQualifiers;
     
@@ -70,5 +129,14 @@ public class Configuration {
         excludedDocFileDirs = new HashSet();
         excludedQualifiers = new HashSet();
         schemas = new LinkedHashSet<>();
+        serverPort = 0;
+        serverCacheSize = 64;
+        threads = Runtime.getRuntime().availableProcessors();
+        pipeline = 0;
+        writers = 2;
+        nameIndexBucket = -1;
+        sourceLinks = true;
+        erDepth = 1;
+        pageSink = new FilePageSink();
     }
 }
@@ -0,0 +1,354 @@
+/*
+ * CrossReference.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The identifiers declared and referenced in the PL/SQL code of a schema,
+ * as collected by PL/Scope (all_identifiers).
+ *
+ * The rows are read as they stream and aggregated into arrays: each distinct
+ * signature (an identifier declared once) is numbered, each reference is
+ * three ints: the unit, the signature and the line. The units are the objects
+ * as numbered by the dependency graph, the body of a package counts as the
+ * package. A line is stored shifted left by one, the lowest bit set when the
+ * line is the one of a package specification rather than of its body.
+ *
+ * Once read, the references are sorted into rows per unit, and the references
+ * to the columns into rows per table.
+ */
+public class CrossReference {
+    /** The cross references of the object trees alive */
+    private static final TreeRegistry<CrossReference> crossReferences = new TreeRegistry<CrossReference>();
+
+    /** The bit set in a line of a package specification */
+    public static final int SPEC = 1;
+
+    private final DependencyGraph graph;
+
+    /** Identifier names and types */
+    private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+    private final List<String>         strings   = new ArrayList<String>();
+
+    /** Per signature: the name, the type, the unit and the line of the declaration, the table of a column */
+    private final Map<String, Integer> signatureIds = new HashMap<String, Integer>();
+    private int[] signatureName  = new int[1024];
+    private int[] signatureType  = new int[1024];
+    private int[] declarationUnit = new int[1024];
+    private int[] declarationLine = new int[1024];
+    private int[] columnTable    = new int[1024];
+    private int   signatures     = 0;
+
+    /** The references read: unit, signature, line */
+    private int[] references     = new int[3 * 1024];
+    private int   referenceCount = 0;
+
+    /** The unit being read and the tables or views of its usages, by usage ID */
+    private String currentUnit  = null;
+    private int[]  usageTable   = new int[1024];
+    private int    usageCount   = 0;
+
+    /** The declarations by unit, sorted by line */
+    private int[] declarationStart;
+    private int[] declarations;
+
+    /** The references to the identifiers declared in other units by unit: signature << 32 | line */
+    private int[]  referenceStart;
+    private long[] unitReferences;
+
+    /** The references to the columns by table: signature << 32 | number of the reference */
+    private int[]  columnStart;
+    private long[] columnReferences;
+
+    private final int typeColumn;
+    private final int typeTable;
+    private final int typeView;
+
+    /**
+     * Registers the cross reference of the given object tree
+     */
+    public static void setCrossReference(TreeMap<?, ?> objectTree, CrossReference crossReference) {
+        crossReferences.put(objectTree, crossReference);
+    }
+
+    /**
+     * Returns the cross reference of the given object tree
+     *
+     * @return cross reference or null if PL/Scope was not read
+     */
+    public static CrossReference getCrossReference(TreeMap<?, ?> objectTree) {
+        return crossReferences.get(objectTree);
+    }
+
+    /**
+     * @param graph The objects of the schema are numbered as in its dependency graph
+     */
+    public CrossReference(DependencyGraph graph) {
+        this.graph = graph;
+        typeColumn = getStringId("COLUMN");
+        typeTable  = getStringId("TABLE");
+        typeView   = getStringId("VIEW");
+        Arrays.fill(usageTable, -1);
+    }
+
+    /**
+     * Adds a row of all_identifiers. The rows come ordered by the object
+     * type, the object name and the usage ID.
+     */
+    public void add(String objectType, String objectName, int usageId, int usageContextId,
+                    String type, String name, String usage, int line, String signature) {
+        if(null == objectType || null == objectName || null == signature) {
+            return;
+        }
+        String unitKey = objectType + "." + objectName;
+        if(!unitKey.equals(currentUnit)) {
+            currentUnit = unitKey;
+            Arrays.fill(usageTable, 0, Math.min(usageCount, usageTable.length), -1);
+            usageCount = 0;
+        }
+        int unit = graph.getNode(objectType, objectName);
+        int sig  = getSignatureId(signature, name, type);
+        int lineSpec = (line << 1) | (objectType.equalsIgnoreCase("PACKAGE") ? SPEC : 0);
+
+        // The tables and views, the columns referenced in a statement belong to
+        if(usageId >= 0) {
+            if(usageId >= usageTable.length) {
+                int length = usageTable.length;
+                usageTable = Arrays.copyOf(usageTable, Math.max(usageId + 1, length * 2));
+                Arrays.fill(usageTable, length, usageTable.length, -1);
+            }
+            if(signatureType[sig] == typeTable || signatureType[sig] == typeView) {
+                usageTable[usageId] = graph.getNode(type, name);
+            }
+            usageCount = Math.max(usageCount, usageId + 1);
+        }
+        if(unit < 0) {
+            return;
+        }
+
+        if("DECLARATION".equalsIgnoreCase(usage)) {
+            if(declarationUnit[sig] < 0) {
+                declarationUnit[sig] = unit;
+                declarationLine[sig] = lineSpec;
+            }
+        } else if("REFERENCE".equalsIgnoreCase(usage) || "CALL".equalsIgnoreCase(usage)
+            || "ASSIGNMENT".equalsIgnoreCase(usage)) {
+            if(signatureType[sig] == typeColumn && columnTable[sig] < 0
+                && usageContextId >= 0 && usageContextId < usageCount) {
+                columnTable[sig] = usageTable[usageContextId];
+            }
+            if(references.length < (referenceCount + 1) * 3) {
+                references = Arrays.copyOf(references, references.length * 2);
+            }
+            references[referenceCount * 3]     = unit;
+            references[referenceCount * 3 + 1] = sig;
+            references[referenceCount * 3 + 2] = lineSpec;
+            referenceCount++;
+        }
+    }
+
+    /**
+     * Sorts the identifiers read into rows, once all the rows are added
+     */
+    public void build() {
+        int units = graph.getNodeCount();
+
+        // The columns declared by a table belong to it
+        for(int sig=0; sig<signatures; sig++) {
+            if(signatureType[sig] == typeColumn && columnTable[sig] < 0 && declarationUnit[sig] >= 0) {
+                String unitType = graph.getObject(declarationUnit[sig]).getObjectType();
+                if(unitType.equalsIgnoreCase("TABLE") || unitType.equalsIgnoreCase("VIEW")) {
+                    columnTable[sig] = declarationUnit[sig];
+                }
+            }
+        }
+
+        // Declarations by unit, by line
+        declarationStart = new int[units + 1];
+        for(int sig=0; sig<signatures; sig++) {
+            if(declarationUnit[sig] >= 0) {
+                declarationStart[declarationUnit[sig] + 1]++;
+            }
+        }
+        accumulate(declarationStart);
+        long[] keys = new long[declarationStart[units]];
+        int[]  next = Arrays.copyOf(declarationStart, units);
+        for(int sig=0; sig<signatures; sig++) {
+            if(declarationUnit[sig] >= 0) {
+                keys[next[declarationUnit[sig]]++] = ((long) declarationLine[sig] << 32) | sig;
+            }
+        }
+        declarations = new int[keys.length];
+        for(int unit=0; unit<units; unit++) {
+            Arrays.sort(keys, declarationStart[unit], declarationStart[unit + 1]);
+        }
+        for(int i=0; i<keys.length; i++) {
+            declarations[i] = (int) keys[i];
+        }
+
+        // References to the identifiers of other units and to the columns, by unit and by table
+        referenceStart = new int[units + 1];
+        columnStart    = new int[units + 1];
+        for(int i=0; i<referenceCount; i++) {
+            int unit = references[i * 3];
+            int sig  = references[i * 3 + 1];
+            if(isForeign(unit, sig)) {
+                referenceStart[unit + 1]++;
+            }
+            if(columnTable[sig] >= 0) {
+                columnStart[columnTable[sig] + 1]++;
+            }
+        }
+        accumulate(referenceStart);
+        accumulate(columnStart);
+        unitReferences   = new long[referenceStart[units]];
+        columnReferences = new long[columnStart[units]];
+        int[] nextReference = Arrays.copyOf(referenceStart, units);
+        int[] nextColumn    = Arrays.copyOf(columnStart, units);
+        for(int i=0; i<referenceCount; i++) {
+            int unit = references[i * 3];
+            int sig  = references[i * 3 + 1];
+            if(isForeign(unit, sig)) {
+                unitReferences[nextReference[unit]++] = ((long) sig << 32) | references[i * 3 + 2];
+            }
+            if(columnTable[sig] >= 0) {
+                columnReferences[nextColumn[columnTable[sig]]++] = ((long) sig << 32) | i;
+            }
+        }
+        for(int unit=0; unit<units; unit++) {
+            Arrays.sort(unitReferences, referenceStart[unit], referenceStart[unit + 1]);
+            Arrays.sort(columnReferences, columnStart[unit], columnStart[unit + 1]);
+        }
+        usageTable = null;
+    }
+
+    /**
+     * Tells whether the reference is listed with its unit: the identifier is
+     * a column or it is declared by another unit of the schema
+     */
+    private boolean isForeign(int unit, int sig) {
+        return columnTable[sig] >= 0 || (declarationUnit[sig] >= 0 && declarationUnit[sig] != unit);
+    }
+
+    private static void accumulate(int[] start) {
+        for(int i=1; i<start.length; i++) {
+            start[i] += start[i - 1];
+        }
+    }
+
+    /**
+     * Returns the signatures declared by the unit, in the order of the lines
+     */
+    public int[] getDeclarations(int unit) {
+        return Arrays.copyOfRange(declarations, declarationStart[unit], declarationStart[unit + 1]);
+    }
+
+    /**
+     * Returns the references of the unit to the columns and to the identifiers
+     * declared by other units, by signature and line: signature << 32 | line
+     */
+    public long[] getReferences(int unit) {
+        return Arrays.copyOfRange(unitReferences, referenceStart[unit], referenceStart[unit + 1]);
+    }
+
+    /**
+     * Returns the references to the columns of the table or the view,
+     * by signature and unit: signature << 32 | number of the reference
+     */
+    public long[] getColumnReferences(int table) {
+        return Arrays.copyOfRange(columnReferences, columnStart[table], columnStart[table + 1]);
+    }
+
+    /** Returns the unit of the reference of the given number */
+    public int getReferenceUnit(int reference) {
+        return references[reference * 3];
+    }
+
+    /** Returns the line of the reference of the given number */
+    public int getReferenceLine(int reference) {
+        return references[reference * 3 + 2];
+    }
+
+    public String getName(int sig) {
+        return strings.get(signatureName[sig]);
+    }
+
+    public String getType(int sig) {
+        return strings.get(signatureType[sig]);
+    }
+
+    /** Returns the table or the view of a column, -1 for other identifiers */
+    public int getColumnTable(int sig) {
+        return columnTable[sig];
+    }
+
+    /** Returns the unit declaring the signature, -1 if it is not declared in the schema */
+    public int getDeclarationUnit(int sig) {
+        return declarationUnit[sig];
+    }
+
+    /** Returns the line of the declaration of the signature */
+    public int getDeclarationLine(int sig) {
+        return declarationLine[sig];
+    }
+
+    private int getStringId(String s) {
+        s = (null == s) ? "" : s;
+        Integer id = stringIds.get(s);
+        if(null == id) {
+            id = Integer.valueOf(strings.size());
+            stringIds.put(s, id);
+            strings.add(s);
+        }
+        return id.intValue();
+    }
+
+    private int getSignatureId(String signature, String name, String type) {
+        Integer id = signatureIds.get(signature);
+        if(null != id) {
+            return id.intValue();
+        }
+        int sig = signatures++;
+        if(sig == signatureName.length) {
+            int length = sig * 2;
+            signatureName   = Arrays.copyOf(signatureName, length);
+            signatureType   = Arrays.copyOf(signatureType, length);
+            declarationUnit = Arrays.copyOf(declarationUnit, length);
+            declarationLine = Arrays.copyOf(declarationLine, length);
+            columnTable     = Arrays.copyOf(columnTable, length);
+        }
+        signatureName[sig]   = getStringId(name);
+        signatureType[sig]   = getStringId(type);
+        declarationUnit[sig] = -1;
+        declarationLine[sig] = 0;
+        columnTable[sig]     = -1;
+        signatureIds.put(signature, Integer.valueOf(sig));
+        return sig;
+    }
+}
@@ -37,6 +37,11 @@ public class DatabaseAttribute {
      */
     private String value;
 
+    /**
+     * Lines appended to the value while it is read, joined when the value is needed
+     */
+    private StringBuilder appended;
+
     /**
      * Determines whether the attribute is to be displayed in the output
      */
@@ -47,6 +52,11 @@ public class DatabaseAttribute {
      */
     private boolean preformatted;
 
+    /**
+     * Determines whether the attribute value is HTML markup (e.g. a list of links) and is output without escaping
+     */
+    private boolean markup;
+
     /**
      * Direkt reference to the DatabaseObject(in case that the attribute is a DatabaseObject)
      */
@@ -100,7 +110,11 @@ public class DatabaseAttribute {
     /**
      * @return
      */
-    public String getValue() {
+    public synchronized String getValue() {
+        if(appended != null) {
+            value = appended.toString();
+            appended = null;
+        }
         if(value == null) return value;
         //return value.replaceAll("<", "&lt;").replaceAll(">", "&gt;");
         return value;
@@ -109,8 +123,21 @@ public class DatabaseAttribute {
     /**
      * @param string
      */
-    public void setValue(String newValue) {
+    public synchronized void setValue(String newValue) {
         value = newValue;
+        appended = null;
+    }
+
+    /**
+     * Appends a line to the value, without copying the value read so far
+     *
+     * @param line
+     */
+    public synchronized void appendValue(String line) {
+        if(appended == null) {
+            appended = new StringBuilder((null == value) ? "" : value);
+        }
+        appended.append(line);
     }
 
     public String toString() {
@@ -164,4 +191,18 @@ public class DatabaseAttribute {
         preformatted = b;
     }
 
+    /**
+     * @return
+     */
+    public boolean isMarkup() {
+        return markup;
+    }
+
+    /**
+     * @param b
+     */
+    public void setMarkup(boolean b) {
+        markup = b;
+    }
+
 }
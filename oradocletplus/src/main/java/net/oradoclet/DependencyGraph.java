@@ -0,0 +1,254 @@
+/*
+ * DependencyGraph.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The dependencies between the objects of a schema, as read from all_dependencies.
+ *
+ * The objects are numbered in the order of the object tree, i.e. by type and
+ * name. The edges are kept in compressed sparse rows: the objects used by the
+ * object n are usesTarget[usesStart[n] .. usesStart[n + 1] - 1], the objects
+ * using it likewise in usedByStart and usedByTarget. Each row is sorted.
+ *
+ * The graph is built once per object tree, before the pages are written, and
+ * is only read afterwards.
+ */
+public class DependencyGraph {
+    /** The graphs of the object trees alive */
+    private static final TreeRegistry<DependencyGraph> graphs = new TreeRegistry<DependencyGraph>();
+
+    /** The object types taking part in the dependencies */
+    private static final String[] nodeTypes =
+        {"TABLE", "VIEW", "TRIGGER", "PROCEDURE", "FUNCTION", "PACKAGE", "SEQUENCE"};
+
+    /** The objects by number */
+    private final DatabaseObject[] nodes;
+
+    /** The numbers of the objects by object ID */
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+    /** The edges read so far, in pairs: the object using, the object used */
+    private int[] edges     = new int[256];
+    private int   edgeCount = 0;
+
+    private int[] usesStart;
+    private int[] usesTarget;
+    private int[] usedByStart;
+    private int[] usedByTarget;
+
+    /** The marks of the objects visited by the queries, per thread */
+    private final ThreadLocal<Marks> marks = new ThreadLocal<Marks>();
+
+    /**
+     * Registers the graph of the given object tree
+     *
+     * @param objectTree The objects of the schema
+     * @param graph The dependencies between them
+     */
+    public static void setGraph(TreeMap<?, ?> objectTree, DependencyGraph graph) {
+        graphs.put(objectTree, graph);
+    }
+
+    /**
+     * Returns the graph of the given object tree
+     *
+     * @param objectTree The objects of the schema
+     * @return graph or null if the dependencies were not read
+     */
+    public static DependencyGraph getGraph(TreeMap<?, ?> objectTree) {
+        return graphs.get(objectTree);
+    }
+
+    /**
+     * Numbers the objects of the tree which can use or be used by other objects
+     *
+     * @param objectTree The objects of the schema
+     */
+    public DependencyGraph(TreeMap<?, ?> objectTree) {
+        List<DatabaseObject> objects = new ArrayList<DatabaseObject>();
+        Iterator<?> it = objectTree.values().iterator();
+        while(it.hasNext()) {
+            DatabaseObject dbobject = (DatabaseObject) it.next();
+            for(int i=0; i<nodeTypes.length; i++) {
+                if(nodeTypes[i].equalsIgnoreCase(dbobject.getObjectType())) {
+                    ids.put(dbobject.getObjectID(), Integer.valueOf(objects.size()));
+                    objects.add(dbobject);
+                    break;
+                }
+            }
+        }
+        nodes = objects.toArray(new DatabaseObject[objects.size()]);
+    }
+
+    /**
+     * Returns the number of the object, -1 if it takes no part in the dependencies
+     */
+    public int getNode(DatabaseObject dbobject) {
+        Integer id = (null == dbobject) ? null : ids.get(dbobject.getObjectID());
+        return (null == id) ? -1 : id.intValue();
+    }
+
+    /**
+     * Returns the number of the object of the given type and name, -1 if there is none.
+     * The body of a package stands for the package.
+     */
+    public int getNode(String objectType, String objectName) {
+        if(null == objectType || null == objectName) {
+            return -1;
+        }
+        if(objectType.equalsIgnoreCase("PACKAGE BODY")) {
+            objectType = "PACKAGE";
+        }
+        Integer id = ids.get(DatabaseObject.genKey(objectType, objectName));
+        return (null == id) ? -1 : id.intValue();
+    }
+
+    /**
+     * Returns the number of the objects
+     */
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    /**
+     * Returns the object by its number
+     */
+    public DatabaseObject getObject(int node) {
+        return nodes[node];
+    }
+
+    /**
+     * Records that an object uses another one, while the dependencies are read
+     *
+     * @param from The number of the object using
+     * @param to The number of the object used
+     */
+    public void addEdge(int from, int to) {
+        if(from < 0 || to < 0 || from == to) {
+            return;
+        }
+        if(edges.length < (edgeCount + 1) * 2) {
+            edges = Arrays.copyOf(edges, edges.length * 2);
+        }
+        edges[edgeCount * 2]     = from;
+        edges[edgeCount * 2 + 1] = to;
+        edgeCount++;
+    }
+
+    /**
+     * Builds the rows of both directions out of the edges read
+     */
+    public void build() {
+        usesStart    = new int[nodes.length + 1];
+        usedByStart  = new int[nodes.length + 1];
+        // A package and its body using the same table make a single edge
+        usesTarget   = CompressedRows.fill(edges, edgeCount, usesStart, 0);
+        usedByTarget = CompressedRows.fill(edges, edgeCount, usedByStart, 1);
+        edges = null;
+    }
+
+    /**
+     * Returns the numbers of the objects the given object uses, in the order of the object tree
+     */
+    public int[] getUses(int node) {
+        return Arrays.copyOfRange(usesTarget, usesStart[node], usesStart[node + 1]);
+    }
+
+    /**
+     * Returns the numbers of the objects using the given object, in the order of the object tree
+     */
+    public int[] getUsedBy(int node) {
+        return Arrays.copyOfRange(usedByTarget, usedByStart[node], usedByStart[node + 1]);
+    }
+
+    /**
+     * Returns the numbers of the objects using the given object directly or
+     * through other objects, i.e. the objects which may break when it changes,
+     * in the order of the object tree. The time taken is proportional to the
+     * number of the objects found and of their dependencies, not to the size
+     * of the schema.
+     */
+    public int[] getImpact(int node) {
+        Marks visited = marks.get();
+        if(null == visited) {
+            visited = new Marks(nodes.length);
+            marks.set(visited);
+        }
+        int   stamp  = visited.next();
+        int[] result = new int[Math.max(16, usedByStart[node + 1] - usedByStart[node])];
+        int   count  = 0;
+
+        // The result is the queue as well
+        visited.stamps[node] = stamp;
+        int head = -1;
+        int current = node;
+        while(true) {
+            for(int i=usedByStart[current]; i<usedByStart[current + 1]; i++) {
+                int user = usedByTarget[i];
+                if(visited.stamps[user] != stamp) {
+                    visited.stamps[user] = stamp;
+                    if(count == result.length) {
+                        result = Arrays.copyOf(result, count * 2);
+                    }
+                    result[count++] = user;
+                }
+            }
+            if(++head >= count) {
+                break;
+            }
+            current = result[head];
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * The objects visited by a query are marked with its stamp, the marks
+     * need not be cleared between the queries
+     */
+    private static class Marks {
+        private final int[] stamps;
+        private int stamp = 0;
+
+        Marks(int size) {
+            stamps = new int[size];
+        }
+
+        int next() {
+            if(++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+            return stamp;
+        }
+    }
+}
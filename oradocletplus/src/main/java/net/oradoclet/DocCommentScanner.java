@@ -0,0 +1,343 @@
+/*
+ * DocCommentScanner.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Picks the documentation comments, /** ... *&#47;, out of PL/SQL source
+ * fed to it line by line, as the lines are read from the dictionary.
+ *
+ * A comment followed by "PROCEDURE name" or "FUNCTION name" documents that
+ * procedure or function. A comment followed by anything else, appearing
+ * before the first procedure or function of the unit, documents the unit
+ * itself, e.g. a comment at the top of a package specification.
+ *
+ * The scanner looks at each character once and keeps nothing of the source
+ * but the text of the comment being read and the word being read. Strings,
+ * quoted identifiers and other comments are skipped.
+ */
+public class DocCommentScanner {
+    private static final int CODE          = 0;
+    private static final int LINE_COMMENT  = 1;
+    private static final int BLOCK_COMMENT = 2;
+    private static final int DOC_COMMENT   = 3;
+    private static final int STRING        = 4;
+    private static final int QUOTED_STRING = 5;
+    private static final int IDENTIFIER    = 6;
+
+    /** The longest word kept, longer words are truncated */
+    private static final int MAX_WORD = 256;
+
+    private final String  unitName;
+    private final boolean standalone;
+
+    private int state = CODE;
+
+    /** The closing delimiter of a q'[...]' string */
+    private char quoteEnd;
+
+    /** The word being read */
+    private final StringBuilder word = new StringBuilder();
+
+    /** The comment being read, whether the first character of its line is to be read */
+    private final StringBuilder comment = new StringBuilder();
+    private boolean lineStart;
+
+    /** The comment read, waiting for the declaration it documents */
+    private String  pending = null;
+    private boolean expectName = false;
+
+    /** Number of the PROCEDURE and FUNCTION keywords read, number of the declarations read by name */
+    private int routines = 0;
+    private final HashMap<String, Integer> declarations = new HashMap<String, Integer>();
+
+    private String unitDescription = null;
+    private final List<String>  memberNames        = new ArrayList<String>();
+    private final List<Integer> memberOverloads    = new ArrayList<Integer>();
+    private final List<String>  memberDescriptions = new ArrayList<String>();
+
+    /**
+     * @param unitName The name of the package, the procedure or the function
+     * @param standalone Whether the unit is a procedure or a function itself,
+     *        the first PROCEDURE or FUNCTION of its source being its own header
+     */
+    public DocCommentScanner(String unitName, boolean standalone) {
+        this.unitName   = unitName;
+        this.standalone = standalone;
+    }
+
+    /**
+     * Scans the next line of the source
+     *
+     * @param line The line, with or without its line break
+     */
+    public void feed(String line) {
+        if(null == line) {
+            return;
+        }
+        int length = line.length();
+        for(int i=0; i<length; i++) {
+            char c    = line.charAt(i);
+            char next = (i + 1 < length) ? line.charAt(i + 1) : '\0';
+            switch(state) {
+            case CODE:
+                if(SourceLinker.isIdentifierPart(c)) {
+                    if(word.length() < MAX_WORD) {
+                        word.append(c);
+                    }
+                    continue;
+                }
+                boolean quotePrefix = c == '\'' && (word.length() == 1 || word.length() == 2)
+                    && ("Q".equalsIgnoreCase(word.toString()) || "NQ".equalsIgnoreCase(word.toString()));
+                endWord();
+                if(c == '-' && next == '-') {
+                    state = LINE_COMMENT;
+                    i++;
+                } else if(c == '/' && next == '*') {
+                    // /** opens a documentation comment, /**/ is empty
+                    if(i + 2 < length && line.charAt(i + 2) == '*' && !(i + 3 < length && line.charAt(i + 3) == '/')) {
+                        state = DOC_COMMENT;
+                        comment.setLength(0);
+                        lineStart = false;
+                        i += 2;
+                    } else {
+                        state = BLOCK_COMMENT;
+                        i++;
+                    }
+                } else if(quotePrefix && 0 != next) {
+                    state    = QUOTED_STRING;
+                    quoteEnd = getQuoteEnd(next);
+                    i++;
+                } else if(c == '\'') {
+                    state = STRING;
+                } else if(c == '"') {
+                    state = IDENTIFIER;
+                } else if(!Character.isWhitespace(c)) {
+                    // Any other token ends the declaration a comment may be waiting for
+                    punctuation();
+                }
+                break;
+            case LINE_COMMENT:
+                if(c == '\n') {
+                    state = CODE;
+                }
+                break;
+            case BLOCK_COMMENT:
+                if(c == '*' && next == '/') {
+                    state = CODE;
+                    i++;
+                }
+                break;
+            case DOC_COMMENT:
+                if(c == '*' && next == '/') {
+                    state = CODE;
+                    i++;
+                    endComment();
+                } else if(c == '\n') {
+                    comment.append('\n');
+                    lineStart = true;
+                } else if(lineStart && (c == ' ' || c == '\t' || c == '\r')) {
+                    // The indentation is dropped
+                } else if(lineStart && c == '*') {
+                    lineStart = false;
+                    if(next == ' ') {
+                        i++;
+                    }
+                } else if(c != '\r') {
+                    lineStart = false;
+                    comment.append(c);
+                }
+                break;
+            case STRING:
+                if(c == '\'') {
+                    if(next == '\'') {
+                        i++;
+                    } else {
+                        state = CODE;
+                    }
+                }
+                break;
+            case QUOTED_STRING:
+                if(c == quoteEnd && next == '\'') {
+                    state = CODE;
+                    i++;
+                }
+                break;
+            case IDENTIFIER:
+                if(c == '"') {
+                    state = CODE;
+                    endWord();
+                } else if(word.length() < MAX_WORD) {
+                    word.append(c);
+                }
+                break;
+            }
+        }
+        // Each line fed is a line of the source
+        if(0 == length || line.charAt(length - 1) != '\n') {
+            feed("\n");
+        }
+    }
+
+    /**
+     * Returns the description of the unit itself, null if there is none
+     */
+    public String getUnitDescription() {
+        finish();
+        return unitDescription;
+    }
+
+    /**
+     * Returns the names of the documented procedures and functions, in the order of the source
+     */
+    public List<String> getMemberNames() {
+        finish();
+        return memberNames;
+    }
+
+    /**
+     * Returns the overload documented for each name, 0 for the first
+     * procedure or function of that name declared by the source
+     */
+    public List<Integer> getMemberOverloads() {
+        finish();
+        return memberOverloads;
+    }
+
+    /**
+     * Returns the descriptions of the procedures and functions, in the order of their names
+     */
+    public List<String> getMemberDescriptions() {
+        finish();
+        return memberDescriptions;
+    }
+
+    /**
+     * Handles the end of the source: a comment still waiting documents nothing
+     */
+    private void finish() {
+        endWord();
+        punctuation();
+    }
+
+    /**
+     * Handles the word just read, if any
+     */
+    private void endWord() {
+        if(0 == word.length()) {
+            return;
+        }
+        String w = word.toString();
+        word.setLength(0);
+
+        if(expectName) {
+            expectName = false;
+            attach(w);
+        } else if(w.equalsIgnoreCase("PROCEDURE") || w.equalsIgnoreCase("FUNCTION")) {
+            routines++;
+            expectName = true;
+        } else {
+            unattached();
+        }
+    }
+
+    /**
+     * Handles a token which is no word
+     */
+    private void punctuation() {
+        if(expectName) {
+            expectName = false;
+        }
+        unattached();
+    }
+
+    /**
+     * Handles the end of a documentation comment, a comment waiting is left unattached
+     */
+    private void endComment() {
+        unattached();
+        int start = 0;
+        int end   = comment.length();
+        while(start < end && Character.isWhitespace(comment.charAt(start))) {
+            start++;
+        }
+        while(end > start && Character.isWhitespace(comment.charAt(end - 1))) {
+            end--;
+        }
+        pending = (start < end) ? comment.substring(start, end) : null;
+        comment.setLength(0);
+    }
+
+    /**
+     * Attaches the comment waiting to the procedure or the function of the given name
+     */
+    private void attach(String name) {
+        String  key      = name.toUpperCase();
+        Integer overload = declarations.get(key);
+        overload = Integer.valueOf((null == overload) ? 0 : overload.intValue() + 1);
+        declarations.put(key, overload);
+        if(null == pending) {
+            return;
+        }
+        if(standalone && 1 == routines && name.equalsIgnoreCase(unitName)) {
+            if(null == unitDescription) {
+                unitDescription = pending;
+            }
+        } else {
+            memberNames.add(name);
+            memberOverloads.add(overload);
+            memberDescriptions.add(pending);
+        }
+        pending = null;
+    }
+
+    /**
+     * A comment followed by no declaration of a procedure or a function
+     * documents the unit, if it comes before them
+     */
+    private void unattached() {
+        if(null == pending) {
+            return;
+        }
+        if(null == unitDescription && routines <= (standalone ? 1 : 0)) {
+            unitDescription = pending;
+        }
+        pending = null;
+    }
+
+    /**
+     * Returns the character closing a q'...' string opened by the given one
+     */
+    private static char getQuoteEnd(char c) {
+        switch(c) {
+        case '[': return ']';
+        case '{': return '}';
+        case '(': return ')';
+        case '<': return '>';
+        default:  return c;
+        }
+    }
+}
@@ -23,6 +23,7 @@
 package net.oradoclet;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.Statement;
@@ -33,6 +34,48 @@ import java.util.*;
  * Generates the documentation index file and other related files.
  */
 public class DocFilesetWriter {
+    /** The script holding the names searched by the search box of the navigation file */
+    public static final String SEARCH_INDEX = "search-index.js";
+
+    /** Maximal number of names found by the search box */
+    private static final int SEARCH_RESULTS = 50;
+
+    /**
+     * Searches the names in the index: the names starting with the text
+     * are found by a binary search over the names in lower case, the order
+     * of compareToIgnoreCase, then the names containing it by a scan,
+     * up to SEARCH_RESULTS names. The index is loaded as a script, the
+     * pages opened from the disk can query it too.
+     */
+    private static final String SEARCH_SCRIPT =
+          "<script>var searchData=null,searchLower=null;"
+        + "function searchIndex(d){searchData=d;}"
+        + "function searchLink(i){"
+        +   "var d=searchData,o=d.pages[d.page[i]];if(!o){return null;}"
+        +   "var t=d.types.charAt(i),f=d.fragments[i];"
+        +   "if(null==f&&t<'a'){f=d.typeNames[t.charCodeAt(0)-65].substring(0,3).toLowerCase()+'-'"
+        +     "+d.names[i].toLowerCase().replace(/[\\\\/: ]/g,'_');}"
+        +   "return (null==f)?o[0]:o[0]+'#'+f;"
+        + "}"
+        + "function searchType(i){var t=searchData.types.charCodeAt(i);return searchData.typeNames[t>=97?t-97:t-65];}"
+        + "function search(q){"
+        +   "var r=document.getElementById('search-results');r.innerHTML='';"
+        +   "q=q.replace(/^\\s+|\\s+$/g,'').toLowerCase();if(!q||!searchData){return;}"
+        +   "if(!searchLower){searchLower=[];for(var i=0;i<searchData.names.length;i++){searchLower.push(searchData.names[i].toLowerCase());}}"
+        +   "var n=searchLower.length,lo=0,hi=n,found=[];"
+        +   "while(lo<hi){var m=(lo+hi)>>>1;if(searchLower[m]<q){lo=m+1;}else{hi=m;}}"
+        +   "for(var i=lo;i<n&&found.length<" + SEARCH_RESULTS + "&&searchLower[i].lastIndexOf(q,0)==0;i++){found.push(i);}"
+        +   "for(var i=0;i<n&&found.length<" + SEARCH_RESULTS + ";i++){if(searchLower[i].indexOf(q)>0){found.push(i);}}"
+        +   "for(var k=0;k<found.length;k++){"
+        +     "var i=found[k],l=searchLink(i),o=searchData.pages[searchData.page[i]],e=document.createElement(l?'a':'span');"
+        +     "if(l){e.href=l;e.target='Main';}"
+        +     "e.textContent=searchData.names[i].toUpperCase();r.appendChild(e);"
+        +     "var t=' '+searchType(i).toLowerCase();"
+        +     "if(o&&o[1]&&searchData.types.charAt(i)<'a'){t+=' of '+o[1].toLowerCase()+' '+o[2].toUpperCase();}"
+        +     "r.appendChild(document.createTextNode(t));r.appendChild(document.createElement('br'));"
+        +   "}"
+        + "}</script>";
+
     private Connection     dbconnection = null;
     private TreeMap        objectTree   = null;
     private String         title        = null;
@@ -40,6 +83,12 @@ public class DocFilesetWriter {
     private String         copyright    = null;
     private String         encoding     = null;
 
+    /** Number of rows on a page of a list or an index, no pagination if 0 */
+    private int            pageSize     = 0;
+
+    /** The objects sorted by name, built on the first use */
+    private NameIndex      nameIndex    = null;
+
     public DocFilesetWriter(Connection  dbconnection, TreeMap objectTree) throws IOException {
         this.dbconnection = dbconnection;
         this.objectTree   = objectTree;
@@ -47,73 +96,156 @@ public class DocFilesetWriter {
         this.destdir      = OraDoclet.getConfiguration().destdirname;
         this.copyright    = OraDoclet.getConfiguration().copyrightLabel;
         this.encoding     = OraDoclet.getConfiguration().encoding;
+        this.pageSize     = OraDoclet.getConfiguration().pageSize;
     }
 
     /**
      * Generates a documentation fileset
      */
     public void generate()  {
-        String     pageTitle    = null;
-        String     objectType   = null;
-        String     objectPlural = null;
-        HtmlWriter writer       = null;
-
-        String[][] supportedTypes = OraDictionary.getSupportedObjectTypes();
-
         try {
             writeCSS(destdir);
-            // Generate the index.html
-            writer = new HtmlWriter(OraDoclet.getConfiguration(), this.destdir, "index.html", this.encoding);
-            generateIndexFile(writer, this.title);
-            writer.close();
-            writer = null;
+            Iterator<String> it = getPageNames().iterator();
+            while(it.hasNext()) {
+                generatePage(it.next());
+            }
+            it = null;
+        } catch(Exception ex) {
+            ex.printStackTrace();
+        }
+    }
 
-            // Generate the overview.html
-            writer = new HtmlWriter(OraDoclet.getConfiguration(), this.destdir, "overview.html", this.encoding);
-            generateOverviewFile(writer, this.title, this.copyright);
+    /**
+     * Generates the page of the fileset having the given name
+     * into the page sink of the configuration.
+     *
+     * @param pageName One of the names returned by getPageNames()
+     * @throws IOException
+     */
+    public void generatePage(String pageName) throws IOException {
+        HtmlWriter writer = new HtmlWriter(OraDoclet.getConfiguration(), this.destdir, pageName, this.encoding);
+        try {
+            generatePage(writer, pageName, true);
+        } finally {
             writer.close();
-            writer = null;
+        }
+    }
+
+    /**
+     * Returns the names of all the pages of the fileset,
+     * except the pages describing the individual objects.
+     *
+     * @return list of page names in the order they are generated
+     */
+    public List<String> getPageNames() {
+        List<String> pageNames    = new Vector<String>();
+        String[][] supportedTypes = OraDictionary.getSupportedObjectTypes();
+
+        pageNames.add("index.html");
+        pageNames.add("overview.html");
+        pageNames.add("nav.html");
+        //Type index files, one per object type
+        if(null != supportedTypes) {
+            for(int i=0; i< supportedTypes.length; i++) {
+                pageNames.add(supportedTypes[i][1].toLowerCase() + "-index.html");
+            }
+        }
+        //Type list files, one per object type
+        if(null != supportedTypes) {
+            for(int i=0; i< supportedTypes.length; i++) {
+                pageNames.add(supportedTypes[i][1].toLowerCase() + "-list.html");
+            }
+        }
+        //An overall name index file
+        pageNames.add("name-index.html");
+        //The pages of the sharded name index
+        if(OraDoclet.getConfiguration().nameIndexBucket >= 0) {
+            List<NameIndex.Shard> shards = getNameIndex().getShards();
+            for(int i=0; i<shards.size(); i++) {
+                pageNames.add(shards.get(i).pageName);
+            }
+        }
+        //The index the search box of the navigation file queries
+        pageNames.add(SEARCH_INDEX);
+        return pageNames;
+    }
+
+    /**
+     * Generates the page of the fileset having the given name.
+     *
+     * @param writer The writer the page is generated into
+     * @param pageName One of the names returned by getPageNames() or a further page of a paginated list
+     * @return true if the page has been generated, false if there is no such page
+     */
+    public boolean generatePage(HtmlWriter writer, String pageName) {
+        return generatePage(writer, pageName, false);
+    }
+
+    /**
+     * Generates the page of the fileset having the given name.
+     *
+     * @param writer The writer the page is generated into
+     * @param pageName One of the names returned by getPageNames() or a further page of a paginated list
+     * @param allPages Whether the further pages of a paginated list are generated too, into the page sink of the configuration
+     * @return true if the page has been generated, false if there is no such page
+     */
+    protected boolean generatePage(HtmlWriter writer, String pageName, boolean allPages) {
+        String[][] supportedTypes = OraDictionary.getSupportedObjectTypes();
 
-            // Generate the nav.html
-            writer = new HtmlWriter(OraDoclet.getConfiguration(), this.destdir, "nav.html", this.encoding);
+        if(pageName.equals("index.html")) {
+            generateIndexFile(writer, this.title);
+            return true;
+        }
+        if(pageName.equals("overview.html")) {
+            generateOverviewFile(writer, this.title, this.copyright);
+            return true;
+        }
+        if(pageName.equals("nav.html")) {
             generateNavigationFile(writer, this.title);
-            writer.close();
-            writer = null;
-
-            //Generate type index files, one per object type
-            if(null != supportedTypes) {
-                for(int i=0; i< supportedTypes.length; i++) {
-                    objectType   = supportedTypes[i][0];
-                    objectPlural = supportedTypes[i][1];
-                    pageTitle = objectPlural.toUpperCase().substring(0,1) + objectPlural.toLowerCase().substring(1);
-                    writer = new HtmlWriter(OraDoclet.getConfiguration(), this.destdir, objectPlural.toLowerCase() + "-index.html", this.encoding);
+            return true;
+        }
+        if(pageName.equals("name-index.html")) {
+            generateNameIndexFile(writer, this.objectTree, this.title);
+            return true;
+        }
+        if(pageName.equals(SEARCH_INDEX)) {
+            generateSearchIndex(writer);
+            return true;
+        }
+        if(pageName.startsWith("name-index-") && OraDoclet.getConfiguration().nameIndexBucket >= 0) {
+            NameIndex.Shard shard = getNameIndex().getShard(pageName);
+            if(null != shard) {
+                generateNameIndexShard(writer, shard, this.title);
+                return true;
+            }
+        }
+        if(null != supportedTypes) {
+            for(int i=0; i< supportedTypes.length; i++) {
+                String objectType   = supportedTypes[i][0];
+                String objectPlural = supportedTypes[i][1];
+                String pageTitle    = objectPlural.toUpperCase().substring(0,1) + objectPlural.toLowerCase().substring(1);
+                String indexName    = objectPlural.toLowerCase() + "-index.html";
+                String listName     = objectPlural.toLowerCase() + "-list.html";
+                if(pageName.equals(indexName)) {
+                    if(pageSize > 0) {
+                        return generateObjectIndexPages(writer, this.objectTree, objectType, pageTitle, indexName, allPages ? 0 : 1);
+                    }
                     generateObjectIndex(writer, this.objectTree, objectType, pageTitle);
-                    writer.close();
-                    writer = null;
+                    return true;
                 }
-            }
-
-            //Generate type list files, one per object type
-            if(null != supportedTypes) {
-                for(int i=0; i< supportedTypes.length; i++) {
-                    objectType   = supportedTypes[i][0];
-                    objectPlural = supportedTypes[i][1];
-                    pageTitle = objectPlural.toUpperCase().substring(0,1) + objectPlural.toLowerCase().substring(1);
-                    writer = new HtmlWriter(OraDoclet.getConfiguration(), this.destdir, objectPlural.toLowerCase() + "-list.html", this.encoding);
-                    generateObjectList(writer, this.objectTree, objectType, pageTitle, this.title, this.dbconnection);
-                    writer.close();
-                    writer = null;
+                if(pageName.equals(listName)) {
+                    generateObjectList(writer, this.objectTree, objectType, pageTitle, this.title, this.dbconnection, allPages ? 0 : 1);
+                    return true;
+                }
+                if(pageSize > 0 && getPageNumber(pageName, indexName) > 1) {
+                    return generateObjectIndexPages(writer, this.objectTree, objectType, pageTitle, indexName, getPageNumber(pageName, indexName));
+                }
+                if(pageSize > 0 && getPageNumber(pageName, listName) > 1) {
+                    return generateObjectList(writer, this.objectTree, objectType, pageTitle, this.title, this.dbconnection, getPageNumber(pageName, listName));
                 }
             }
-
-            //Generate an overall name index file
-            writer = new HtmlWriter(OraDoclet.getConfiguration(), this.destdir, "name-index.html", this.encoding);
-            generateNameIndexFile(writer, this.objectTree, this.title);
-            writer.close();
-            writer = null;
-        } catch(Exception ex) {
-            ex.printStackTrace();
         }
+        return false;
     }
 
 
@@ -170,6 +302,10 @@ public class DocFilesetWriter {
         writer.link("rel='stylesheet' type='text/css' href='style.css'");
         writer.headEnd();
         writer.body(true);
+        writer.println("<form id='search' onsubmit='return false'><input type='search' placeholder='Search' autocomplete='off'"
+            + " oninput='search(this.value)'></form><div id='search-results'></div>");
+        writer.println(SEARCH_SCRIPT);
+        writer.println("<script src='" + SEARCH_INDEX + "'></script>");
         writer.anchorTarget("tables-index.html","List","<b>Tables</b>");
         writer.br();
         writer.anchorTarget("views-index.html","List","<b>Views</b>");
@@ -214,7 +350,7 @@ public class DocFilesetWriter {
         while(it.hasNext()) {
             dbobject = (DatabaseObject) it.next();
             if(dbobject.getObjectType().equalsIgnoreCase(objectType)) {
-                writer.anchorTarget(dbobject.getLink() ,"Main"," " + dbobject.getObjectName().toUpperCase() + " ");
+                writer.anchorTarget(dbobject.getLink() ,"Main"," " + HtmlWriter.escape(dbobject.getObjectName().toUpperCase()) + " ");
                 writer.br();
             }
         }
@@ -224,6 +360,125 @@ public class DocFilesetWriter {
         writer.htmlEnd();
     }
 
+    /**
+     * Generates the index of the objects of the given type split into pages.
+     *
+     * @param writer The writer of the first page, or of the page requested
+     * @param indexName The name of the first page, e.g. tables-index.html
+     * @param onlyPage The number of the page generated into the writer, 0 for all the pages:
+     * the first page into the writer, the further pages into the page sink of the configuration
+     * @return false if there is no such page
+     */
+    protected boolean generateObjectIndexPages(HtmlWriter writer, TreeMap<?, ?> objectTree, String objectType, String title,
+        String indexName, int onlyPage) {
+        Vector<DatabaseObject> objects = new Vector<DatabaseObject>();
+        Iterator<?> it = objectTree.values().iterator();
+        while(it.hasNext()) {
+            DatabaseObject dbobject = (DatabaseObject) it.next();
+            if(dbobject.getObjectType().equalsIgnoreCase(objectType)) {
+                objects.add(dbobject);
+            }
+        }
+        int pages = Math.max(1, (objects.size() + pageSize - 1) / pageSize);
+        if(onlyPage > pages) {
+            return false;
+        }
+
+        for(int page = Math.max(1, onlyPage); page <= pages && (0 == onlyPage || page == onlyPage); page++) {
+            HtmlWriter pageWriter = writer;
+            try {
+                if(page > 1 && 0 == onlyPage) {
+                    pageWriter = new HtmlWriter(OraDoclet.getConfiguration(), this.destdir, getPageName(indexName, page), this.encoding);
+                }
+                pageWriter.html();
+                pageWriter.head();
+                pageWriter.title(title);
+                pageWriter.link("rel='stylesheet' type='text/css' href='style.css'");
+                pageWriter.headEnd();
+                pageWriter.body(true);
+                pageWriter.println("<h1>" + title + "</h1>");
+                generatePageNavigation(pageWriter, indexName, page, pages);
+                pageWriter.hr();
+
+                for(int i = (page - 1) * pageSize; i < objects.size() && i < page * pageSize; i++) {
+                    DatabaseObject dbobject = objects.elementAt(i);
+                    pageWriter.anchorTarget(dbobject.getLink() ,"Main"," " + HtmlWriter.escape(dbobject.getObjectName().toUpperCase()) + " ");
+                    pageWriter.br();
+                }
+                pageWriter.br();
+                generatePageNavigation(pageWriter, indexName, page, pages);
+                pageWriter.bodyEnd();
+                pageWriter.htmlEnd();
+            } catch(IOException iox) {
+                OraDoclet.writeLog(iox.getMessage(), OraDoclet.ERROR, "generateObjectIndexPages()", iox);
+            } finally {
+                if(pageWriter != writer) {
+                    pageWriter.close();
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the name of a page of a paginated list or index. The first page
+     * keeps the name of the list, e.g. tables-list.html, tables-list-2.html, ...
+     *
+     * @param pageName The name of the first page
+     * @param page The number of the page, starting with 1
+     */
+    public static String getPageName(String pageName, int page) {
+        if(page <= 1) {
+            return pageName;
+        }
+        return pageName.substring(0, pageName.lastIndexOf('.')) + "-" + page + pageName.substring(pageName.lastIndexOf('.'));
+    }
+
+    /**
+     * Returns the number of the page of a paginated list or index having the given name
+     *
+     * @param pageName The name of the page, e.g. tables-list-2.html
+     * @param firstPageName The name of the first page, e.g. tables-list.html
+     * @return the page number, 1 for the first page, 0 if the page does not belong to the list
+     */
+    public static int getPageNumber(String pageName, String firstPageName) {
+        if(pageName.equals(firstPageName)) {
+            return 1;
+        }
+        String prefix = firstPageName.substring(0, firstPageName.lastIndexOf('.')) + "-";
+        String suffix = firstPageName.substring(firstPageName.lastIndexOf('.'));
+        if(!pageName.startsWith(prefix) || !pageName.endsWith(suffix) || pageName.length() <= prefix.length() + suffix.length()) {
+            return 0;
+        }
+        String number = pageName.substring(prefix.length(), pageName.length() - suffix.length());
+        for(int i=0; i<number.length(); i++) {
+            if(!Character.isDigit(number.charAt(i))) {
+                return 0;
+            }
+        }
+        return (number.length() > 9 || number.charAt(0) == '0') ? 0 : Integer.parseInt(number);
+    }
+
+    /**
+     * Generates the links to the previous and to the next page of a paginated list
+     */
+    private void generatePageNavigation(HtmlWriter writer, String pageName, int page, int pages) {
+        if(pages <= 1) {
+            return;
+        }
+        writer.print("<div class='pages'>");
+        if(page > 1) {
+            writer.anchor(getPageName(pageName, page - 1), "&laquo; Previous");
+            writer.space();
+        }
+        writer.print("Page " + page + " of " + pages);
+        if(page < pages) {
+            writer.space();
+            writer.anchor(getPageName(pageName, page + 1), "Next &raquo;");
+        }
+        writer.println("</div>");
+    }
+
     /**
      * Generates the standard top bar for a page
      *
@@ -231,21 +486,11 @@ public class DocFilesetWriter {
      * @param title
      */
     public void generateTopBar(HtmlWriter writer, String title) {
-        writer.write("<div id='topbar'>");
-        writer.anchor("overview.html", "Overview");
-        writer.anchor("tables-list.html","Tables");
-        writer.anchor("views-list.html","Views");
-        writer.anchor("indexes-list.html","Indexes");
-        writer.anchor("constraints-list.html","Constraints");
-        writer.anchor("triggers-list.html","Triggers");
-        writer.anchor("procedures-list.html","Procedures");
-        writer.anchor("functions-list.html","Functions");
-        writer.anchor("packages-list.html","Packages");
-        writer.anchor("sequences-list.html","Sequences");
-        writer.anchor("name-index.html","Index");
-        writer.println("<h3>" + title + "</h3>");
-        writer.write("</div>");
-        writer.hr();
+        try {
+            PageSkeleton.getSkeleton(writer, title, writer.configuration.copyrightLabel).writeTopBar(writer);
+        } catch(UnsupportedEncodingException ex) {
+            ex.printStackTrace();
+        }
     }
 
     /**
@@ -255,9 +500,11 @@ public class DocFilesetWriter {
      * @param title
      */
     public void generateBottomBar(HtmlWriter writer, String copyright) {
-        writer.hr(1, "noshade");
-        writer.println("<small>"+OraDoclet.PROJ_GEN_STR+", "
-        + " Copyright &copy; " + copyright + "</small>");
+        try {
+            PageSkeleton.getSkeleton(writer, writer.configuration.applicationTitle, copyright).writeBottomBar(writer);
+        } catch(UnsupportedEncodingException ex) {
+            ex.printStackTrace();
+        }
     }
 
     /**
@@ -267,8 +514,23 @@ public class DocFilesetWriter {
      * links to the detailed description.
      */
     public void generateObjectList(HtmlWriter writer, TreeMap objectTree, String objectType, String pageTitle, String appTitle, Connection conn) {
-        DatabaseObject dbobject  = null;
-        String query = null;
+        generateObjectList(writer, objectTree, objectType, pageTitle, appTitle, conn, 0);
+    }
+
+    /**
+     * Generates the list file of the given object type, split into pages
+     * when the page size is set.
+     *
+     * @param onlyPage The number of the page generated into the writer, 0 for all the pages:
+     * the first page into the writer, the further pages into the page sink of the configuration
+     * @return false if there is no such page
+     */
+    protected boolean generateObjectList(HtmlWriter writer, TreeMap<?, ?> objectTree, String objectType, String pageTitle, String appTitle, Connection conn, int onlyPage) {
+        String query = getObjectListQuery(objectType);
+
+        if(pageSize > 0 && null!=query && query.length() > 0) {
+            return generateObjectListPages(writer, objectTree, objectType, pageTitle, appTitle, conn, query, onlyPage);
+        }
 
         writer.html();
         writer.head();
@@ -279,6 +541,25 @@ public class DocFilesetWriter {
         generateTopBar(writer, appTitle);
         writer.println("<h3>" + pageTitle + "</h3>");
 
+        if(null!=query && query.length() > 0) {
+            generateObjectListFile(writer, objectTree, objectType, conn, query);
+        }
+
+        writer.br();
+        generateBottomBar(writer, writer.configuration.copyrightLabel);
+        writer.bodyEnd();
+        writer.htmlEnd();
+        return true;
+    }
+
+    /**
+     * Returns the query listing the objects of the given type with their essential attributes
+     *
+     * @return query or null if the objects of the type are not listed
+     */
+    protected String getObjectListQuery(String objectType) {
+        String query = null;
+
         if(objectType.equalsIgnoreCase("TABLE")) {
             query = "SELECT utc.table_name AS \"Table\", utc.comments AS \"Description\" "
                   + "  FROM all_tab_comments utc "
@@ -305,7 +586,7 @@ public class DocFilesetWriter {
                   //, search_condition, r_owner, r_constraint_name , delete_rule
                   + "  FROM all_constraints "
                   + " WHERE r_owner IS NULL OR r_owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
-                  + " ORDER BY constraint_name";
+                  + " ORDER BY constraint_name, table_name, owner";
         }
         if(objectType.equalsIgnoreCase("TRIGGER")) {
             query = "SELECT trigger_name AS \"Trigger\", trigger_type AS \"Type\", table_name AS \"Table\"  "
@@ -342,15 +623,7 @@ public class DocFilesetWriter {
                   + " WHERE sequence_owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
                   + " ORDER BY sequence_name";
         }
-
-        if(null!=query && query.length() > 0) {
-            generateObjectListFile(writer, objectTree, objectType, conn, query);
-        }
-
-        writer.br();
-        generateBottomBar(writer, writer.configuration.copyrightLabel);
-        writer.bodyEnd();
-        writer.htmlEnd();
+        return query;
     }
 
 
@@ -368,105 +641,297 @@ public class DocFilesetWriter {
     public void generateObjectListFile(HtmlWriter writer, TreeMap objectTree, String objectType, Connection connection, String query) {
         System.out.println(query);
 
-        final String   nbsp ="&nbsp;";
         int colCount = 0;
-        DatabaseObject dbobject = null;
         Statement      stmt = null;
         ResultSet      rset = null;
+
+        // The connection is shared by the pages rendered in parallel
+        synchronized(connection) {
+            try {
+                stmt = connection.createStatement();
+                rset = stmt.executeQuery(query);
+                if(null!=rset) {
+                    writer.table(1, "100%");
+                    // Table header
+                    writer.trClass("header");
+                    //Get the table header from the meta-information
+                    colCount = rset.getMetaData().getColumnCount();
+                    for(int i=1; i<=colCount; i++) {
+                        writer.println("<th>" + rset.getMetaData().getColumnName(i) + "</th>");
+                    }
+                    writer.trEnd();
+                    // Table body
+                    while(null!=rset && rset.next()) {
+                        generateObjectListRow(writer, objectTree, rset, colCount);
+                    }
+                    writer.tableEnd();
+                }
+                rset.close();
+                rset = null;
+                stmt.close();
+                stmt = null;
+            } catch(SQLException sqlx) {
+                sqlx.printStackTrace();
+            } catch(Exception ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Generates a row of an object list
+     *
+     * @param rset The query result positioned on the row
+     * @param colCount The number of columns of the query
+     */
+    private void generateObjectListRow(HtmlWriter writer, TreeMap<?, ?> objectTree, ResultSet rset, int colCount) throws SQLException {
+        final String   nbsp ="&nbsp;";
+        DatabaseObject dbobject = null;
         String         objectName = null;
         String         objectLink = null;
         String         objectAncor= null;
         String         key        = null;
         String         value      = null;
 
-        try {
-            stmt = connection.createStatement();
-            rset = stmt.executeQuery(query);
-            if(null!=rset) {
-                writer.table(1, "100%");
-                // Table header
-                writer.trClass("header");
-                //Get the table header from the meta-information
-                colCount = rset.getMetaData().getColumnCount();
-                for(int i=1; i<=colCount; i++) {
-                    writer.println("<th>" + rset.getMetaData().getColumnName(i) + "</th>");
+        // Be sure the first column in the query is always an object name
+        // and the column name corresponds to the object type
+        objectName = rset.getString(1);
+        writer.tr();
+        for(int i=1; i<=colCount; i++) {
+            writer.td();
+            value = (null==rset.getString(i) ? nbsp : rset.getString(i));
+            // Obtain a link for linkable objects
+            key = DatabaseObject.genKey(rset.getMetaData().getColumnName(i), value);
+            dbobject = (DatabaseObject) objectTree.get(key);
+            if(null!=dbobject) {
+                objectLink = dbobject.getLink();
+                // The link is unnecessary if it points to the page itself, embed an ancor instead:
+                if(objectLink.toLowerCase().startsWith(writer.htmlFilename)) {
+                    objectAncor = "<a name=\"" + objectLink.substring(objectLink.indexOf('#') + 1) + "\"></a>";
+                    objectLink  = null;
                 }
-                writer.trEnd();
-                // Table body
-                while(null!=rset && rset.next()) {
-                    // Be sure the first column in the query is always an object name
-                    // and the column name corresponds to the object type
-                    objectName = rset.getString(1);
-                    writer.tr();
-                    for(int i=1; i<=colCount; i++) {
-                        writer.td();
-                        value = (null==rset.getString(i) ? nbsp : rset.getString(i));
-                        // Obtain a link for linkable objects
-                        key = DatabaseObject.genKey(rset.getMetaData().getColumnName(i), value);
-                        dbobject = (DatabaseObject) objectTree.get(key);
-                        if(null!=dbobject) {
-                            objectLink = dbobject.getLink();
-                            // The link is unnecessary if it points to the page itself, embed an ancor instead:
-                            if(objectLink.toLowerCase().startsWith(writer.htmlFilename)) {
-                                objectAncor = "<a name=\"" + objectLink.substring(objectLink.indexOf('#') + 1) + "\"></a>";
-                                objectLink  = null;
+            } else {
+                objectLink = null;
+            }
+            dbobject = null;
+            if(null!=objectLink) {
+                writer.anchorTarget(objectLink, "Main"," " + HtmlWriter.escape(value.toUpperCase()) + " ");
+            } else if(null==rset.getString(i)) {
+                writer.println(value);
+            } else {
+                writer.printEscaped(value);
+                writer.println();
+            }
+            if(null!=objectAncor) {
+                writer.println(objectAncor);
+            }
+            writer.tdEnd();
+        }
+        writer.trEnd();
+    }
+
+    /**
+     * Generates the list of the objects of the given type split into pages
+     * of the page size. The pages follow the order of the query, which is total,
+     * so a row stays on its page as long as the rows before it do not change.
+     * When all the pages are generated, a JSON index of the pages is written too,
+     * e.g. tables-list.json, giving the first and the last name on each page.
+     *
+     * @param writer The writer of the first page, or of the page requested
+     * @param onlyPage The number of the page generated into the writer, 0 for all the pages
+     * @return false if there is no such page
+     */
+    protected boolean generateObjectListPages(HtmlWriter writer, TreeMap<?, ?> objectTree, String objectType, String pageTitle,
+        String appTitle, Connection connection, String query, int onlyPage) {
+        String        listName = getListName(objectType);
+        StringBuilder json     = new StringBuilder();
+        Statement     stmt     = null;
+        ResultSet     rset     = null;
+        int           rows     = 0;
+        int           pages    = 1;
+
+        // The connection is shared by the pages rendered in parallel
+        synchronized(connection) {
+            try {
+                stmt = connection.createStatement();
+                rset = stmt.executeQuery("SELECT COUNT(*) FROM (" + query + ")");
+                if(rset.next()) {
+                    rows = rset.getInt(1);
+                }
+                rset.close();
+                pages = Math.max(1, (rows + pageSize - 1) / pageSize);
+                if(onlyPage > pages) {
+                    stmt.close();
+                    return false;
+                }
+
+                rset = stmt.executeQuery(query);
+                int colCount = rset.getMetaData().getColumnCount();
+                for(int page = 1; page <= pages && (0 == onlyPage || page <= onlyPage); page++) {
+                    HtmlWriter pageWriter = null;
+                    if(page == Math.max(1, onlyPage)) {
+                        pageWriter = writer;
+                    } else if(0 == onlyPage) {
+                        pageWriter = new HtmlWriter(OraDoclet.getConfiguration(), this.destdir, getPageName(listName, page), this.encoding);
+                    }
+                    try {
+                        if(null != pageWriter) {
+                            pageWriter.html();
+                            pageWriter.head();
+                            pageWriter.title(title);
+                            pageWriter.link("rel='stylesheet' type='text/css' href='style.css'");
+                            pageWriter.headEnd();
+                            pageWriter.body(true);
+                            generateTopBar(pageWriter, appTitle);
+                            pageWriter.println("<h3>" + pageTitle + "</h3>");
+                            generatePageNavigation(pageWriter, listName, page, pages);
+
+                            pageWriter.table(1, "100%");
+                            pageWriter.trClass("header");
+                            for(int i=1; i<=colCount; i++) {
+                                pageWriter.println("<th>" + rset.getMetaData().getColumnName(i) + "</th>");
                             }
-                        } else {
-                            objectLink = null;
+                            pageWriter.trEnd();
                         }
-                        dbobject = null;
-                        if(null!=objectLink) {
-                            writer.anchorTarget(objectLink, "Main"," " + value.toUpperCase() + " ");
-                        } else{
-                            writer.println(value);
+
+                        String first = null;
+                        String last  = null;
+                        for(int row = 0; row < pageSize && rset.next(); row++) {
+                            if(null != pageWriter) {
+                                generateObjectListRow(pageWriter, objectTree, rset, colCount);
+                            }
+                            last  = rset.getString(1);
+                            first = (null == first) ? last : first;
                         }
-                        if(null!=objectAncor) {
-                            writer.println(objectAncor);
+                        json.append((page > 1) ? ",\n" : "\n").append("{\"page\":").append(jsonString(getPageName(listName, page)))
+                            .append(",\"first\":").append(jsonString(first)).append(",\"last\":").append(jsonString(last)).append("}");
+
+                        if(null != pageWriter) {
+                            pageWriter.tableEnd();
+                            generatePageNavigation(pageWriter, listName, page, pages);
+                            pageWriter.br();
+                            generateBottomBar(pageWriter, pageWriter.configuration.copyrightLabel);
+                            pageWriter.bodyEnd();
+                            pageWriter.htmlEnd();
+                        }
+                    } finally {
+                        if(null != pageWriter && pageWriter != writer) {
+                            pageWriter.close();
                         }
-                        writer.tdEnd();
                     }
-                    writer.trEnd();
                 }
-                writer.tableEnd();
+                rset.close();
+                rset = null;
+                stmt.close();
+                stmt = null;
+            } catch(SQLException sqlx) {
+                sqlx.printStackTrace();
+            } catch(Exception ex) {
+                ex.printStackTrace();
             }
-            rset.close();
-            rset = null;
-            stmt.close();
-            stmt = null;
-        } catch(SQLException sqlx) {
-            sqlx.printStackTrace();
-        } catch(Exception ex) {
-            ex.printStackTrace();
         }
+
+        if(0 == onlyPage) {
+            String index = "{\"type\":" + jsonString(objectType) + ",\"pageSize\":" + pageSize + ",\"count\":" + rows
+                + ",\"pages\":[" + json + "\n]}\n";
+            try {
+                OraDoclet.getConfiguration().pageSink.writePage(this.destdir, getPageName(listName, 1).replace(".html", ".json"),
+                    ByteBuffer.wrap(index.getBytes("UTF-8")));
+            } catch(IOException iox) {
+                OraDoclet.writeLog(iox.getMessage(), OraDoclet.ERROR, "generateObjectListPages()", iox);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the name of the list page of the given object type, e.g. tables-list.html
+     */
+    private static String getListName(String objectType) {
+        String[][] supportedTypes = OraDictionary.getSupportedObjectTypes();
+        for(int i=0; i<supportedTypes.length; i++) {
+            if(supportedTypes[i][0].equalsIgnoreCase(objectType)) {
+                return supportedTypes[i][1].toLowerCase() + "-list.html";
+            }
+        }
+        return objectType.toLowerCase() + "-list.html";
+    }
+
+    /**
+     * Returns the string as a JSON string literal, null as null
+     */
+    protected static String jsonString(String s) {
+        if(null == s) {
+            return "null";
+        }
+        StringBuilder str = new StringBuilder(s.length() + 2);
+        str.append('"');
+        for(int i=0; i<s.length(); i++) {
+            char c = s.charAt(i);
+            if(c == '"' || c == '\\') {
+                str.append('\\').append(c);
+            } else if(c < 0x20 || c == 0x2028 || c == 0x2029) {
+                str.append(String.format("\\u%04x", (int) c));
+            } else {
+                str.append(c);
+            }
+        }
+        return str.append('"').toString();
+    }
+
+    /**
+     * Returns the objects of the schema sorted by name, split into the shards
+     * of the name index when it is sharded. Built on the first use.
+     */
+    protected synchronized NameIndex getNameIndex() {
+        if(null == nameIndex) {
+            Configuration config = OraDoclet.getConfiguration();
+            nameIndex = new NameIndex(objectTree, Math.max(0, config.nameIndexBucket), config.threads);
+        }
+        return nameIndex;
     }
 
     /**
      * Generates the name index file for all the object names of the given schema.
+     * When the name index is sharded the file lists the shards only.
      *
      * @param writer
      * @param objectTree
      */
     public void generateNameIndexFile(HtmlWriter writer, TreeMap objectTree, String appTitle) {
-        final String   nbsp ="&nbsp;";
-        int colCount = 0;
-        String         objectName = null;
-        String         objectLink = null;
-        String         name       = null;
-        String         letter     = null;
-
-        class alphaComparator implements Comparator {
-            public int compare(Object a, Object b) {
-                if(a instanceof DatabaseObject && b instanceof DatabaseObject) {
-                    return(((DatabaseObject)a).getObjectName().compareToIgnoreCase(((DatabaseObject)b).getObjectName()));
-                } else {
-                    throw (new ClassCastException());
-                }
-            }
-        };
+        NameIndex index = getNameIndex();
 
-        // Sort the tree alphabetically by the name regardless of the case
-        Vector         objectTreeSortedByName = new Vector(objectTree.values());
-        Collections.sort(objectTreeSortedByName, new alphaComparator());
+        writer.html();
+        writer.head();
+        writer.title(title);
+        writer.link("rel='stylesheet' type='text/css' href='style.css'");
+        writer.headEnd();
+        writer.body(true);
+        generateTopBar(writer, appTitle);
+
+        if(OraDoclet.getConfiguration().nameIndexBucket >= 0) {
+            generateNameIndexShards(writer, index);
+        } else {
+            // Alphabetical navigation bar
+            generateNameIndexLetters(writer, index, false);
+            generateNameIndexEntries(writer, index, 0, index.size());
+        }
+
+        writer.br();
+        generateBottomBar(writer, writer.configuration.copyrightLabel);
+        writer.bodyEnd();
+        writer.htmlEnd();
+    }
+
+    /**
+     * Generates a page of the sharded name index
+     *
+     * @param writer
+     * @param shard The names on the page
+     * @param appTitle
+     */
+    public void generateNameIndexShard(HtmlWriter writer, NameIndex.Shard shard, String appTitle) {
+        NameIndex index = getNameIndex();
 
         writer.html();
         writer.head();
@@ -476,27 +941,89 @@ public class DocFilesetWriter {
         writer.body(true);
         generateTopBar(writer, appTitle);
 
-        // Alphabetical navigation bar
+        generateNameIndexLetters(writer, index, true);
+        generateNameIndexEntries(writer, index, shard.from, shard.to);
+
+        writer.br();
+        generateBottomBar(writer, writer.configuration.copyrightLabel);
+        writer.bodyEnd();
+        writer.htmlEnd();
+    }
+
+    /**
+     * Generates the list of the name index shards, their leading characters,
+     * first and last names
+     */
+    private void generateNameIndexShards(HtmlWriter writer, NameIndex index) {
+        List<NameIndex.Shard> shards = index.getShards();
+
+        writer.table();
+        for(int i=0; i<shards.size(); i++) {
+            NameIndex.Shard shard = shards.get(i);
+            writer.tr();
+            writer.td();
+            writer.anchor(shard.pageName, "<b>" + HtmlWriter.escape(shard.letter) + "</b>");
+            writer.tdEnd();
+            writer.td();
+            writer.println(HtmlWriter.escape(index.get(shard.from).getObjectName().toUpperCase())
+                + " - " + HtmlWriter.escape(index.get(shard.to - 1).getObjectName().toUpperCase()));
+            writer.tdEnd();
+            writer.td();
+            writer.println(String.valueOf(shard.to - shard.from));
+            writer.tdEnd();
+            writer.trEnd();
+        }
+        writer.tableEnd();
+    }
+
+    /**
+     * Generates the alphabetical navigation bar
+     *
+     * @param sharded Whether the letters link to the first shard of the letter or to the letter on this page
+     */
+    private void generateNameIndexLetters(HtmlWriter writer, NameIndex index, boolean sharded) {
+        String letter = "";
+
         writer.table();
         writer.tr();
-        letter = "";
         writer.tdBgcolorStyle("");
-        for(int i=0;i<objectTreeSortedByName.size();i++) {
-            name = ((DatabaseObject)objectTreeSortedByName.elementAt(i)).getObjectName();
-            if(null!=name && null!=letter && !name.substring(0,1).equalsIgnoreCase(letter)) {
-                letter = name.substring(0,1).toUpperCase();
-                writer.anchor("#" + letter , letter);
-                writer.space();
+        if(sharded) {
+            List<NameIndex.Shard> shards = index.getShards();
+            for(int i=0; i<shards.size(); i++) {
+                NameIndex.Shard shard = shards.get(i);
+                if(!shard.letter.equals(letter)) {
+                    letter = shard.letter;
+                    writer.anchor(shard.pageName, HtmlWriter.escape(letter));
+                    writer.space();
+                }
+            }
+        } else {
+            for(int i=0; i<index.size(); i++) {
+                String name = index.get(i).getObjectName();
+                if(null!=name && !name.substring(0,1).equalsIgnoreCase(letter)) {
+                    letter = name.substring(0,1).toUpperCase();
+                    writer.anchor("#" + letter , letter);
+                    writer.space();
+                }
             }
         }
         writer.tdEnd();
         writer.trEnd();
         writer.tableEnd();
         writer.hr();
+    }
 
-        letter = "";
-        for(int i=0;i<objectTreeSortedByName.size();i++) {
-            DatabaseObject dbobject = (DatabaseObject)objectTreeSortedByName.elementAt(i);
+    /**
+     * Generates the entries from..to-1 of the name index
+     */
+    private void generateNameIndexEntries(HtmlWriter writer, NameIndex index, int from, int to) {
+        final String   nbsp ="&nbsp;";
+        String         objectLink = null;
+        String         name       = null;
+        String         letter     = "";
+
+        for(int i=from; i<to; i++) {
+            DatabaseObject dbobject = index.get(i);
             name = dbobject.getObjectName();
             if(null!=name && null!=letter && !name.substring(0,1).equalsIgnoreCase(letter)) {
                 letter = name.substring(0,1).toUpperCase();
@@ -507,34 +1034,140 @@ public class DocFilesetWriter {
             String description = nbsp + dbobject.getObjectType().toLowerCase();
             if(null!=dbobject.getParent()) {
                 description += " of " + dbobject.getParent().getObjectType().toLowerCase()
-                    + " " + dbobject.getParent().getObjectName().toUpperCase();
+                    + " " + HtmlWriter.escape(dbobject.getParent().getObjectName().toUpperCase());
             }
 
             // Obtain a link for linkable objects
             objectLink = dbobject.getLink();
             if(null!=objectLink) {
-                writer.anchorTarget(objectLink, "Main"," " + name.toUpperCase());
+                writer.anchorTarget(objectLink, "Main"," " + HtmlWriter.escape(name.toUpperCase()));
                 writer.println(description);
             } else{
-                writer.println(name.toUpperCase() + description);
+                writer.println(HtmlWriter.escape(name.toUpperCase()) + description);
             }
             writer.br();
         }
+    }
 
-        writer.br();
-        generateBottomBar(writer, writer.configuration.copyrightLabel);
-        writer.bodyEnd();
-        writer.htmlEnd();
+    /**
+     * Generates the index of the names queried by the search box of the navigation file.
+     * The index is a script passing the names to the search box, sorted as in the
+     * name index, in parallel arrays:
+     * <ul>
+     * <li>names - the object names</li>
+     * <li>types - a character per name: the object type by its position in typeNames,
+     * a lower case letter for the objects having a page, an upper case one for
+     * the objects listed on the page of their parent</li>
+     * <li>page - the page of each name by its position in pages, -1 if it has none.
+     * A page is given by its link, the type and the name of the object it describes.</li>
+     * <li>fragments - the anchors on the page differing from the usual one of a child
+     * object, e.g. col-order_id, by position</li>
+     * </ul>
+     *
+     * @param writer
+     */
+    public void generateSearchIndex(HtmlWriter writer) {
+        NameIndex             index     = getNameIndex();
+        List<String>          typeNames = new ArrayList<String>();
+        Map<String, Integer>  owners    = new LinkedHashMap<String, Integer>();
+        int[]                 ownerOf   = new int[index.size()];
+        StringBuilder types     = new StringBuilder(index.size());
+        StringBuilder fragments = new StringBuilder();
+
+        writer.print("searchIndex({\"names\":[");
+        for(int i=0; i<index.size(); i++) {
+            DatabaseObject dbobject = index.get(i);
+            String name = dbobject.getObjectName();
+            writer.print((i > 0) ? ",\n" : "\n");
+            writer.print(jsonString(name));
+
+            int type = typeNames.indexOf(dbobject.getObjectType());
+            if(type < 0) {
+                type = typeNames.size();
+                typeNames.add(dbobject.getObjectType());
+            }
+
+            String link     = dbobject.getLink();
+            String fragment = null;
+            if(null == link) {
+                ownerOf[i] = -1;
+            } else {
+                int hash = link.indexOf('#');
+                String page = (hash < 0) ? link : link.substring(0, hash);
+                fragment    = (hash < 0) ? null : link.substring(hash + 1);
+                Integer owner = owners.get(page);
+                if(null == owner) {
+                    owner = Integer.valueOf(owners.size());
+                    owners.put(page, owner);
+                }
+                ownerOf[i] = owner.intValue();
+            }
+            boolean child = null != fragment && null != dbobject.getParent();
+            types.append((char) ((child ? 'A' : 'a') + type));
+            String childFragment = dbobject.getObjectType().toLowerCase().substring(0, Math.min(3, dbobject.getObjectType().length()))
+                + "-" + name.toLowerCase().replace('\\', '_').replace('/', '_').replace(':', '_').replace(' ', '_');
+            if(null != fragment && !(child && fragment.equals(childFragment))) {
+                fragments.append((fragments.length() > 0) ? ",\n" : "\n")
+                    .append(jsonString(String.valueOf(i))).append(':').append(jsonString(fragment));
+            }
+        }
+        writer.print("],\n\"types\":" + jsonString(types.toString()));
+
+        writer.print(",\n\"typeNames\":[");
+        for(int i=0; i<typeNames.size(); i++) {
+            writer.print(((i > 0) ? "," : "") + jsonString(typeNames.get(i)));
+        }
+
+        // The owners are described by the objects having the pages
+        String[][] ownerObjects = new String[owners.size()][];
+        for(int i=0; i<index.size(); i++) {
+            if(ownerOf[i] >= 0 && null == ownerObjects[ownerOf[i]]) {
+                DatabaseObject dbobject = index.get(i);
+                DatabaseObject owner = (null != dbobject.getParent()) ? dbobject.getParent()
+                    : (dbobject.getLink().indexOf('#') < 0 ? dbobject : null);
+                if(null != owner) {
+                    ownerObjects[ownerOf[i]] = new String[] {owner.getObjectType(), owner.getObjectName()};
+                }
+            }
+        }
+        writer.print("],\n\"pages\":[");
+        Iterator<String> it = owners.keySet().iterator();
+        for(int i=0; it.hasNext(); i++) {
+            String[] owner = ownerObjects[i];
+            writer.print(((i > 0) ? ",\n[" : "\n[") + jsonString(it.next())
+                + "," + jsonString(null == owner ? null : owner[0])
+                + "," + jsonString(null == owner ? null : owner[1]) + "]");
+        }
+
+        writer.print("],\n\"page\":[");
+        for(int i=0; i<ownerOf.length; i++) {
+            if(i > 0) {
+                writer.print((0 == i % 32) ? ",\n" : ",");
+            }
+            writer.print(String.valueOf(ownerOf[i]));
+        }
+        writer.print("],\n\"fragments\":{" + fragments + "}});\n");
     }
 
-    private void writeCSS(String destdir) throws IOException {
-        FileOutputStream fos = new FileOutputStream(new File(destdir+"/style.css"));
-        InputStream is = getClass().getResourceAsStream("/net/oradoclet/style.css");
+    /**
+     * Returns the contents of the style sheet shipped with the doclet
+     *
+     * @return style sheet bytes
+     * @throws IOException
+     */
+    public static byte[] getStyleSheet() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        InputStream is = DocFilesetWriter.class.getResourceAsStream("/net/oradoclet/style.css");
+        byte[] buf = new byte[4096];
         int r;
-        while ((r = is.read()) != -1) {
-            fos.write(r);
+        while ((r = is.read(buf)) != -1) {
+            bos.write(buf, 0, r);
         }
         is.close();
-        fos.close();
+        return bos.toByteArray();
+    }
+
+    protected void writeCSS(String destdir) throws IOException {
+        OraDoclet.getConfiguration().pageSink.writePage(destdir, "style.css", ByteBuffer.wrap(getStyleSheet()));
     }
 }
@@ -0,0 +1,374 @@
+/*
+ * DocServer.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the documentation over HTTP instead of writing the fileset to disk.
+ * The pages have the same URLs as the generated files (e.g. SCHEMA/table-x.html,
+ * SCHEMA/tables-list.html) and are rendered on request from the object trees
+ * read at startup. Rendered pages are kept in a cache limited by size and
+ * are validated by the browser using ETag / If-None-Match.
+ */
+public class DocServer implements HttpHandler {
+    /**
+     * Held while a page of a schema is rendered: the writers take the schema
+     * and the title from the global settings, which are set for each page
+     */
+    private static final Object renderLock = new Object();
+
+    private Connection    dbconnection  = null;
+    private Configuration configuration = null;
+    private String        encoding      = null;
+
+    /** Object trees, one per schema */
+    private Map<String, TreeMap<?, ?>> objectTrees = null;
+
+    /** Objects having a page of their own, by schema and page name */
+    private Map<String, Map<String, DatabaseObject>> objectPages = null;
+
+    private PageCache     cache         = null;
+    private HttpServer    server        = null;
+
+    /**
+     * @param dbconnection connection used by the pages querying the dictionary while rendered
+     * @param config generation configuration
+     * @param objectTrees object trees (TreeMap) by schema name
+     */
+    public DocServer(Connection dbconnection, Configuration config, Map<String, TreeMap<?, ?>> objectTrees) {
+        this.dbconnection  = dbconnection;
+        this.configuration = config;
+        this.objectTrees   = objectTrees;
+        this.encoding      = (null == config.encoding) ? "UTF-8" : config.encoding;
+        this.cache         = new PageCache(config.serverCacheSize * 1024L * 1024L);
+        this.objectPages   = new HashMap<String, Map<String, DatabaseObject>>();
+
+        Iterator<String> it = objectTrees.keySet().iterator();
+        while(it.hasNext()) {
+            String schema = it.next();
+            Map<String, DatabaseObject> pages = new TreeMap<String, DatabaseObject>();
+            Iterator<?> objects = objectTrees.get(schema).values().iterator();
+            while(objects.hasNext()) {
+                DatabaseObject dbobject = (DatabaseObject) objects.next();
+                String link = dbobject.getLink();
+                if(null != link && link.indexOf('#') < 0) {
+                    pages.put(link, dbobject);
+                }
+            }
+            objectPages.put(schema, pages);
+        }
+    }
+
+    /**
+     * Starts listening on the port given by the configuration.
+     * Requests are handled one after another by the server thread,
+     * the pages of the schemas are rendered under renderLock in any case.
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(configuration.serverPort), 0);
+        server.createContext("/", this);
+        server.setExecutor(null);
+        server.start();
+        OraDoclet.writeLog("Serving the documentation on http://localhost:" + configuration.serverPort + "/",
+            OraDoclet.INFO, "start()", null);
+    }
+
+    public void stop() {
+        if(null != server) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if(!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            String     path = exchange.getRequestURI().getPath();
+            CachedPage page = getPage(path);
+            if(null == page) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("Content-Type", page.contentType);
+            headers.set("ETag", page.etag);
+            headers.set("Cache-Control", "no-cache");
+
+            if(matchesETag(exchange.getRequestHeaders().getFirst("If-None-Match"), page.etag)) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            if(method.equals("HEAD")) {
+                headers.set("Content-Length", String.valueOf(page.body.length));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, page.body.length);
+            OutputStream os = exchange.getResponseBody();
+            os.write(page.body);
+            os.close();
+        } catch(Exception ex) {
+            OraDoclet.writeLog("Failed to serve " + exchange.getRequestURI() + ": " + ex.getMessage(),
+                OraDoclet.ERROR, "handle()", ex);
+            try {
+                exchange.sendResponseHeaders(500, -1);
+            } catch(IOException iox) {
+                // The response has been started already, nothing to do
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Returns the page for the given request path, rendering it when it is not cached.
+     *
+     * @param path request path, e.g. /SCHEMA/table-orders.html
+     * @return page or null if there is no such page
+     */
+    protected CachedPage getPage(String path) throws IOException {
+        CachedPage page = cache.get(path);
+        if(null != page) {
+            return page;
+        }
+
+        String name = path.startsWith("/") ? path.substring(1) : path;
+        if(name.length() == 0) {
+            name = "index.html";
+        }
+        byte[] body = null;
+        String contentType = "text/html; charset=" + encoding;
+
+        int slash = name.indexOf('/');
+        if(name.endsWith("style.css")) {
+            body = DocFilesetWriter.getStyleSheet();
+            contentType = "text/css";
+        } else if(slash < 0) {
+            if(name.equals("index.html")) {
+                MemoryPageSink sink = new MemoryPageSink();
+                HtmlWriter writer = new HtmlWriter(configuration, sink, null, name, encoding);
+                OraDoclet.generateRootIndex(writer);
+                writer.close();
+                body = sink.getPage(name);
+            }
+        } else {
+            String schema = name.substring(0, slash);
+            String pageName = name.substring(slash + 1);
+            if(pageName.length() == 0) {
+                pageName = "index.html";
+            }
+            if(objectTrees.containsKey(schema)) {
+                body = renderSchemaPage(schema, pageName);
+            }
+        }
+        if(null == body) {
+            return null;
+        }
+        if(name.endsWith(".js")) {
+            contentType = "application/javascript; charset=" + encoding;
+        }
+
+        page = new CachedPage(body, contentType);
+        cache.put(path, page);
+        return page;
+    }
+
+    /**
+     * Renders a page of the given schema
+     *
+     * @return the page contents or null if there is no such page
+     */
+    protected byte[] renderSchemaPage(String schema, String pageName) throws IOException {
+        // The writers take the schema and the title from the global settings,
+        // no other page may be rendered until this one is done
+        synchronized(renderLock) {
+            OraDoclet.CURRENT_SCHEMA = schema;
+            configuration.applicationTitle = schema;
+            return renderPage(schema, pageName);
+        }
+    }
+
+    /**
+     * Renders a page of the current schema
+     *
+     * @return the page contents or null if there is no such page
+     */
+    private byte[] renderPage(String schema, String pageName) throws IOException {
+        TreeMap<?, ?>  objectTree = objectTrees.get(schema);
+        MemoryPageSink sink       = new MemoryPageSink();
+
+        DatabaseObject dbobject = objectPages.get(schema).get(pageName);
+        String objectPage = pageName;
+        if(null == dbobject) {
+            // The chunks of the source are written along with the page of the object
+            objectPage = getSourceOwnerPage(pageName);
+            dbobject = (null == objectPage) ? null : objectPages.get(schema).get(objectPage);
+        }
+        if(null != dbobject) {
+            ObjectWriter writer = ObjectWriter.getObjectWriter(dbconnection, objectTree, dbobject, sink);
+            if(null != writer) {
+                writer.generate();
+                writer.close();
+                return sink.getPage(pageName.substring(pageName.lastIndexOf('/') + 1));
+            }
+        } else {
+            DocFilesetWriter docFilesetWriter = new DocFilesetWriter(dbconnection, objectTree);
+            HtmlWriter writer = new HtmlWriter(configuration, sink, null, pageName, encoding);
+            boolean found = docFilesetWriter.generatePage(writer, pageName);
+            writer.close();
+            if(found) {
+                return sink.getPage(pageName);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the name of the object page the given page is a chunk of the source of
+     *
+     * @param pageName e.g. package-orders-src-2.html
+     * @return e.g. package-orders.html, or null if the page holds no source chunk
+     */
+    private static String getSourceOwnerPage(String pageName) {
+        int i = pageName.lastIndexOf("-src-");
+        if(i < 0 || !pageName.endsWith(".html")) {
+            return null;
+        }
+        String chunk = pageName.substring(i + "-src-".length(), pageName.length() - ".html".length());
+        if(0 == chunk.length()) {
+            return null;
+        }
+        for(int j=0; j<chunk.length(); j++) {
+            if(!Character.isDigit(chunk.charAt(j))) {
+                return null;
+            }
+        }
+        return pageName.substring(0, i) + ".html";
+    }
+
+    /**
+     * Checks the If-None-Match request header against the entity tag
+     */
+    private static boolean matchesETag(String ifNoneMatch, String etag) {
+        if(null == ifNoneMatch) {
+            return false;
+        }
+        String[] tags = ifNoneMatch.split(",");
+        for(int i=0; i<tags.length; i++) {
+            String tag = tags[i].trim();
+            if(tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if(tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A rendered page together with its entity tag
+     */
+    protected static class CachedPage {
+        final byte[] body;
+        final String etag;
+        final String contentType;
+
+        CachedPage(byte[] body, String contentType) {
+            this.body        = body;
+            this.contentType = contentType;
+            this.etag        = "\"" + digest(body) + "\"";
+        }
+
+        private static String digest(byte[] body) {
+            try {
+                return HashingPageSink.toHex(MessageDigest.getInstance("MD5").digest(body));
+            } catch(NoSuchAlgorithmException ex) {
+                return Integer.toHexString(Arrays.hashCode(body));
+            }
+        }
+    }
+
+    /**
+     * Least recently used pages are evicted once the cached bytes exceed the limit
+     */
+    protected static class PageCache extends LinkedHashMap<String, CachedPage> {
+        private static final long serialVersionUID = 1L;
+
+        private final long maxBytes;
+        private long       bytes = 0;
+
+        PageCache(long maxBytes) {
+            super(256, 0.75f, true);
+            this.maxBytes = maxBytes;
+        }
+
+        public synchronized CachedPage get(Object key) {
+            return super.get(key);
+        }
+
+        public synchronized CachedPage put(String key, CachedPage page) {
+            CachedPage old = super.put(key, page);
+            if(null != old) {
+                bytes -= old.body.length;
+            }
+            bytes += page.body.length;
+
+            Iterator<CachedPage> it = values().iterator();
+            while(bytes > maxBytes && it.hasNext()) {
+                CachedPage eldest = it.next();
+                if(eldest == page) {
+                    // Never evict the page just rendered
+                    continue;
+                }
+                bytes -= eldest.body.length;
+                it.remove();
+            }
+            return old;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * ErDiagram.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.util.Arrays;
+
+/**
+ * Draws the tables around a table, as linked by the foreign keys, as an SVG diagram.
+ *
+ * The tables are collected breadth first up to the given distance and placed
+ * in columns: the tables a table references to its left, the tables referencing
+ * it to its right, each column filled top down in the order the tables are
+ * found. The layout takes time proportional to the tables drawn and their
+ * foreign keys, at most MAX_TABLES tables are drawn whatever the size of the schema.
+ */
+public class ErDiagram {
+    /** The most tables drawn, the others are left out */
+    public static final int MAX_TABLES = 40;
+
+    private static final int BOX_HEIGHT = 24;
+    private static final int ROW_GAP    = 12;
+    private static final int COLUMN_GAP = 48;
+    private static final int CHAR_WIDTH = 7;
+    private static final int MARGIN     = 8;
+
+    /** The size of the table of the positions, a power of two well above MAX_TABLES */
+    private static final int SLOTS = 128;
+
+    private final ForeignKeyIndex index;
+
+    /** The tables drawn, their distance from the table in the middle, their column and row */
+    private final int[] tables   = new int[MAX_TABLES];
+    private final int[] distance = new int[MAX_TABLES];
+    private final int[] column   = new int[MAX_TABLES];
+    private final int[] row      = new int[MAX_TABLES];
+    private int count = 0;
+    private boolean truncated = false;
+
+    /** The positions of the tables drawn by table number, open addressing, -1 for an empty slot */
+    private final int[] slotTable    = new int[SLOTS];
+    private final int[] slotPosition = new int[SLOTS];
+
+    /**
+     * Collects the tables around the given one
+     *
+     * @param index The foreign keys of the schema
+     * @param table The number of the table in the middle
+     * @param depth The largest distance of a table drawn from the one in the middle
+     */
+    public ErDiagram(ForeignKeyIndex index, int table, int depth) {
+        this.index = index;
+        Arrays.fill(slotTable, -1);
+        add(table, 0, 0);
+        for(int head=0; head<count && !truncated; head++) {
+            int current = tables[head];
+            if(distance[head] >= depth) {
+                continue;
+            }
+            for(int i=index.getRefersStart(current); i<index.getRefersEnd(current) && !truncated; i++) {
+                add(index.getRefers(i), distance[head] + 1, column[head] - 1);
+            }
+            for(int i=index.getReferencedStart(current); i<index.getReferencedEnd(current) && !truncated; i++) {
+                add(index.getReferenced(i), distance[head] + 1, column[head] + 1);
+            }
+        }
+    }
+
+    /**
+     * Adds a table unless it is there already
+     */
+    private void add(int table, int tableDistance, int tableColumn) {
+        if(getPosition(table) >= 0) {
+            return;
+        }
+        if(count == MAX_TABLES) {
+            truncated = true;
+            return;
+        }
+        int slot = table & (slotTable.length - 1);
+        while(slotTable[slot] >= 0) {
+            slot = (slot + 1) & (slotTable.length - 1);
+        }
+        slotTable[slot]    = table;
+        slotPosition[slot] = count;
+        tables[count]   = table;
+        distance[count] = tableDistance;
+        column[count]   = tableColumn;
+        count++;
+    }
+
+    /**
+     * Returns the position of the table among the tables drawn, -1 if it is not drawn
+     */
+    private int getPosition(int table) {
+        int slot = table & (slotTable.length - 1);
+        while(slotTable[slot] >= 0) {
+            if(slotTable[slot] == table) {
+                return slotPosition[slot];
+            }
+            slot = (slot + 1) & (slotTable.length - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Tells whether the table has no foreign key to or from another table
+     */
+    public boolean isEmpty() {
+        return count < 2;
+    }
+
+    /**
+     * Returns the diagram as an SVG element, the boxes of the tables linked to their pages
+     *
+     * @param rootPath The path from the page to the schema directory
+     */
+    public String getSvg(String rootPath) {
+        // The columns span from the leftmost one, columns are numbered from 0 there
+        int minColumn = 0;
+        int maxColumn = 0;
+        for(int i=0; i<count; i++) {
+            minColumn = Math.min(minColumn, column[i]);
+            maxColumn = Math.max(maxColumn, column[i]);
+        }
+        int   columns      = maxColumn - minColumn + 1;
+        int[] columnRows   = new int[columns];
+        int[] columnWidth  = new int[columns];
+        int[] width        = new int[count];
+        for(int i=0; i<count; i++) {
+            int c = column[i] - minColumn;
+            row[i]   = columnRows[c]++;
+            width[i] = getWidth(index.getObject(tables[i]).getObjectName());
+            columnWidth[c] = Math.max(columnWidth[c], width[i]);
+        }
+        int maxRows = 0;
+        int[] columnX = new int[columns];
+        int x = MARGIN;
+        for(int c=0; c<columns; c++) {
+            maxRows = Math.max(maxRows, columnRows[c]);
+            columnX[c] = x;
+            x += columnWidth[c] + COLUMN_GAP;
+        }
+        int svgWidth  = x - COLUMN_GAP + MARGIN;
+        int svgHeight = maxRows * (BOX_HEIGHT + ROW_GAP) - ROW_GAP + 2 * MARGIN + (truncated ? BOX_HEIGHT : 0);
+
+        // The boxes, each column centered vertically
+        int[] boxX = new int[count];
+        int[] boxY = new int[count];
+        for(int i=0; i<count; i++) {
+            int c = column[i] - minColumn;
+            boxX[i] = columnX[c] + (columnWidth[c] - width[i]) / 2;
+            boxY[i] = MARGIN + (maxRows - columnRows[c]) * (BOX_HEIGHT + ROW_GAP) / 2 + row[i] * (BOX_HEIGHT + ROW_GAP);
+        }
+
+        StringBuilder sb = new StringBuilder(512 + count * 256);
+        sb.append("<svg class='er' xmlns='http://www.w3.org/2000/svg' width='").append(svgWidth)
+          .append("' height='").append(svgHeight).append("' viewBox='0 0 ").append(svgWidth).append(' ').append(svgHeight).append("'>");
+        sb.append("<defs><marker id='er-arrow' viewBox='0 0 8 8' refX='8' refY='4' markerWidth='8' markerHeight='8' orient='auto'>")
+          .append("<path d='M0,0 L8,4 L0,8 z'/></marker></defs>");
+
+        // A line per foreign key between the tables drawn, each key is a key of the table referencing
+        for(int i=0; i<count; i++) {
+            for(int k=index.getRefersStart(tables[i]); k<index.getRefersEnd(tables[i]); k++) {
+                int j = getPosition(index.getRefers(k));
+                if(j < 0) {
+                    continue;
+                }
+                int y1 = boxY[i] + BOX_HEIGHT / 2;
+                int y2 = boxY[j] + BOX_HEIGHT / 2;
+                if(column[i] == column[j]) {
+                    // Tables of the same column are linked by a curve on their right
+                    int x1 = boxX[i] + width[i];
+                    int x2 = boxX[j] + width[j];
+                    int bend = Math.max(x1, x2) + COLUMN_GAP / 2;
+                    sb.append("<path d='M").append(x1).append(',').append(y1)
+                      .append(" C").append(bend).append(',').append(y1).append(' ')
+                      .append(bend).append(',').append(y2).append(' ').append(x2).append(',').append(y2)
+                      .append("' marker-end='url(#er-arrow)'/>");
+                } else {
+                    boolean leftToRight = column[i] < column[j];
+                    int x1 = leftToRight ? boxX[i] + width[i] : boxX[i];
+                    int x2 = leftToRight ? boxX[j] : boxX[j] + width[j];
+                    sb.append("<path d='M").append(x1).append(',').append(y1)
+                      .append(" L").append(x2).append(',').append(y2)
+                      .append("' marker-end='url(#er-arrow)'/>");
+                }
+            }
+        }
+
+        for(int i=0; i<count; i++) {
+            DatabaseObject table = index.getObject(tables[i]);
+            boolean linked = (i > 0 && null != table.getLink());
+            if(linked) {
+                sb.append("<a href='").append(HtmlWriter.escape(rootPath + table.getLink())).append("'>");
+            }
+            sb.append("<rect").append((0 == i) ? " class='center'" : "")
+              .append(" x='").append(boxX[i]).append("' y='").append(boxY[i])
+              .append("' width='").append(width[i]).append("' height='").append(BOX_HEIGHT).append("'/>");
+            sb.append("<text x='").append(boxX[i] + width[i] / 2).append("' y='").append(boxY[i] + BOX_HEIGHT / 2 + 4)
+              .append("'>").append(HtmlWriter.escape(table.getObjectName())).append("</text>");
+            if(linked) {
+                sb.append("</a>");
+            }
+        }
+        if(truncated) {
+            sb.append("<text class='more' x='").append(MARGIN).append("' y='").append(svgHeight - MARGIN)
+              .append("'>Only the ").append(MAX_TABLES).append(" nearest tables are shown</text>");
+        }
+        sb.append("</svg>");
+        return sb.toString();
+    }
+
+    private static int getWidth(String name) {
+        return Math.max(60, name.length() * CHAR_WIDTH + 16);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * FilePageSink.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes each page into its own file, the whole page at once.
+ * The page is written into a temporary file first, which replaces
+ * the page file when complete: a reader never sees a partial page.
+ */
+public class FilePageSink implements PageSink {
+
+    public void writePage(String dirname, String filename, ByteBuffer page) throws IOException {
+        File file = null;
+
+        //if the directory does not exist, it will be created
+        if(null != dirname && dirname.length() > 0) {
+            File dir = new File(dirname);
+            if(!dir.isDirectory()) {
+                Files.createDirectories(dir.toPath());
+            }
+            file = new File(dir, filename);
+        } else {
+            // write to the current directory
+            file = new File(filename);
+        }
+
+        File temp = new File(file.getPath() + ".tmp");
+        FileOutputStream fos = new FileOutputStream(temp);
+        try {
+            FileChannel channel = fos.getChannel();
+            while(page.hasRemaining()) {
+                channel.write(page);
+            }
+        } catch(IOException iox) {
+            fos.close();
+            temp.delete();
+            throw iox;
+        } finally {
+            fos.close();
+        }
+
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(AtomicMoveNotSupportedException ex) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public void close() throws IOException {
+        // Do nothing, each file is closed when written
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * ForeignKeyIndex.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Vector;
+
+/**
+ * The foreign keys between the tables of a schema.
+ *
+ * The tables are numbered in the order of the object tree. The tables a table
+ * references are refersTarget[refersStart[n] .. refersStart[n + 1] - 1], the
+ * tables referencing it likewise in referencedStart and referencedTarget.
+ *
+ * The index is built once per object tree out of the foreign key constraints
+ * read, before the pages of the tables are written, and is only read afterwards.
+ */
+public class ForeignKeyIndex {
+    /** The indexes of the object trees alive */
+    private static final TreeRegistry<ForeignKeyIndex> indexes = new TreeRegistry<ForeignKeyIndex>();
+
+    /** The tables by number */
+    private final DatabaseObject[] tables;
+
+    /** The numbers of the tables by object ID */
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+    private final int[] refersStart;
+    private final int[] refersTarget;
+    private final int[] referencedStart;
+    private final int[] referencedTarget;
+
+    /**
+     * Registers the index of the given object tree
+     */
+    public static void setIndex(TreeMap<?, ?> objectTree, ForeignKeyIndex index) {
+        indexes.put(objectTree, index);
+    }
+
+    /**
+     * Returns the index of the given object tree
+     *
+     * @return index or null if it was not built
+     */
+    public static ForeignKeyIndex getIndex(TreeMap<?, ?> objectTree) {
+        return indexes.get(objectTree);
+    }
+
+    /**
+     * Builds the index out of the foreign key constraints of the object tree:
+     * their parent is the table referencing, their "Referenced table" attribute
+     * the table referenced
+     *
+     * @param objectTree The objects of the schema, the constraints read
+     */
+    public ForeignKeyIndex(TreeMap<?, ?> objectTree) {
+        List<DatabaseObject> objects = new ArrayList<DatabaseObject>();
+        int[] edges = new int[256];
+        int   edgeCount = 0;
+
+        Iterator<?> it = objectTree.values().iterator();
+        while(it.hasNext()) {
+            DatabaseObject dbobject = (DatabaseObject) it.next();
+            if(dbobject.getObjectType().equalsIgnoreCase("TABLE")) {
+                ids.put(dbobject.getObjectID(), Integer.valueOf(objects.size()));
+                objects.add(dbobject);
+            }
+        }
+        tables = objects.toArray(new DatabaseObject[objects.size()]);
+
+        it = objectTree.values().iterator();
+        while(it.hasNext()) {
+            DatabaseObject dbobject = (DatabaseObject) it.next();
+            if(!dbobject.getObjectType().equalsIgnoreCase("CONSTRAINT") || null == dbobject.getParent()) {
+                continue;
+            }
+            int from = getTable(dbobject.getParent());
+            Vector<?> attrMatrix = dbobject.getAttributeMatrix();
+            for(int i=0; from >= 0 && i<attrMatrix.size(); i++) {
+                Vector<?> attrMatrixLine = (Vector<?>) attrMatrix.elementAt(i);
+                for(int j=0; null!=attrMatrixLine && j<attrMatrixLine.size(); j++) {
+                    DatabaseAttribute attr = (DatabaseAttribute) attrMatrixLine.elementAt(j);
+                    int to = attr.getName().equalsIgnoreCase("Referenced table") ? getTable(attr.getDbobject()) : -1;
+                    if(to >= 0 && to != from) {
+                        if(edges.length < (edgeCount + 1) * 2) {
+                            edges = Arrays.copyOf(edges, edges.length * 2);
+                        }
+                        edges[edgeCount * 2]     = from;
+                        edges[edgeCount * 2 + 1] = to;
+                        edgeCount++;
+                    }
+                }
+            }
+        }
+
+        refersStart      = new int[tables.length + 1];
+        referencedStart  = new int[tables.length + 1];
+        // Two foreign keys between the same tables make a single edge
+        refersTarget     = CompressedRows.fill(edges, edgeCount, refersStart, 0);
+        referencedTarget = CompressedRows.fill(edges, edgeCount, referencedStart, 1);
+    }
+
+    /**
+     * Returns the number of the table, -1 if the object is no table of the schema
+     */
+    public int getTable(DatabaseObject dbobject) {
+        Integer id = (null == dbobject) ? null : ids.get(dbobject.getObjectID());
+        return (null == id) ? -1 : id.intValue();
+    }
+
+    /**
+     * Returns the number of the tables
+     */
+    public int getTableCount() {
+        return tables.length;
+    }
+
+    /**
+     * Returns the table by its number
+     */
+    public DatabaseObject getObject(int table) {
+        return tables[table];
+    }
+
+    /** The first of the tables the given table references, in refersTarget */
+    public int getRefersStart(int table) {
+        return refersStart[table];
+    }
+
+    /** The end of the tables the given table references, in refersTarget */
+    public int getRefersEnd(int table) {
+        return refersStart[table + 1];
+    }
+
+    /** The table referenced at the given position */
+    public int getRefers(int i) {
+        return refersTarget[i];
+    }
+
+    /** The first of the tables referencing the given table, in referencedTarget */
+    public int getReferencedStart(int table) {
+        return referencedStart[table];
+    }
+
+    /** The end of the tables referencing the given table, in referencedTarget */
+    public int getReferencedEnd(int table) {
+        return referencedStart[table + 1];
+    }
+
+    /** The table referencing at the given position */
+    public int getReferenced(int i) {
+        return referencedTarget[i];
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * GzipPageSink.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the pages compressed with gzip (page.html.gz), instead of
+ * or along with the plain pages. The pages are compressed by a pool of
+ * worker threads, while the rendering goes on. The number of pages waiting
+ * for compression is limited, the rendering waits when the limit is reached.
+ *
+ * The compression ratio and time are reported per page type when the sink
+ * is closed.
+ */
+public class GzipPageSink implements PageSink {
+    /** Pages per worker which may wait for compression */
+    private static final int PAGES_PER_WORKER = 8;
+
+    private final PageSink        sink;
+    private final boolean         keepPlain;
+    private final ExecutorService workers;
+    private final Semaphore       slots;
+
+    /** Statistics by page type: pages, plain bytes, compressed bytes, compression nanoseconds */
+    private final Map<String, long[]> statistics = new TreeMap<String, long[]>();
+
+    /** The first failure of a worker, reported when the sink is closed */
+    private IOException failure = null;
+    private boolean     closed  = false;
+
+    /**
+     * @param sink The sink the pages are written into
+     * @param keepPlain Whether the plain pages are written too
+     * @param threads Number of compressing threads
+     */
+    public GzipPageSink(PageSink sink, boolean keepPlain, int threads) {
+        this.sink      = sink;
+        this.keepPlain = keepPlain;
+        this.workers   = Executors.newFixedThreadPool(Math.max(1, threads));
+        this.slots     = new Semaphore(Math.max(1, threads) * PAGES_PER_WORKER);
+    }
+
+    /**
+     * Queues a copy of the page for compression, waits while too many pages are queued
+     */
+    public void writePage(final String dirname, final String filename, ByteBuffer page) throws IOException {
+        final byte[] bytes = new byte[page.remaining()];
+        page.get(bytes);
+
+        try {
+            slots.acquire();
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while queueing " + filename);
+        }
+        workers.execute(new Runnable() {
+            public void run() {
+                try {
+                    compress(dirname, filename, bytes);
+                } catch(IOException iox) {
+                    OraDoclet.writeLog("Failed to write " + filename + ".gz: " + iox.getMessage(),
+                        OraDoclet.ERROR, "compress()", iox);
+                    synchronized(GzipPageSink.this) {
+                        if(null == failure) {
+                            failure = iox;
+                        }
+                    }
+                } finally {
+                    slots.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits until all the pages are compressed and written, closes the underlying sink
+     *
+     * @throws IOException The first error occured while writing the pages
+     */
+    public void close() throws IOException {
+        synchronized(this) {
+            if(closed) {
+                return;
+            }
+            closed = true;
+        }
+        workers.shutdown();
+        try {
+            while(!workers.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Keep waiting
+            }
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing the pages");
+        }
+        sink.close();
+        reportStatistics();
+
+        if(null != failure) {
+            throw failure;
+        }
+    }
+
+    protected void compress(String dirname, String filename, byte[] bytes) throws IOException {
+        if(keepPlain) {
+            sink.writePage(dirname, filename, ByteBuffer.wrap(bytes));
+        }
+
+        long start = System.nanoTime();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        GZIPOutputStream gzip = new GZIPOutputStream(compressed, 8192) {
+            {
+                // The pages are compressed once and served many times
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        };
+        gzip.write(bytes);
+        gzip.close();
+        long time = System.nanoTime() - start;
+
+        sink.writePage(dirname, filename + ".gz", ByteBuffer.wrap(compressed.toByteArray()));
+
+        synchronized(statistics) {
+            String type = getPageType(filename);
+            long[] values = statistics.get(type);
+            if(null == values) {
+                values = new long[4];
+                statistics.put(type, values);
+            }
+            values[0]++;
+            values[1] += bytes.length;
+            values[2] += compressed.size();
+            values[3] += time;
+        }
+    }
+
+    /**
+     * Returns the type of the page for the statistics, e.g. "package" for package-x.html
+     */
+    protected static String getPageType(String filename) {
+        int end = filename.indexOf('-');
+        if(end < 0) {
+            end = filename.indexOf('.');
+        }
+        return (end < 0) ? filename : filename.substring(0, end);
+    }
+
+    private void reportStatistics() {
+        synchronized(statistics) {
+            Iterator<Map.Entry<String, long[]>> it = statistics.entrySet().iterator();
+            while(it.hasNext()) {
+                Map.Entry<String, long[]> entry = it.next();
+                long[] values = entry.getValue();
+                OraDoclet.writeLog("gzip " + entry.getKey() + ": " + values[0] + " pages, "
+                    + values[1] / 1024 + " KB -> " + values[2] / 1024 + " KB ("
+                    + (values[1] > 0 ? values[2] * 100 / values[1] : 0) + "%), "
+                    + values[3] / 1000000 + " ms, " + (values[3] / 1000 / values[0]) + " us per page",
+                    OraDoclet.INFO, "close()", null);
+            }
+        }
+    }
+}
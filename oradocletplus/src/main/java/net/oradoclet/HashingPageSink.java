@@ -0,0 +1,172 @@
+/*
+ * HashingPageSink.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes only the pages which changed since the previous run. Each page is
+ * hashed and compared with the hash recorded in the manifest of the previous
+ * run, an unchanged page is not written again and its file keeps its
+ * modification time. The manifest lists the hash of each page by its path
+ * relative to the output directory, sorted by path, in the format of sha256sum:
+ * <pre>
+ * 3a7bd3e2360a3d29eea436fcfb7e44c735d117c42d1c1835420b6b9942dd4f1b  SCHEMA/table-orders.html
+ * </pre>
+ */
+public class HashingPageSink implements PageSink {
+    private final PageSink sink;
+    private final String   rootdir;
+    private final File     manifest;
+
+    /** Hashes of the previous run by page path */
+    private final Map<String, String> previous = new HashMap<String, String>();
+
+    /** Hashes of this run by page path */
+    private final Map<String, String> current  = new TreeMap<String, String>();
+
+    private int written   = 0;
+    private int unchanged = 0;
+
+    /**
+     * @param sink The sink the changed pages are written into
+     * @param rootdir The output directory
+     * @param manifest The manifest of the previous run, replaced by the manifest of this run when closed
+     * @throws IOException
+     */
+    public HashingPageSink(PageSink sink, String rootdir, String manifest) throws IOException {
+        this.sink     = sink;
+        this.rootdir  = (null == rootdir) ? "" : rootdir;
+        this.manifest = new File(manifest);
+        readManifest();
+    }
+
+    public void writePage(String dirname, String filename, ByteBuffer page) throws IOException {
+        String path = ArchivePageSink.getRelativePath(rootdir, dirname, filename);
+        String hash = getHash(page);
+
+        boolean changed = !hash.equals(previous.get(path)) || !getFile(dirname, filename).isFile();
+        if(changed) {
+            sink.writePage(dirname, filename, page);
+        }
+        synchronized(this) {
+            current.put(path, hash);
+            if(changed) {
+                written++;
+            } else {
+                unchanged++;
+            }
+        }
+    }
+
+    /**
+     * Closes the underlying sink and writes the manifest
+     */
+    public void close() throws IOException {
+        sink.close();
+        writeManifest();
+        OraDoclet.writeLog(written + " pages written, " + unchanged + " pages unchanged",
+            OraDoclet.INFO, "close()", null);
+    }
+
+    private File getFile(String dirname, String filename) {
+        return (null != dirname && dirname.length() > 0) ? new File(dirname, filename) : new File(filename);
+    }
+
+    /**
+     * Returns the hexadecimal SHA-256 hash of the remaining bytes,
+     * the position of the buffer is left unchanged
+     */
+    protected static String getHash(ByteBuffer page) throws IOException {
+        MessageDigest digest = null;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch(NoSuchAlgorithmException ex) {
+            throw new IOException("SHA-256 is not available", ex);
+        }
+        digest.update(page.duplicate());
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Returns the bytes as lowercase hexadecimal digits, e.g. of a hash
+     */
+    protected static String toHex(byte[] bytes) {
+        StringBuilder str = new StringBuilder(2 * bytes.length);
+        for(int i=0; i<bytes.length; i++) {
+            str.append(Character.forDigit((bytes[i] >> 4) & 0xF, 16));
+            str.append(Character.forDigit(bytes[i] & 0xF, 16));
+        }
+        return str.toString();
+    }
+
+    private void readManifest() throws IOException {
+        if(!manifest.isFile()) {
+            return;
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifest), StandardCharsets.UTF_8));
+        try {
+            String line = null;
+            while(null != (line = reader.readLine())) {
+                int separator = line.indexOf("  ");
+                if(separator > 0) {
+                    previous.put(line.substring(separator + 2), line.substring(0, separator));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private synchronized void writeManifest() throws IOException {
+        File temp = new File(manifest.getPath() + ".tmp");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8);
+        try {
+            Iterator<Map.Entry<String, String>> it = current.entrySet().iterator();
+            while(it.hasNext()) {
+                Map.Entry<String, String> entry = it.next();
+                writer.write(entry.getValue() + "  " + entry.getKey() + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+        Files.move(temp.toPath(), manifest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * HistoryPageSink.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the history of the documentation: each run is written into a
+ * directory of its own named after the date, e.g. history/2026-10-19.
+ * A page having the same contents as in the previous version is not
+ * written again but hard-linked to the file of the previous version,
+ * so the history grows with the changes rather than with the schema.
+ *
+ * Each version directory has an index listing the hash of each page and
+ * the version the page contents come from, sorted by path:
+ * <pre>
+ * 3a7bd3e2360a3d29eea436fcfb7e44c735d117c42d1c1835420b6b9942dd4f1b 2026-10-17 SCHEMA/table-orders.html
+ * </pre>
+ */
+public class HistoryPageSink implements PageSink {
+    /** The name of the index file of a version */
+    public static final String INDEX = "history.idx";
+
+    private final PageSink sink;
+    private final File     versiondir;
+    private final String   version;
+
+    /** The previous version directory, null for the first run */
+    private File previousdir = null;
+
+    /** Hashes and versions of the previous version by page path */
+    private final Map<String, String[]> previous = new HashMap<String, String[]>();
+
+    /** Hashes and versions of this version by page path */
+    private final Map<String, String[]> current  = new TreeMap<String, String[]>();
+
+    private int written = 0;
+    private int linked  = 0;
+
+    /** Cleared when the file system does not support hard links */
+    private volatile boolean linking = true;
+
+    /**
+     * @param sink The sink the changed pages are written into
+     * @param historydir The directory holding the versions
+     * @param version The name of the version directory written by this run
+     * @throws IOException
+     */
+    public HistoryPageSink(PageSink sink, String historydir, String version) throws IOException {
+        this.sink       = sink;
+        this.version    = version;
+        this.versiondir = new File(historydir, version);
+        readPreviousVersion(new File(historydir));
+    }
+
+    /**
+     * Returns the name of the version directory for a run started now,
+     * the date or, if a version of the same date exists already, the date and the time
+     *
+     * @param historydir The directory holding the versions
+     * @return e.g. 2026-10-19 or 2026-10-19_174502
+     */
+    public static String getVersionName(String historydir) {
+        Date   now  = new Date();
+        String name = new SimpleDateFormat("yyyy-MM-dd").format(now);
+        if(new File(historydir, name).exists()) {
+            name = new SimpleDateFormat("yyyy-MM-dd_HHmmss").format(now);
+        }
+        return name;
+    }
+
+    /**
+     * @return The directory of the version written by this run
+     */
+    public String getVersionDirectory() {
+        return versiondir.getPath();
+    }
+
+    public void writePage(String dirname, String filename, ByteBuffer page) throws IOException {
+        String   path   = ArchivePageSink.getRelativePath(versiondir.getPath(), dirname, filename);
+        String   hash   = HashingPageSink.getHash(page);
+        String[] before = previous.get(path);
+        boolean  unchanged = null != before && hash.equals(before[0])
+            && link(new File(previousdir, path), getFile(dirname, filename));
+
+        if(!unchanged) {
+            sink.writePage(dirname, filename, page);
+        }
+        synchronized(this) {
+            current.put(path, new String[] {hash, unchanged ? before[1] : version});
+            if(unchanged) {
+                linked++;
+            } else {
+                written++;
+            }
+        }
+    }
+
+    /**
+     * Closes the underlying sink and writes the index of the version
+     */
+    public void close() throws IOException {
+        sink.close();
+        writeIndex();
+        OraDoclet.writeLog(written + " pages written, " + linked + " pages linked to earlier versions in " + versiondir,
+            OraDoclet.INFO, "close()", null);
+    }
+
+    /**
+     * Hard-links the page to the file of the previous version
+     *
+     * @return false if the page has to be written, e.g. when the file system does not support hard links
+     */
+    private boolean link(File existing, File file) throws IOException {
+        if(!linking || !existing.isFile()) {
+            return false;
+        }
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            Files.deleteIfExists(file.toPath());
+            Files.createLink(file.toPath(), existing.toPath());
+            return true;
+        } catch(IOException | UnsupportedOperationException ex) {
+            // Cross-device links are not possible either, write the pages from now on
+            linking = false;
+            OraDoclet.writeLog("Cannot link " + file + " to " + existing + ", the pages are written: " + ex,
+                OraDoclet.WARNING, "link()", null);
+            return false;
+        }
+    }
+
+    private File getFile(String dirname, String filename) {
+        return (null != dirname && dirname.length() > 0) ? new File(dirname, filename) : new File(filename);
+    }
+
+    /**
+     * Reads the index of the latest version written before
+     */
+    private void readPreviousVersion(File historydir) throws IOException {
+        String[] names = historydir.list();
+        if(null == names) {
+            return;
+        }
+        Arrays.sort(names);
+        for(int i=names.length-1; i>=0 && null == previousdir; i--) {
+            File index = new File(new File(historydir, names[i]), INDEX);
+            if(!names[i].equals(version) && index.isFile()) {
+                previousdir = index.getParentFile();
+            }
+        }
+        if(null == previousdir) {
+            return;
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new FileInputStream(new File(previousdir, INDEX)), StandardCharsets.UTF_8));
+        try {
+            String line = null;
+            while(null != (line = reader.readLine())) {
+                String[] fields = line.split(" ", 3);
+                if(3 == fields.length) {
+                    previous.put(fields[2], new String[] {fields[0], fields[1]});
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private synchronized void writeIndex() throws IOException {
+        Files.createDirectories(versiondir.toPath());
+        File index = new File(versiondir, INDEX);
+        File temp  = new File(versiondir, INDEX + ".tmp");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8);
+        try {
+            Iterator<Map.Entry<String, String[]>> it = current.entrySet().iterator();
+            while(it.hasNext()) {
+                Map.Entry<String, String[]> entry = it.next();
+                String[] fields = entry.getValue();
+                writer.write(fields[0] + " " + fields[1] + " " + entry.getKey() + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+        Files.move(temp.toPath(), index.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -35,11 +35,27 @@ import java.io.Writer;
  * Provides the base methods for generation of a HTML-document.
  * The target document is written into a file using the encoding
  * specified.
+ *
+ * The document is collected in a page buffer and handed over to
+ * the page sink in one piece when the writer is closed.
  */
 public class HtmlWriter extends PrintWriter {
     public static final String fileseparator = File.pathSeparator;
     
     protected final String htmlFilename;
+
+    private static final String lineSeparator = System.getProperty("line.separator");
+
+    /** The buffer collecting the page, null when the writer is closed */
+    private PageBuffer buffer;
+
+    /** The destination of the page */
+    private final PageSink sink;
+
+    private final String dirname;
+
+    /** Relative path from the page to the schema directory, the links between the pages start with it */
+    protected String rootPath = "";
     
     static protected final String NBSP           = "&nbsp;";    
 
@@ -94,9 +110,102 @@ public class HtmlWriter extends PrintWriter {
      */
     public HtmlWriter(Configuration config, String dirname, String filename, String encoding)
         throws IOException, UnsupportedEncodingException {
-        super(getWriter(config, dirname, filename, encoding), true);
+        this(config, config.pageSink, dirname, filename, encoding);
+    }
+
+    /**
+     * Writes the HTML-document into the given page sink
+     * instead of the one of the configuration.
+     *
+     * @param config Generation configuration
+     * @param sink The destination of the page
+     * @param dirname Destination directory name
+     * @param filename The name of the file generated
+     * @param encoding Encoding used when generating the file
+     * @throws UnsupportedEncodingException
+     */
+    public HtmlWriter(Configuration config, PageSink sink, String dirname, String filename, String encoding)
+        throws UnsupportedEncodingException {
+        this(config, sink, dirname, filename, PageBuffer.acquire(encoding));
+    }
+
+    private HtmlWriter(Configuration config, PageSink sink, String dirname, String filename, PageBuffer buffer) {
+        super(buffer, false);
+        this.buffer   = buffer;
+        this.sink     = sink;
+        this.dirname  = dirname;
         configuration = config;
-        htmlFilename = filename;
+        htmlFilename  = filename;
+    }
+
+    /*
+     * The output methods write into the page buffer directly,
+     * avoiding the locking and the flushing done by the PrintWriter.
+     */
+
+    public void write(int c) {
+        buffer.write(c);
+    }
+
+    public void write(char[] cbuf, int off, int len) {
+        buffer.write(cbuf, off, len);
+    }
+
+    public void write(String str, int off, int len) {
+        buffer.write(str, off, len);
+    }
+
+    public void write(String str) {
+        buffer.write(str, 0, str.length());
+    }
+
+    public void println() {
+        buffer.write(lineSeparator, 0, lineSeparator.length());
+    }
+
+    public void println(String x) {
+        print(x);
+        println();
+    }
+
+    public void flush() {
+        // Do nothing, the page is written when complete
+    }
+
+    /**
+     * Copies a pre-rendered fragment into the page
+     *
+     * @param fragment The markup encoded in the encoding of the page
+     */
+    public void writeFragment(byte[] fragment) {
+        buffer.writeBytes(fragment);
+    }
+
+    /**
+     * @return The name of the encoding of the page
+     */
+    public String getEncoding() {
+        return buffer.getCharset().name();
+    }
+
+    /**
+     * Completes the page and hands it over to the page sink
+     */
+    public void close() {
+        if(null == buffer) {
+            return;
+        }
+        PageBuffer page = buffer;
+        buffer = null;
+        try {
+            sink.writePage(dirname, htmlFilename, page.finish());
+        } catch(IOException iox) {
+            setError();
+            OraDoclet.writeLog("Failed to write " + htmlFilename + ": " + iox.getMessage(), OraDoclet.ERROR, "close()", iox);
+        } finally {
+            super.close();
+            PageBuffer.release(page);
+        }
     }
 
     /**
@@ -621,7 +730,108 @@ public class HtmlWriter extends PrintWriter {
     }
 
     public String getCodeText(String s) {
-        return "<code>" + s.replaceAll("<", "&lt;").replaceAll(">", "&gt;") + "</code>";
+        return "<code>" + escape(s) + "</code>";
+    }
+
+    /**
+     * Returns the entity replacing the character in HTML text
+     * and attribute values, or null if the character is output as is.
+     */
+    private static String getEntity(char c) {
+        switch(c) {
+            case '&':  return "&amp;";
+            case '<':  return "&lt;";
+            case '>':  return "&gt;";
+            case '"':  return "&quot;";
+            default:   return null;
+        }
+    }
+
+    /**
+     * Returns the index of the first character to be escaped
+     *
+     * @return index or <code>to</code> if there is no such character
+     */
+    private static int indexOfSpecial(String s, int from, int to) {
+        for(int i=from; i<to; i++) {
+            char c = s.charAt(i);
+            if(c == '&' || c == '<' || c == '>' || c == '"') {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Escapes the characters having special meaning in HTML (&amp; &lt; &gt; &quot;).
+     * The string is scanned once; when nothing is to be escaped,
+     * the string itself is returned without any allocation.
+     *
+     * @param s text or attribute value
+     * @return escaped text, null if s is null
+     */
+    public static String escape(String s) {
+        if(null == s) {
+            return null;
+        }
+        int i = indexOfSpecial(s, 0, s.length());
+        if(i == s.length()) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 16);
+        escape(sb, s, 0, s.length());
+        return sb.toString();
+    }
+
+    /**
+     * Appends the escaped part of the string
+     *
+     * @param sb the buffer appended to
+     * @param s text or attribute value
+     * @param from the first character appended
+     * @param to the character following the last one appended
+     */
+    public static void escape(StringBuilder sb, String s, int from, int to) {
+        int start = from;
+        int i     = indexOfSpecial(s, from, to);
+        while(i < to) {
+            sb.append(s, start, i);
+            sb.append(getEntity(s.charAt(i)));
+            start = i + 1;
+            i     = indexOfSpecial(s, start, to);
+        }
+        sb.append(s, start, to);
+    }
+
+    /**
+     * Prints the text escaped, without allocating intermediate strings
+     *
+     * @param s text or attribute value
+     */
+    public void printEscaped(String s) {
+        printEscaped(s, 0, (null == s) ? 0 : s.length());
+    }
+
+    /**
+     * Prints the part of the text escaped, without allocating intermediate strings
+     *
+     * @param s text or attribute value
+     * @param from the first character printed
+     * @param to the character following the last one printed
+     */
+    public void printEscaped(String s, int from, int to) {
+        if(null == s) {
+            return;
+        }
+        int start = from;
+        int i     = indexOfSpecial(s, from, to);
+        while(i < to) {
+            write(s, start, i - start);
+            write(getEntity(s.charAt(i)));
+            start = i + 1;
+            i     = indexOfSpecial(s, start, to);
+        }
+        write(s, start, to - start);
     }
 
     public String getFontColor(String s) {
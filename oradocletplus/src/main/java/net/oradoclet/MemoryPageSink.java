@@ -0,0 +1,65 @@
+/*
+ * MemoryPageSink.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the pages in memory, e.g. for the pages rendered on request.
+ */
+public class MemoryPageSink implements PageSink {
+    private final Map<String, byte[]> pages = new HashMap<String, byte[]>();
+
+    public synchronized void writePage(String dirname, String filename, ByteBuffer page) {
+        byte[] bytes = new byte[page.remaining()];
+        page.get(bytes);
+        pages.put(filename, bytes);
+    }
+
+    /**
+     * Returns the contents of the page with the given name
+     *
+     * @return page contents or null if no such page has been written
+     */
+    public synchronized byte[] getPage(String filename) {
+        return pages.get(filename);
+    }
+
+    /**
+     * @return The names of the pages written, sorted
+     */
+    public synchronized List<String> getPageNames() {
+        List<String> names = new ArrayList<String>(pages.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    public void close() {
+        // Do nothing
+    }
+}
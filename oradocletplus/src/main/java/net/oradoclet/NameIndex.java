@@ -0,0 +1,225 @@
+/*
+ * NameIndex.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The objects of a schema sorted by name regardless of the case, the view
+ * the name index is generated from. The sorted objects are split into shards
+ * by the leading character of the name, a shard holds at most the given
+ * number of names. The shards are found in one pass over the sorted objects.
+ *
+ * Large trees are sorted by a merge sort running on a fork/join pool.
+ */
+public class NameIndex {
+    /** The trees up to this size are sorted by the calling thread */
+    private static final int PARALLEL_SORT_SIZE = 8192;
+
+    /** Equal names come in the order of their keys */
+    public static final Comparator<DatabaseObject> NAME_ORDER = new Comparator<DatabaseObject>() {
+        public int compare(DatabaseObject objectA, DatabaseObject objectB) {
+            int result = objectA.getObjectName().compareToIgnoreCase(objectB.getObjectName());
+            return (0 != result) ? result : objectA.getObjectID().compareTo(objectB.getObjectID());
+        }
+    };
+
+    private final DatabaseObject[] sorted;
+    private final List<Shard>      shards = new ArrayList<Shard>();
+
+    /**
+     * @param objectTree The objects of the schema
+     * @param bucketSize The maximal number of names in a shard, no limit if 0
+     * @param threads The number of threads sorting a large tree
+     */
+    public NameIndex(TreeMap<?, ?> objectTree, int bucketSize, int threads) {
+        sorted = objectTree.values().toArray(new DatabaseObject[objectTree.size()]);
+        if(threads > 1 && sorted.length > PARALLEL_SORT_SIZE) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                pool.invoke(new SortTask(sorted, sorted.clone(), 0, sorted.length));
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            Arrays.sort(sorted, NAME_ORDER);
+        }
+        split(bucketSize);
+    }
+
+    /**
+     * @return The number of objects
+     */
+    public int size() {
+        return sorted.length;
+    }
+
+    /**
+     * @return The object at the given position of the name order
+     */
+    public DatabaseObject get(int i) {
+        return sorted[i];
+    }
+
+    /**
+     * @return The shards in the name order
+     */
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    /**
+     * Returns the shard having the given page name
+     *
+     * @return shard or null if there is no such shard
+     */
+    public Shard getShard(String pageName) {
+        for(int i=0; i<shards.size(); i++) {
+            Shard shard = shards.get(i);
+            if(shard.pageName.equals(pageName)) {
+                return shard;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the leading character of the name the shards are made by
+     */
+    public static String getLetter(DatabaseObject dbobject) {
+        String name = dbobject.getObjectName();
+        return (null == name || 0 == name.length()) ? "" : name.substring(0,1).toUpperCase();
+    }
+
+    /**
+     * Cuts the sorted objects into shards where the leading character changes
+     * or the shard is full
+     */
+    private void split(int bucketSize) {
+        Map<String, Integer> pagesPerLetter = new HashMap<String, Integer>();
+        Shard                shard          = null;
+
+        for(int i=0; i<sorted.length; i++) {
+            String letter = getLetter(get(i));
+            if(null == shard || !letter.equals(shard.letter) || (bucketSize > 0 && i - shard.from >= bucketSize)) {
+                if(null != shard) {
+                    shard.to = i;
+                }
+                Integer pages = pagesPerLetter.get(letter);
+                pages = (null == pages) ? Integer.valueOf(1) : Integer.valueOf(pages.intValue() + 1);
+                pagesPerLetter.put(letter, pages);
+
+                shard = new Shard(letter, getPageName(letter, pages.intValue()), i);
+                shards.add(shard);
+            }
+        }
+        if(null != shard) {
+            shard.to = sorted.length;
+        }
+    }
+
+    /**
+     * Returns the page name of a shard, e.g. name-index-A.html, name-index-A-2.html
+     * for the second page of names starting with A. Other characters than
+     * letters and digits are given by their code, e.g. name-index-x5f.html for '_'.
+     */
+    private static String getPageName(String letter, int page) {
+        StringBuilder name = new StringBuilder("name-index-");
+        for(int i=0; i<letter.length(); i++) {
+            char c = letter.charAt(i);
+            if((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                name.append(c);
+            } else {
+                name.append('x').append(Integer.toHexString(c));
+            }
+        }
+        if(page > 1) {
+            name.append('-').append(page);
+        }
+        return name.append(".html").toString();
+    }
+
+    /**
+     * A page of the name index: the objects from..to-1 of the name order
+     */
+    public static class Shard {
+        public final String letter;
+        public final String pageName;
+        public final int    from;
+        public int          to;
+
+        Shard(String letter, String pageName, int from) {
+            this.letter   = letter;
+            this.pageName = pageName;
+            this.from     = from;
+        }
+    }
+
+    /**
+     * Sorts a range of the array by sorting its halves in parallel and merging them.
+     * The buffer holds the same elements as the array when the task starts.
+     */
+    private static class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final DatabaseObject[] array;
+        private final DatabaseObject[] buffer;
+        private final int              from;
+        private final int              to;
+
+        SortTask(DatabaseObject[] array, DatabaseObject[] buffer, int from, int to) {
+            this.array  = array;
+            this.buffer = buffer;
+            this.from   = from;
+            this.to     = to;
+        }
+
+        protected void compute() {
+            if(to - from <= PARALLEL_SORT_SIZE) {
+                Arrays.sort(array, from, to, NAME_ORDER);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            // The halves are sorted into the buffer, then merged back into the array
+            invokeAll(new SortTask(buffer, array, from, middle), new SortTask(buffer, array, middle, to));
+
+            int i = from;
+            int j = middle;
+            for(int k=from; k<to; k++) {
+                if(j >= to || (i < middle && NAME_ORDER.compare(buffer[i], buffer[j]) <= 0)) {
+                    array[k] = buffer[i++];
+                } else {
+                    array[k] = buffer[j++];
+                }
+            }
+        }
+    }
+}
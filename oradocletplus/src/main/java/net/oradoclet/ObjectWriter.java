@@ -42,10 +42,60 @@ public class ObjectWriter extends HtmlWriter {
     private DatabaseObject dbobject     = null;
     private String         appTitle     = null;
     private String         copyright    = null;
+    private PageSink       sink         = null;
+    private SourceLinker   linker       = null;
+
+    /** The sections listing the dependencies, after the sections of the object type */
+    protected static final String[] dependencySections = {"Uses", "Used by", "Used indirectly by"};
+
+    /** The name of the section showing the foreign keys around a table */
+    protected static final String diagramSection = "Diagram";
+
+    /** The sections listing the identifiers collected by PL/Scope, after the dependencies */
+    protected static final String[] crossReferenceSections = {"Declarations", "References", "Referenced in code"};
 
     // TODO make it static to spare the memory
     protected ObjectWriterSection[] sections = null;
 
+    /**
+     * Loads the chunks of the source code into the page: a chunk near the
+     * visible part or clicked is fetched from its page, a link to a line
+     * (#L1234) loads the chunk holding it and scrolls to the line. Where the
+     * chunk cannot be fetched (e.g. a page opened from the disk), the link
+     * leads to the page of the chunk.
+     */
+    private static final String CHUNK_SCRIPT =
+          "<script>(function(){"
+        + "function load(c,then){"
+        +   "if(c.loading){return;}c.loading=1;"
+        +   "fetch(c.getAttribute('data-src')).then(function(r){if(!r.ok){throw r;}return r.text();}).then(function(t){"
+        +     "var d=new DOMParser().parseFromString(t,'text/html').getElementById(c.id);"
+        +     "if(d){c.parentNode.replaceChild(d,c);if(then){then(d);}}"
+        +   "})['catch'](function(){c.failed=1;if(then){location.href=c.getAttribute('data-src')+location.hash;}});"
+        + "}"
+        + "function go(d,n){"
+        +   "var k=n-d.id.substring(1),li=d.getElementsByTagName('li'),p=d.getElementsByTagName('pre')[0];"
+        +   "if(li.length){if(li[k]){li[k].scrollIntoView();}}"
+        +   "else if(p){window.scrollTo(0,p.getBoundingClientRect().top+window.pageYOffset+k*parseFloat(getComputedStyle(p).lineHeight));}"
+        + "}"
+        + "function line(){"
+        +   "var m=/^#L(\\d+)$/.exec(location.hash);if(!m){return;}"
+        +   "var n=+m[1],cs=document.querySelectorAll('div.chunk'),c=null;"
+        +   "for(var i=0;i<cs.length;i++){if(+cs[i].id.substring(1)<=n){c=cs[i];}}"
+        +   "if(!c){return;}"
+        +   "if(c.getAttribute('data-src')){load(c,function(d){go(d,n);});}else{go(c,n);}"
+        + "}"
+        + "var o=window.IntersectionObserver?new IntersectionObserver(function(es){"
+        +   "for(var i=0;i<es.length;i++){if(es[i].isIntersecting){o.unobserve(es[i].target);load(es[i].target);}}"
+        + "},{rootMargin:'800px'}):null;"
+        + "var cs=document.querySelectorAll('div.chunk[data-src]');"
+        + "for(var i=0;i<cs.length;i++){(function(c){"
+        +   "if(o){o.observe(c);}"
+        +   "c.onclick=function(e){if(!c.failed&&window.fetch){e.preventDefault();load(c);}};"
+        + "})(cs[i]);}"
+        + "window.addEventListener('hashchange',line);line();"
+        + "})();</script>";
+
     /**
      * Standard constructor
      *
@@ -55,17 +105,140 @@ public class ObjectWriter extends HtmlWriter {
      * @throws IOException
      */
     public ObjectWriter(Connection  dbconnection, TreeMap objectTree, DatabaseObject dbobject, ObjectWriterSection[] newSections) throws IOException {
-        super(OraDoclet.getConfiguration(), OraDoclet.getConfiguration().destdirname,
-            dbobject.getObjectType().toLowerCase() + "-" + dbobject.getObjectName().toLowerCase().replace('\\', '_').replace('/', '_').replace(':', '_') +  ".html" ,
+        this(dbconnection, objectTree, dbobject, newSections, OraDoclet.getConfiguration().pageSink);
+    }
+
+    /**
+     * Creates a writer that hands the page over to the given page sink
+     *
+     * @param dbconnection
+     * @param objectTree
+     * @param dbobject
+     * @param newSections
+     * @param sink
+     * @throws IOException
+     */
+    public ObjectWriter(Connection  dbconnection, TreeMap<?, ?> objectTree, DatabaseObject dbobject, ObjectWriterSection[] newSections, PageSink sink) throws IOException {
+        super(OraDoclet.getConfiguration(), sink, getPageDirectory(dbobject),
+            getPageName(dbobject),
             OraDoclet.getConfiguration().encoding);
+        this.rootPath     = getRootPath(dbobject);
         this.dbconnection = dbconnection;
         this.objectTree   = objectTree;
         this.dbobject     = dbobject;
         this.appTitle     = OraDoclet.getConfiguration().applicationTitle;
         this.copyright    = OraDoclet.getConfiguration().copyrightLabel;
+        this.sink         = sink;
         this.sections     = (null!=newSections) ? newSections : getSections();
     }
 
+    /**
+     * Returns the name of the page file describing the given object
+     *
+     * @param dbobject
+     * @return page name, e.g. table-orders.html
+     */
+    public static String getPageName(DatabaseObject dbobject) {
+        return dbobject.getObjectType().toLowerCase() + "-" + dbobject.getObjectName().toLowerCase().replace('\\', '_').replace('/', '_').replace(':', '_') +  ".html";
+    }
+
+    /**
+     * Returns the name of a page holding a chunk of the source code of the given object
+     *
+     * @param dbobject
+     * @param chunk number of the chunk, the first one is on the page of the object
+     * @return page name, e.g. package-orders-src-2.html
+     */
+    public static String getSourceChunkName(DatabaseObject dbobject, int chunk) {
+        String pageName = getPageName(dbobject);
+        return pageName.substring(0, pageName.length() - ".html".length()) + "-src-" + chunk + ".html";
+    }
+
+    /**
+     * Returns the directory the page describing the given object is written into
+     *
+     * @param dbobject
+     * @return the destination directory, or its subdirectory when the layout is sharded
+     */
+    public static String getPageDirectory(DatabaseObject dbobject) {
+        String destdir = OraDoclet.getConfiguration().destdirname;
+        String objectdir = OraDictionary.getObjectDirectory(dbobject.getObjectType(), dbobject.getObjectName());
+
+        if(0 == objectdir.length()) {
+            return destdir;
+        }
+        return new File(destdir, objectdir).getPath();
+    }
+
+    /**
+     * Returns the relative path from the page describing the given object to the schema directory
+     *
+     * @param dbobject
+     * @return e.g. ../../ when the layout is sharded, an empty string otherwise
+     */
+    public static String getRootPath(DatabaseObject dbobject) {
+        String objectdir = OraDictionary.getObjectDirectory(dbobject.getObjectType(), dbobject.getObjectName());
+        StringBuilder path = new StringBuilder();
+
+        for(int i=0; i<objectdir.length(); i++) {
+            if(objectdir.charAt(i) == '/') {
+                path.append("../");
+            }
+        }
+        return path.toString();
+    }
+
+    /**
+     * Tells whether the object is described on a page of its own
+     *
+     * @param dbobject
+     * @return true for tables, views, procedures, functions and packages
+     */
+    public static boolean hasPage(DatabaseObject dbobject) {
+        String objectType = dbobject.getObjectType();
+
+        return objectType.equalsIgnoreCase("TABLE")
+            || objectType.equalsIgnoreCase("VIEW")
+            || objectType.equalsIgnoreCase("PROCEDURE")
+            || objectType.equalsIgnoreCase("FUNCTION")
+            || objectType.equalsIgnoreCase("PACKAGE");
+    }
+
+    /**
+     * Returns the writer generating the page for the given object.
+     *
+     * @param dbconnection
+     * @param objectTree
+     * @param dbobject
+     * @param sink The destination of the page
+     * @return writer or null if objects of this type have no page of their own
+     * @throws IOException
+     */
+    public static ObjectWriter getObjectWriter(Connection dbconnection, TreeMap<?, ?> objectTree, DatabaseObject dbobject, PageSink sink) throws IOException {
+        String objectType = dbobject.getObjectType();
+
+        if(!hasPage(dbobject)) {
+            return null;
+        }
+
+        if(objectType.equalsIgnoreCase("TABLE")) {
+            return new ObjectWriter(dbconnection, objectTree, dbobject, null, sink);
+        }
+        if(objectType.equalsIgnoreCase("VIEW")) {
+            return new ViewWriter(dbconnection, objectTree, dbobject, sink);
+        }
+        if(objectType.equalsIgnoreCase("PROCEDURE")) {
+            return new ProcedureWriter(dbconnection, objectTree, dbobject, sink);
+        }
+        if(objectType.equalsIgnoreCase("FUNCTION")) {
+            return new FunctionWriter(dbconnection, objectTree, dbobject, sink);
+        }
+        if(objectType.equalsIgnoreCase("PACKAGE")) {
+            return new PackageWriter(dbconnection, objectTree, dbobject, sink);
+        }
+        return null;
+    }
+
     /**
      * Generate a page for each object
      */
@@ -80,21 +253,11 @@ public class ObjectWriter extends HtmlWriter {
      */
     protected void generateObjectFile(Connection dbconnection, TreeMap objectTree, DatabaseObject dbobject, String appTitle, String copyright) {
         try {
-            html();
-            head();
-            link("rel='stylesheet' type='text/css' href='style.css'");
-            headEnd();
-            body(true);
-
-            // Each object's page includes top and bottom bars, generated by DocFilesetWriter class
-            DocFilesetWriter docFilesetWriter = new DocFilesetWriter(dbconnection, objectTree);
-            docFilesetWriter.generateTopBar(this, appTitle);
+            // The head, the top and the bottom bars are the same on each object's page
+            PageSkeleton skeleton = PageSkeleton.getSkeleton(this, appTitle, copyright);
+            skeleton.writeHeader(this);
             generateObjectAttributes(dbconnection, objectTree, dbobject);
-            docFilesetWriter.generateBottomBar(this, copyright);
-
-            bodyEnd();
-            htmlEnd();
-            docFilesetWriter = null;
+            skeleton.writeFooter(this);
         } catch(IOException iox) {
             iox.printStackTrace();
         }
@@ -155,6 +318,8 @@ public class ObjectWriter extends HtmlWriter {
      * @param dbobject
      */
     protected void generateObjectAttributes(Connection dbconnection, TreeMap objectTree, DatabaseObject dbobject) {
+        int[][] dependencies = getDependencies(dbobject);
+        ErDiagram diagram = getDiagram(objectTree, dbobject);
         write("<div id='object_attributes'>");
         for (int i = 0; i < getSectionCount(); i++) {
             anchor("#"
@@ -165,6 +330,44 @@ public class ObjectWriter extends HtmlWriter {
             space();
             space();
         }
+        if(null!=diagram) {
+            anchor("#"
+                + dbobject.getObjectType().substring(0, 1).toLowerCase()
+                + "-"
+                + diagramSection.toLowerCase(),
+                diagramSection);
+            space();
+            space();
+        }
+        for (int i = 0; i < dependencies.length; i++) {
+            if(dependencies[i].length > 0) {
+                anchor("#"
+                    + dbobject.getObjectType().substring(0, 1).toLowerCase()
+                    + "-"
+                    + dependencySections[i].toLowerCase(),
+                    dependencySections[i]);
+                space();
+                space();
+            }
+        }
+        CrossReference crossReference = CrossReference.getCrossReference(objectTree);
+        DependencyGraph graph = DependencyGraph.getGraph(objectTree);
+        int node = (null!=graph) ? graph.getNode(dbobject) : -1;
+        int[]  declarations     = (null!=crossReference && node >= 0) ? crossReference.getDeclarations(node) : new int[0];
+        long[] references       = (null!=crossReference && node >= 0) ? crossReference.getReferences(node) : new long[0];
+        long[] columnReferences = (null!=crossReference && node >= 0) ? crossReference.getColumnReferences(node) : new long[0];
+        int[]  counts = {declarations.length, references.length, columnReferences.length};
+        for (int i = 0; i < counts.length; i++) {
+            if(counts[i] > 0) {
+                anchor("#"
+                    + dbobject.getObjectType().substring(0, 1).toLowerCase()
+                    + "-"
+                    + crossReferenceSections[i].toLowerCase(),
+                    crossReferenceSections[i]);
+                space();
+                space();
+            }
+        }
         write("</div>");
         hr();
         h2();
@@ -180,6 +383,319 @@ public class ObjectWriter extends HtmlWriter {
                 e.printStackTrace();
             }
         }
+        if(null!=diagram) {
+            listDiagram(dbobject, diagram);
+        }
+        for (int i = 0; i < dependencies.length; i++) {
+            listDependencies(dbobject, dependencySections[i], dependencies[i]);
+        }
+        if(null!=crossReference) {
+            listDeclarations(dbobject, crossReference, declarations);
+            listReferences(dbobject, crossReference, references);
+            listColumnReferences(dbobject, crossReference, columnReferences);
+        }
+    }
+
+    /**
+     * Returns the diagram of the tables linked to the given table by the foreign keys
+     *
+     * @param objectTree
+     * @param dbobject
+     * @return diagram or null if the object is no table, or a table without foreign keys
+     */
+    private ErDiagram getDiagram(TreeMap<?, ?> objectTree, DatabaseObject dbobject) {
+        int depth = OraDoclet.getConfiguration().erDepth;
+        if(depth <= 0 || !dbobject.getObjectType().equalsIgnoreCase("TABLE")) {
+            return null;
+        }
+        ForeignKeyIndex index = ForeignKeyIndex.getIndex(objectTree);
+        int table = (null!=index) ? index.getTable(dbobject) : -1;
+        if(table < 0) {
+            return null;
+        }
+        ErDiagram diagram = new ErDiagram(index, table, depth);
+        return diagram.isEmpty() ? null : diagram;
+    }
+
+    /**
+     * Writes the diagram of the tables linked to the given table by the foreign keys
+     *
+     * @param dbobject
+     * @param diagram
+     */
+    private void listDiagram(DatabaseObject dbobject, ErDiagram diagram) {
+        aName(dbobject.getObjectType().substring(0, 1).toLowerCase() + "-" + diagramSection.toLowerCase());
+        p();
+        h3();
+        println(diagramSection);
+        h3End();
+        write("<div class='er'>");
+        write(diagram.getSvg(rootPath));
+        write("</div>");
+    }
+
+    /**
+     * Starts a section of the page with a table having the given columns
+     *
+     * @param dbobject
+     * @param sectionName
+     * @param columns The names of the columns of the table
+     */
+    private void startSectionTable(DatabaseObject dbobject, String sectionName, String[] columns) {
+        aName(dbobject.getObjectType().substring(0, 1).toLowerCase() + "-" + sectionName.toLowerCase());
+        p();
+        h3();
+        println(sectionName);
+        h3End();
+        table(1,"100%");
+        trClass("header");
+        for(int i=0; i<columns.length; i++) {
+            tdAlign("center");
+            bold();
+            println(columns[i]);
+            boldEnd();
+            tdEnd();
+        }
+        trEnd();
+    }
+
+    /**
+     * Returns the name of the object linked to its page
+     */
+    private String getObjectAnchor(DatabaseObject target, String name) {
+        if(null!=target && null!=target.getLink()) {
+            return "<a href=\"" + rootPath + target.getLink() + "\">" + escape(name) + "</a>";
+        }
+        return escape(name);
+    }
+
+    /**
+     * Returns the number of a line of code linked to the line on the page of its unit,
+     * when the page shows the source of the unit line by line
+     *
+     * @param unit The procedure, function or package the line belongs to
+     * @param line The line as stored by the cross reference
+     */
+    private String getLineAnchor(DatabaseObject unit, int line) {
+        int number = line >>> 1;
+        if(0 != (line & CrossReference.SPEC)) {
+            return "spec&nbsp;" + number;
+        }
+        String objectType = unit.getObjectType();
+        if(null!=unit.getLink() && (objectType.equalsIgnoreCase("PROCEDURE")
+            || objectType.equalsIgnoreCase("FUNCTION") || objectType.equalsIgnoreCase("PACKAGE"))) {
+            return "<a href=\"" + rootPath + unit.getLink() + "#L" + number + "\">" + number + "</a>";
+        }
+        return String.valueOf(number);
+    }
+
+    /**
+     * Returns the name of an identifier, a column is qualified by its table
+     * and linked to its row on the page of the table
+     */
+    private String getIdentifierAnchor(CrossReference crossReference, int sig) {
+        DependencyGraph graph = DependencyGraph.getGraph(objectTree);
+        int table = crossReference.getColumnTable(sig);
+        if(table >= 0) {
+            DatabaseObject tableObject = graph.getObject(table);
+            String columnKey = DatabaseObject.genKey(tableObject.getObjectID(), DatabaseObject.genKey("COLUMN", crossReference.getName(sig)));
+            return getObjectAnchor(tableObject, tableObject.getObjectName()) + "."
+                + getObjectAnchor((DatabaseObject) objectTree.get(columnKey), crossReference.getName(sig));
+        }
+        int unit = crossReference.getDeclarationUnit(sig);
+        if(unit >= 0) {
+            String name = crossReference.getName(sig);
+            DatabaseObject unitObject = graph.getObject(unit);
+            if(!name.equalsIgnoreCase(unitObject.getObjectName())) {
+                name = unitObject.getObjectName() + "." + name;
+            }
+            return getObjectAnchor(unitObject, name);
+        }
+        return escape(crossReference.getName(sig));
+    }
+
+    /**
+     * Draws a table of the identifiers declared in the code of the given object
+     *
+     * @param dbobject
+     * @param crossReference
+     * @param declarations The signatures declared, in the order of the lines
+     */
+    protected void listDeclarations(DatabaseObject dbobject, CrossReference crossReference, int[] declarations) {
+        if(0 == declarations.length) {
+            return;
+        }
+        startSectionTable(dbobject, crossReferenceSections[0], new String[] {"Name", "Type", "Line"});
+        for(int i=0; i<declarations.length; i++) {
+            int sig = declarations[i];
+            tr();
+            tdAlignVAlign("left","top");
+            println(escape(crossReference.getName(sig)));
+            tdEnd();
+            td();
+            println(getInitCapString(crossReference.getType(sig)));
+            tdEnd();
+            td();
+            println(getLineAnchor(dbobject, crossReference.getDeclarationLine(sig)));
+            tdEnd();
+            trEnd();
+        }
+        tableEnd();
+        br();
+    }
+
+    /**
+     * Draws a table of the identifiers of other objects and of the columns
+     * referenced in the code of the given object, with the lines referencing them
+     *
+     * @param dbobject
+     * @param crossReference
+     * @param references The references by signature and line
+     */
+    protected void listReferences(DatabaseObject dbobject, CrossReference crossReference, long[] references) {
+        if(0 == references.length) {
+            return;
+        }
+        startSectionTable(dbobject, crossReferenceSections[1], new String[] {"Name", "Type", "Lines"});
+        int i = 0;
+        while(i < references.length) {
+            int sig = (int) (references[i] >>> 32);
+            StringBuilder lines = new StringBuilder();
+            int previous = -1;
+            for(; i < references.length && (int) (references[i] >>> 32) == sig; i++) {
+                int line = (int) references[i];
+                if(line != previous) {
+                    if(lines.length() > 0) {
+                        lines.append(", ");
+                    }
+                    lines.append(getLineAnchor(dbobject, line));
+                    previous = line;
+                }
+            }
+            tr();
+            tdAlignVAlign("left","top");
+            println(getIdentifierAnchor(crossReference, sig));
+            tdEnd();
+            td();
+            println(getInitCapString(crossReference.getType(sig)));
+            tdEnd();
+            td();
+            println(lines.toString());
+            tdEnd();
+            trEnd();
+        }
+        tableEnd();
+        br();
+    }
+
+    /**
+     * Draws a table of the columns of the given table or view referenced in
+     * the code of the schema, with the lines referencing them
+     *
+     * @param dbobject
+     * @param crossReference
+     * @param references The references by signature, in the order they were read
+     */
+    protected void listColumnReferences(DatabaseObject dbobject, CrossReference crossReference, long[] references) {
+        if(0 == references.length) {
+            return;
+        }
+        DependencyGraph graph = DependencyGraph.getGraph(objectTree);
+        startSectionTable(dbobject, crossReferenceSections[2], new String[] {"Column", "Lines"});
+        int i = 0;
+        while(i < references.length) {
+            int sig = (int) (references[i] >>> 32);
+            StringBuilder lines = new StringBuilder();
+            int unit = -1;
+            int previous = -1;
+            for(; i < references.length && (int) (references[i] >>> 32) == sig; i++) {
+                int reference = (int) references[i];
+                int line = crossReference.getReferenceLine(reference);
+                DatabaseObject unitObject = graph.getObject(crossReference.getReferenceUnit(reference));
+                if(crossReference.getReferenceUnit(reference) != unit) {
+                    unit = crossReference.getReferenceUnit(reference);
+                    if(lines.length() > 0) {
+                        lines.append("<br>");
+                    }
+                    lines.append(getObjectAnchor(unitObject, unitObject.getObjectName())).append(": ");
+                } else if(line == previous) {
+                    continue;
+                } else {
+                    lines.append(", ");
+                }
+                lines.append(getLineAnchor(unitObject, line));
+                previous = line;
+            }
+            String column = crossReference.getName(sig);
+            String columnKey = DatabaseObject.genKey(dbobject.getObjectID(), DatabaseObject.genKey("COLUMN", column));
+            tr();
+            tdAlignVAlign("left","top");
+            println(getObjectAnchor((DatabaseObject) objectTree.get(columnKey), column));
+            tdEnd();
+            td();
+            println(lines.toString());
+            tdEnd();
+            trEnd();
+        }
+        tableEnd();
+        br();
+    }
+
+    /**
+     * Returns the objects the given object uses, the objects using it and
+     * the objects using it through other objects, as numbered by the
+     * dependency graph of the schema
+     *
+     * @param dbobject
+     * @return the objects of each of the dependencySections
+     */
+    protected int[][] getDependencies(DatabaseObject dbobject) {
+        DependencyGraph graph = DependencyGraph.getGraph(objectTree);
+        int node = (null!=graph) ? graph.getNode(dbobject) : -1;
+        if(node < 0) {
+            return new int[][] {new int[0], new int[0], new int[0]};
+        }
+        int[] usedBy   = graph.getUsedBy(node);
+        int[] impact   = graph.getImpact(node);
+        int[] indirect = new int[impact.length - usedBy.length];
+        // Both are sorted, the direct users are all part of the impact
+        int count = 0;
+        for(int i=0, j=0; i<impact.length; i++) {
+            if(j < usedBy.length && usedBy[j] == impact[i]) {
+                j++;
+            } else {
+                indirect[count++] = impact[i];
+            }
+        }
+        return new int[][] {graph.getUses(node), usedBy, indirect};
+    }
+
+    /**
+     * Draws a table of the objects related to the given one by the dependencies
+     *
+     * @param dbobject
+     * @param sectionName
+     * @param nodes The objects as numbered by the dependency graph
+     */
+    protected void listDependencies(DatabaseObject dbobject, String sectionName, int[] nodes) {
+        if(0 == nodes.length) {
+            return;
+        }
+        DependencyGraph graph = DependencyGraph.getGraph(objectTree);
+        startSectionTable(dbobject, sectionName, new String[] {"Name", "Type"});
+        for(int i=0; i<nodes.length; i++) {
+            DatabaseObject dependency = graph.getObject(nodes[i]);
+            tr();
+            tdAlignVAlign("left","top");
+            println(getObjectAnchor(dependency, dependency.getObjectName()));
+            tdEnd();
+            td();
+            println(getInitCapString(dependency.getObjectType()));
+            tdEnd();
+            trEnd();
+        }
+        tableEnd();
+        br();
     }
 
 
@@ -193,7 +709,7 @@ public class ObjectWriter extends HtmlWriter {
         DatabaseAttribute attr = null;
         Vector  names      = new Vector();
         Vector  attributes = new Vector();
-        TreeMap attrTable  = new TreeMap();
+        TreeMap<String, String> attrTable = new TreeMap<String, String>();
         String  attrName   = null;
         String  attrValue  = null;
         String  attrAncor  = "";
@@ -201,7 +717,8 @@ public class ObjectWriter extends HtmlWriter {
         for(int k=0; k<dbobject.getAttributeMatrix().size(); k++) {
             // Fetch a matrix line
             Vector attrMatrixLine  = (Vector) dbobject.getAttributeMatrix().elementAt(k);
-            Vector attributeList   = attrMatrixLine;
+            // The lists are copied: the page adds its own entries and must leave the object tree untouched
+            Vector<Object> attributeList = (null!=attrMatrixLine) ? new Vector<Object>((Vector<?>) attrMatrixLine) : null;
             // Go on if the line has elements
             if(null!=attrMatrixLine && attrMatrixLine.size() > 0) {
                 // If the 1st attribute is of given name, process this line
@@ -214,10 +731,9 @@ public class ObjectWriter extends HtmlWriter {
 
                     if(null!=childObject && null!=childObject.getAttributeMatrix()) {
                         if(childObject.getAttributeMatrix().size() > 0) {
-                            //attributeList = new Vector((Vector) childObject.getAttributeMatrix().elementAt(0));
-                            attributeList = (Vector) childObject.getAttributeMatrix().elementAt(0);
+                            attributeList = new Vector<Object>((Vector<?>) childObject.getAttributeMatrix().elementAt(0));
                         } else {
-                            attributeList = new Vector();
+                            attributeList = new Vector<Object>();
                         }
 
                         // Add the child object name to the attribute list
@@ -238,6 +754,7 @@ public class ObjectWriter extends HtmlWriter {
                         String ownerName = ((DatabaseAttribute) attributeList.elementAt(0)).getValue();
                         String ownerType = attributeName.equalsIgnoreCase("Index") ? "INDEX" : "CONSTRAINT";
                         DatabaseAttribute columnList = new DatabaseAttribute("Columns", getMemberColumns(ownerType, ownerName), true);
+                        columnList.setMarkup(true);
                         attributeList.add(columnList);
                     }
 
@@ -257,11 +774,11 @@ public class ObjectWriter extends HtmlWriter {
                         if(attrName.equalsIgnoreCase(attributeName)) {
                             // If this identifier is not hosted on this page, it gets a link to its original page
                             if(0==attrAncor.length() &&  null!=attr.getDbobject()) {
-                                name = "<a href=\"" + attr.getDbobject().getLink()
-                                    + "\">" + attr.getDbobject().getObjectName() + "</a>";
+                                name = "<a href=\"" + rootPath + attr.getDbobject().getLink()
+                                    + "\">" + escape(attr.getDbobject().getObjectName()) + "</a>";
                             } else {
                             //  Otherwise it gets an ancor
-                                name = attr.getValue().toUpperCase() + attrAncor;
+                                name = escape(attr.getValue().toUpperCase()) + attrAncor;
                             }
 
                             // In case of multiple entries enumerate them:
@@ -279,21 +796,26 @@ public class ObjectWriter extends HtmlWriter {
                         }
                         // Check whether the attribute is a DatabaseObject(can be provided with a hyperlink)
                         if(null!=attr.getDbobject() && null!=attr.getDbobject().getLink()) {
-                            attrValue = "<a href=\"" + attr.getDbobject().getLink()
-                                + "\">" + attr.getDbobject().getObjectName() + "</a>";
+                            attrValue = "<a href=\"" + rootPath + attr.getDbobject().getLink()
+                                + "\">" + escape(attr.getDbobject().getObjectName()) + "</a>";
 
+                        } else if(null==attr.getValue() || 0==attr.getValue().length()) {
+                            attrValue = NBSP;
+                        } else if(attr.isPreformatted()) {
+                            // The code of a view is a single text, other code is listed line by line
+                            DatabaseObject owner = (null!=childObject) ? childObject : dbobject;
+                            attrValue = getCodeBlock(attr.getValue(), owner.getObjectType().equalsIgnoreCase("VIEW"));
+                        } else if(attr.isMarkup()) {
+                            attrValue = attr.getValue();
                         } else {
-                            attrValue = (null==attr.getValue() || 0==attr.getValue().length()) ? NBSP : attr.getValue();
-
-                            if(attr.isPreformatted()) {
-                                attrValue = "<pre><ol class='code'>"
-                                        + attrValue
-                                        + "</ol></pre>";
-                            }
+                            attrValue = escape(attr.getValue());
                         }
                         // Add the value, for non-tabular(single-line) attributes only if they are not empty
                         if(null!=name && null!=attrValue && (!(!tabular && attrValue.equalsIgnoreCase(NBSP)))) {
-                            attrTable.put(name.toLowerCase() + "." + attrName.toLowerCase(), attrValue);
+                            String key = name.toLowerCase() + "." + attrName.toLowerCase();
+                            // An attribute repeated in a line, e.g. an argument of a package member, is listed line by line
+                            String previous = attrTable.get(key);
+                            attrTable.put(key, (null==previous) ? attrValue : previous + "<br>" + attrValue);
                         }
                         attr = null;
                     }
@@ -359,8 +881,6 @@ public class ObjectWriter extends HtmlWriter {
                     tr();
                     tdAlignVAlign("left","top");
 
-                    print("<pre><ol class='code'>");
-
                     String query = "SELECT uo.object_name                                    \"Package\", "
                             + "  us.text   \"Package Body Code\" "
                             //  + "  us.line||LPAD(':',5 - LENGTH(us.line))||to_clob(us.text)   \"Package Body Code\" "
@@ -373,48 +893,42 @@ public class ObjectWriter extends HtmlWriter {
                             + "   AND uo.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
                             + "   AND uo.object_name = '" + dbobject.getObjectName() + "'"
                             + " ORDER BY uo.object_name, line ";
-                    Statement stmt = dbconnection.createStatement();
-                    ResultSet rs = stmt.executeQuery(query);
-                    while(rs.next()){
-                        print("<li class='multiline'>"
-                                + rs.getString(2).replaceAll("&","&amp;").replaceAll("<", "&lt;").replaceAll(">", "&gt;")
-                                + "</li>");
+                    // The connection is shared by the pages rendered in parallel
+                    synchronized(dbconnection) {
+                        Statement stmt = dbconnection.createStatement();
+                        ResultSet rs = stmt.executeQuery(query);
+                        printSource(rs, 2);
+                        rs.close();
+                        stmt.close();
                     }
-                    rs.close();
-                    stmt.close();
-                    print("</ol></pre>");
                     flush();
                     tdEnd();
                     trEnd();
-                } else if (sectionName.equals("Procedure Source")) {
+                } else if (sectionName.equals("Procedure Source") || sectionName.equals("Function Source")) {
                     tr();
                     tdAlignVAlign("left","top");
 
-                    print("<pre><ol class='code'>");
-
                     String query = "SELECT uo.object_name                                    \"Procedure\", "
                             + "       us.text   \"Code\" "
                             //+ "       us.line||LPAD(':',5 - LENGTH(us.line))||to_clob(us.text)   \"Code\" "
                             + "  FROM all_source     us, "
                             + "       all_objects    uo  "
                             + " WHERE us.name = uo.object_name "
-                            + "   AND uo.object_type = 'PROCEDURE' "
+                            + "   AND uo.object_type = '" + dbobject.getObjectType().toUpperCase() + "' "
                             + "   AND uo.object_type = us.type "
                             + "   AND us.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
                             + "   AND uo.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
                             + "   AND uo.object_name = '" + dbobject.getObjectName() + "'"
                             + " ORDER BY uo.object_name, line ";
 
-                    Statement stmt = dbconnection.createStatement();
-                    ResultSet rs = stmt.executeQuery(query);
-                    while(rs.next()){
-                        print("<li class='multiline'>"
-                                + rs.getString(2).replaceAll("&","&amp;").replaceAll("<", "&lt;").replaceAll(">", "&gt;")
-                                + "</li>");
+                    // The connection is shared by the pages rendered in parallel
+                    synchronized(dbconnection) {
+                        Statement stmt = dbconnection.createStatement();
+                        ResultSet rs = stmt.executeQuery(query);
+                        printSource(rs, 2);
+                        rs.close();
+                        stmt.close();
                     }
-                    rs.close();
-                    stmt.close();
-                    print("</ol></pre>");
                     flush();
                     tdEnd();
                     trEnd();
@@ -427,7 +941,7 @@ public class ObjectWriter extends HtmlWriter {
                         String displayedName = (String)names.elementAt(i);
                         // In case of the single column the value is displayed instead of the name (e.g. source code)
                         if(1==attributes.size()) {
-                            displayedName = (String) attrTable.get(((String)names.elementAt(i)).toLowerCase() + "." + ((String)attributes.elementAt(0)).toLowerCase());
+                            displayedName = attrTable.get(((String)names.elementAt(i)).toLowerCase() + "." + ((String)attributes.elementAt(0)).toLowerCase());
                         }
                         // Truncate the trailing enumeration index
                         if(displayedName.indexOf('[') > 0) {
@@ -441,12 +955,13 @@ public class ObjectWriter extends HtmlWriter {
                         for(int j=1;j<attributes.size();j++) {
                             td();
                             if(transpose) {
-                                attrValue = (String) attrTable.get(((String)attributes.elementAt(j)).toLowerCase() + "." + ((String)names.elementAt(i)).toLowerCase());
+                                attrValue = attrTable.get(((String)attributes.elementAt(j)).toLowerCase() + "." + ((String)names.elementAt(i)).toLowerCase());
                             } else {
-                                attrValue = (String) attrTable.get(((String)names.elementAt(i)).toLowerCase() + "." + ((String)attributes.elementAt(j)).toLowerCase());
+                                attrValue = attrTable.get(((String)names.elementAt(i)).toLowerCase() + "." + ((String)attributes.elementAt(j)).toLowerCase());
                             }
 
-                            println(attrValue);
+                            // Not every line has every attribute, e.g. the description of a member
+                            println((null!=attrValue) ? attrValue : NBSP);
                             flush();
                             tdEnd();
                         }
@@ -505,10 +1020,10 @@ public class ObjectWriter extends HtmlWriter {
                                && null!=currOwnerName && ownerName.equalsIgnoreCase(currOwnerName)) {
                                String linkedName = dbobject.getLink();
                                    if(null!=linkedName) {
-                                       linkedName = "<a href=\"" + linkedName + "\">"
-                                           + dbobject.getObjectName() + "</a>";
+                                       linkedName = "<a href=\"" + rootPath + linkedName + "\">"
+                                           + escape(dbobject.getObjectName()) + "</a>";
                                    } else {
-                                       linkedName = dbobject.getObjectName();
+                                       linkedName = escape(dbobject.getObjectName());
                                    }
 
                                 memberColumns.put(new Integer(position), linkedName);
@@ -540,6 +1055,326 @@ public class ObjectWriter extends HtmlWriter {
         return memberColumnsString;
     }
 
+    /**
+     * Prints the source code read line by line from the given column:
+     * as a numbered list, one item per line, or, when the source is compact,
+     * as a single text block followed by the column of its line numbers.
+     *
+     * Source longer than the chunk size of the configuration is split into
+     * chunks. The page shows the first one, each further chunk is written to
+     * a page of its own and is loaded into this page when scrolled to or clicked.
+     * Each chunk is anchored by its first line, e.g. #L5001, a link to any
+     * line loads the chunk holding it.
+     *
+     * @param rs The result set delivering a line per row
+     * @param column The column holding the line
+     * @throws SQLException
+     */
+    protected void printSource(ResultSet rs, int column) throws SQLException {
+        SourceLines source = new SourceLines(rs, column);
+        int chunkSize = configuration.sourceChunk;
+
+        if(chunkSize <= 0) {
+            if(null == CrossReference.getCrossReference(objectTree)) {
+                printSourceBlock(this, source, 1, Integer.MAX_VALUE);
+                return;
+            }
+            // The cross references link to the lines
+            print("<div class='chunk' id='L1'>");
+            printSourceBlock(this, source, 1, Integer.MAX_VALUE);
+            print("</div>");
+            print(CHUNK_SCRIPT);
+            return;
+        }
+
+        print("<div class='chunk' id='L1'>");
+        int lines = printSourceBlock(this, source, 1, chunkSize);
+        print("</div>");
+
+        StringBuilder placeholders = new StringBuilder();
+        int chunk = 1;
+        while(source.hasNext()) {
+            chunk++;
+            int first = lines + 1;
+            String chunkName = getSourceChunkName(dbobject, chunk);
+            HtmlWriter chunkWriter = null;
+            try {
+                // The encoding is the one of this page
+                chunkWriter = new HtmlWriter(configuration, sink, getPageDirectory(dbobject), chunkName, getEncoding());
+            } catch(UnsupportedEncodingException uex) {
+                throw new IllegalStateException(uex);
+            }
+            try {
+                lines += writeSourceChunk(chunkWriter, source, chunk, first, chunkSize);
+            } finally {
+                chunkWriter.close();
+            }
+            placeholders.append("<div class='chunk' id='L").append(first)
+                .append("' data-src='").append(chunkName).append("'><a href='").append(chunkName)
+                .append("'>Lines ").append(first).append('-').append(lines).append("</a></div>");
+        }
+        print(placeholders.toString());
+        if(chunk > 1) {
+            print(CHUNK_SCRIPT);
+        }
+    }
+
+    /**
+     * Writes the page holding a chunk of the source code
+     *
+     * @param writer The page of the chunk
+     * @param source The source, positioned on the first line of the chunk
+     * @param chunk number of the chunk
+     * @param first number of the first line of the chunk
+     * @param chunkSize maximal number of lines of the chunk
+     * @return number of lines written
+     * @throws SQLException
+     */
+    private int writeSourceChunk(HtmlWriter writer, SourceLines source, int chunk, int first, int chunkSize)
+        throws SQLException {
+        try {
+            writer.rootPath = rootPath;
+            PageSkeleton skeleton = PageSkeleton.getSkeleton(writer, appTitle, copyright);
+            skeleton.writeHeader(writer);
+        } catch(IOException iox) {
+            iox.printStackTrace();
+        }
+        writer.h2();
+        writer.println(escape(dbobject.getObjectName().toUpperCase()));
+        writer.h2End();
+
+        writer.print("<div class='chunk' id='L" + first + "'>");
+        int lines = printSourceBlock(writer, source, first, chunkSize);
+        writer.print("</div>");
+
+        writer.print("<div class='pages'>");
+        writer.anchor((2 == chunk) ? getPageName(dbobject) : getSourceChunkName(dbobject, chunk - 1), "&laquo; Previous");
+        writer.space();
+        writer.print("Lines " + first + "-" + (first + lines - 1));
+        if(source.hasNext()) {
+            writer.space();
+            writer.anchor(getSourceChunkName(dbobject, chunk + 1), "Next &raquo;");
+        }
+        writer.print("</div>");
+        writer.print(CHUNK_SCRIPT);
+
+        try {
+            PageSkeleton.getSkeleton(writer, appTitle, copyright).writeFooter(writer);
+        } catch(IOException iox) {
+            iox.printStackTrace();
+        }
+        return lines;
+    }
+
+    /**
+     * Prints at most the given number of source lines as a numbered list
+     * or, when the source is compact, as a text block with its line numbers
+     *
+     * @param writer The page printed to
+     * @param source The source, positioned on the first line printed
+     * @param first number of the first line printed
+     * @param max maximal number of lines printed
+     * @return number of lines printed
+     * @throws SQLException
+     */
+    private int printSourceBlock(HtmlWriter writer, SourceLines source, int first, int max) throws SQLException {
+        int lines = 0;
+        if(!configuration.compactSource) {
+            if(1 == first) {
+                writer.print("<pre><ol class='code'>");
+            } else {
+                writer.print("<pre><ol class='code' style='counter-reset: listCounter " + (first - 1) + "'>");
+            }
+            while(lines < max && source.hasNext()) {
+                writer.print("<li class='multiline'>");
+                printLinked(writer, source.next());
+                writer.print("</li>");
+                lines++;
+            }
+            writer.print("</ol></pre>");
+            return lines;
+        }
+        writer.print("<div class='source'><pre class='code'>");
+        while(lines < max && source.hasNext()) {
+            String line = source.next();
+            printLinked(writer, line);
+            // A list item used to end the line, the text block needs the line break itself
+            if(null==line || 0==line.length() || line.charAt(line.length() - 1) != '\n') {
+                writer.print("\n");
+            }
+            lines++;
+        }
+        writer.print("</pre>");
+        StringBuilder sb = new StringBuilder(lines * 6 + 32);
+        appendLineNumbers(sb, first, lines);
+        sb.append("</div>");
+        writer.print(sb.toString());
+        return lines;
+    }
+
+    /**
+     * Returns the source code formatted for the output: escaped and
+     * presented as a numbered list, one item per line, or, when the source
+     * is compact, as a single text block followed by its line numbers.
+     *
+     * @param code The source code as read from the dictionary
+     * @param oneline Whether the code is presented as a single item (e.g. a view query)
+     * @return HTML presentation of the code
+     */
+    protected String getCodeBlock(String code, boolean oneline) {
+        StringBuilder sb = new StringBuilder(code.length() + code.length() / 4 + 64);
+        if(OraDoclet.getConfiguration().compactSource) {
+            sb.append("<div class='source'><pre class='code'>");
+            appendLinked(sb, code, 0, code.length());
+            sb.append("</pre>");
+            if(!oneline) {
+                int lines = 0;
+                for(int i = code.indexOf('\n'); i >= 0; i = code.indexOf('\n', i + 1)) {
+                    lines++;
+                }
+                if(0==code.length() || code.charAt(code.length() - 1) != '\n') {
+                    lines++;
+                }
+                appendLineNumbers(sb, 1, lines);
+            }
+            sb.append("</div>");
+            return sb.toString();
+        }
+        sb.append("<pre><ol class='code'>");
+        if(oneline) {
+            sb.append("<li class='oneline'>");
+            appendLinked(sb, code, 0, code.length());
+            sb.append("</li>");
+        } else {
+            int start = 0;
+            while(start < code.length()) {
+                int end = code.indexOf('\n', start);
+                end = (end < 0) ? code.length() : end + 1;
+                sb.append("<li class='multiline'>");
+                appendLinked(sb, code, start, end);
+                sb.append("</li>");
+                start = end;
+            }
+        }
+        sb.append("</ol></pre>");
+        return sb.toString();
+    }
+
+    /**
+     * Returns the linker of the names of the schema, null when the names
+     * found in the source are not linked
+     */
+    private SourceLinker getLinker() {
+        if(null == linker && OraDoclet.getConfiguration().sourceLinks && null != objectTree) {
+            linker = SourceLinker.getLinker(objectTree);
+        }
+        return linker;
+    }
+
+    /**
+     * Prints a line of source escaped, the names of the objects found in it
+     * linked to their pages
+     *
+     * @param writer The page printed to
+     * @param line The line of source
+     */
+    private void printLinked(HtmlWriter writer, String line) {
+        SourceLinker linker = (null == line) ? null : getLinker();
+        if(null == linker) {
+            writer.printEscaped(line);
+            return;
+        }
+        int[] matches = linker.match(line, 0, line.length());
+        int   start   = 0;
+        for(int i=0; i<matches.length; i+=3) {
+            DatabaseObject target = linker.getTarget(matches[i + 2]);
+            if(target == dbobject) {
+                continue;
+            }
+            writer.printEscaped(line, start, matches[i]);
+            writer.print("<a href=\"" + rootPath + target.getLink() + "\">");
+            writer.printEscaped(line, matches[i], matches[i + 1]);
+            writer.print("</a>");
+            start = matches[i + 1];
+        }
+        writer.printEscaped(line, start, line.length());
+    }
+
+    /**
+     * Appends the part of the source escaped, the names of the objects found
+     * in it linked to their pages
+     *
+     * @param sb the buffer appended to
+     * @param code The source code
+     * @param from the first character appended
+     * @param to the character following the last one appended
+     */
+    private void appendLinked(StringBuilder sb, String code, int from, int to) {
+        SourceLinker linker = getLinker();
+        if(null == linker) {
+            escape(sb, code, from, to);
+            return;
+        }
+        int[] matches = linker.match(code, from, to);
+        int   start   = from;
+        for(int i=0; i<matches.length; i+=3) {
+            DatabaseObject target = linker.getTarget(matches[i + 2]);
+            if(target == dbobject) {
+                continue;
+            }
+            escape(sb, code, start, matches[i]);
+            sb.append("<a href=\"").append(rootPath).append(target.getLink()).append("\">");
+            escape(sb, code, matches[i], matches[i + 1]);
+            sb.append("</a>");
+            start = matches[i + 1];
+        }
+        escape(sb, code, start, to);
+    }
+
+    /**
+     * Appends the column of line numbers shown beside a compact source block
+     *
+     * @param sb the buffer appended to
+     * @param first number of the first line
+     * @param lines number of lines of the source
+     */
+    private static void appendLineNumbers(StringBuilder sb, int first, int lines) {
+        sb.append("<pre class='lineno'>");
+        for(int i=first; i<first + lines; i++) {
+            sb.append(i).append('\n');
+        }
+        sb.append("</pre>");
+    }
+
+    /**
+     * The lines of the source code delivered by a result set, read one row ahead
+     */
+    private static class SourceLines {
+        private final ResultSet rs;
+        private final int       column;
+        private boolean         ahead = false;
+        private boolean         more  = false;
+
+        SourceLines(ResultSet rs, int column) {
+            this.rs     = rs;
+            this.column = column;
+        }
+
+        boolean hasNext() throws SQLException {
+            if(!ahead) {
+                more  = rs.next();
+                ahead = true;
+            }
+            return more;
+        }
+
+        String next() throws SQLException {
+            hasNext();
+            ahead = false;
+            return rs.getString(column);
+        }
+    }
+
     private String getInitCapString(String str) {
         if(null!=str) {
             return str.substring(0,1).toUpperCase() + str.substring(1).toLowerCase();
@@ -30,7 +30,12 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.Vector;
 
@@ -54,6 +59,14 @@ public class OraDictionary {
          {"COLUMN","COLUMNS"},         //Attention! The COLUMN is not an Oracle object type. It is added here for uniformity
          };
 
+    /**
+     * The order the attributes of the object types are read in. The stored procedures
+     * do not depend on other objects and come first, their pages can be written
+     * while the tables and their child objects are read.
+     */
+    private static final String[] extractionOrder =
+        {"PROCEDURE", "FUNCTION", "PACKAGE", "TABLE", "VIEW", "CONSTRAINT", "INDEX", "TRIGGER", "COLUMN"};
+
     /** Database connection used by the methods accessing the database */
     private Connection connection = null;
 
@@ -72,6 +85,21 @@ public class OraDictionary {
     /** Dictionary type for the stored function */
     public static final String DBOBJ_TYPE_FUNCTION = "FUNCTION";
 
+    /** Receives the objects as soon as they are complete, may be null */
+    private DictionaryListener listener = null;
+
+    /** Type of the objects completed by the query being read, null if the query does not complete any */
+    private String completedType = null;
+
+    /** Keys of the objects reported to the listener */
+    private Set<String> completedKeys = new HashSet<String>();
+
+    /** Whether the code read by the query is scanned for documentation comments */
+    private boolean scanDocComments = false;
+
+    /** The scanner of the code of the object being read */
+    private DocCommentScanner docComments = null;
+
     /**
      * The standard constructor recieves an active connection as argument.
      *
@@ -105,6 +133,39 @@ public class OraDictionary {
     }
 
 
+    /**
+     * Sets the listener receiving the objects as soon as
+     * they are completely read by buildObjectTree()
+     */
+    public void setListener(DictionaryListener newListener) {
+        listener = newListener;
+    }
+
+    /**
+     * Reports the object to the listener, once
+     */
+    protected void complete(TreeMap<?, ?> objectTree, DatabaseObject dbobject) {
+        if(null!=listener && null!=dbobject && completedKeys.add(dbobject.getObjectID())) {
+            listener.objectComplete(objectTree, dbobject);
+        }
+    }
+
+    /**
+     * Reports all the objects of the given type not reported yet
+     */
+    protected void completeAll(TreeMap<?, ?> objectTree, String objectType) {
+        if(null==listener) {
+            return;
+        }
+        Iterator<?> it = objectTree.values().iterator();
+        while(it.hasNext()) {
+            DatabaseObject dbobject = (DatabaseObject) it.next();
+            if(dbobject.getObjectType().equalsIgnoreCase(objectType)) {
+                complete(objectTree, dbobject);
+            }
+        }
+    }
+
     /**
      * Returns the object hierarchy, which is used while generating the doc files.
      */
@@ -204,9 +265,16 @@ public class OraDictionary {
             stmt = null;
 
 
+            // The dependencies are known before any page is written
+            DependencyGraph graph = readDependencies(connection, objectTree);
+            DependencyGraph.setGraph(objectTree, graph);
+            if(OraDoclet.getConfiguration().plscope) {
+                CrossReference.setCrossReference(objectTree, readIdentifiers(connection, graph));
+            }
+
             // Retrieving the object attributes, detect the parent object
-            for(int i=0; i<OraDictionary.supportedObjectTypes.length; i++) {
-                String currentObjType = OraDictionary.supportedObjectTypes[i][0];
+            for(int i=0; i<OraDictionary.extractionOrder.length; i++) {
+                String currentObjType = OraDictionary.extractionOrder[i];
                 if(currentObjType.equalsIgnoreCase("TABLE")) {
                     readTableAttributes(connection, objectTree);
                 }
@@ -227,14 +295,25 @@ public class OraDictionary {
                 }
                 if(currentObjType.equalsIgnoreCase("FUNCTION")) {
                     readFunctionAttributes(connection, objectTree);
+                    completeAll(objectTree, currentObjType);
                 }
                 if(currentObjType.equalsIgnoreCase("PROCEDURE")) {
                     readProcedureAttributes(connection, objectTree);
+                    completeAll(objectTree, currentObjType);
                 }
                 if(currentObjType.equalsIgnoreCase("PACKAGE")) {
                     readPackageAttributes(connection, objectTree);
+                    completeAll(objectTree, currentObjType);
                 }
             }
+            // The foreign keys are known once the constraints are read
+            if(OraDoclet.getConfiguration().erDepth > 0) {
+                ForeignKeyIndex.setIndex(objectTree, new ForeignKeyIndex(objectTree));
+            }
+
+            // The tables and views are complete once their child objects are read
+            completeAll(objectTree, "TABLE");
+            completeAll(objectTree, "VIEW");
         } catch(SQLException sqlx) {
             OraDoclet.writeLog(sqlx.getMessage(), OraDoclet.ERROR, "buildObjectTree()", sqlx);
         } catch(Exception ex) {
@@ -274,7 +353,8 @@ public class OraDictionary {
 
             // b) Child objects being listed on the parent page, e.g. table-TABLENAME.html#col-COLUMNNAME
             if(null!=dbobject.getParent()) {
-                link = dbobject.getParent().getObjectType().toLowerCase()
+                link = getObjectDirectory(dbobject.getParent().getObjectType(), dbobject.getParent().getObjectName())
+                    + dbobject.getParent().getObjectType().toLowerCase()
                     + "-"
                     + dbobject.getParent().getObjectName().toLowerCase()
                     + ".html#" + dbobject.getObjectType().toLowerCase().substring(0,3)
@@ -284,12 +364,32 @@ public class OraDictionary {
 
             // Generate the link according to the file set naming convention
             if(null==link && linkable) {
-                link = dbobject.getObjectType().toLowerCase() + "-" + dbobject.getObjectName().toLowerCase().replace('\\', '_').replace('/', '_').replace(':', '_') + ".html";
+                link = getObjectDirectory(dbobject.getObjectType(), dbobject.getObjectName())
+                    + dbobject.getObjectType().toLowerCase() + "-" + dbobject.getObjectName().toLowerCase().replace('\\', '_').replace('/', '_').replace(':', '_') + ".html";
             }
         }
         return link.replace(' ','_');
     }
 
+    /**
+     * Returns the directory of the page of an object relative to the schema directory.
+     * The pages are put into directories by object type and the first two characters
+     * of the name when the layout is sharded, e.g. table/OR/ for the table ORDERS.
+     *
+     * @param objectType type of the object having the page
+     * @param objectName name of the object having the page
+     * @return directory ending with a slash, or an empty string for the flat layout
+     */
+    public static String getObjectDirectory(String objectType, String objectName) {
+        if(!OraDoclet.getConfiguration().sharded) {
+            return "";
+        }
+        String prefix = objectName.toUpperCase().substring(0, Math.min(2, objectName.length()));
+        // The prefix must be a plain directory name, neither "." nor ".." nor a path
+        prefix = prefix.replace('\\', '_').replace('/', '_').replace(':', '_').replace('.', '_').replace(' ', '_');
+        return objectType.toLowerCase() + "/" + prefix + "/";
+    }
+
     /**
      * Retrieves the attributes from the database using the <b>query</b> string,
      * for the objects of the <b>objectType</b>, which parent objects supposed
@@ -344,7 +444,17 @@ public class OraDictionary {
 
                 // if the key didn't change, the object remains the same
                 if(null!=key && !key.equals(keyOld)) {
+                    // The rows are ordered by the object, the previous object is complete
+                    if(null!=keyOld) {
+                        attachDocComments((DatabaseObject) objectTree.get(keyOld));
+                    }
+                    if(null!=completedType && null!=keyOld) {
+                        complete(objectTree, (DatabaseObject) objectTree.get(keyOld));
+                    }
                     dbobject = (DatabaseObject) objectTree.get(key);
+                    docComments = (scanDocComments && null!=dbobject)
+                        ? new DocCommentScanner(dbobject.getObjectName(), !dbobject.getObjectType().equalsIgnoreCase("PACKAGE"))
+                        : null;
                 }
 
                 if(null!=dbobject) {
@@ -382,6 +492,10 @@ public class OraDictionary {
                             // Attributes which names start with underscore are not for presentation (invisible)
                             boolean isVisible = !(attrName.startsWith("_"));
                             boolean isPreformatted = attrName.toLowerCase().endsWith(COL_CODE.toLowerCase());
+                            // The code is scanned line by line as it is read
+                            if(isPreformatted && null!=docComments) {
+                                docComments.feed(value);
+                            }
                             // If the value returned has a DatabaseObject type, store the reference to this object
                             DatabaseObject attrDBObject = null;
                             if(null!=columnObjectTypes[i - 1]) {
@@ -394,19 +508,7 @@ public class OraDictionary {
                             }
 
 
-                            if( objectType.equalsIgnoreCase("VIEW") ) {
-                              if (attrName.contains("Code")) {
-                                  value = "<li class='oneline'>"
-                                  + value.replaceAll("&","&amp;").replaceAll("<", "&lt;").replaceAll(">", "&gt;")
-                                  + "</li>";
-                              }
-                            } else {
-                              if (attrName.contains("Code")) {
-                                  value = "<li class='multiline'>"
-                                  + value.replaceAll("&","&amp;").replaceAll("<", "&lt;").replaceAll(">", "&gt;")
-                                  + "</li>";
-                              }
-                            }
+                            // The values are stored as read, they are escaped and formatted when output
 
                             //if(attrName.equals("Package Body Code")){
                             //    value = "@";
@@ -419,7 +521,7 @@ public class OraDictionary {
                                     if(attr.getName().equalsIgnoreCase(attrName)) break;
                                 }
                                 //attr.setValue(attr.getValue() + "\r\n" + value);
-                                attr.setValue(attr.getValue() + value);
+                                attr.appendValue(value);
                             } else {
                                 attr = new DatabaseAttribute(attrName, value, attrDBObject, isVisible);
                                 attr.setPreformatted(isPreformatted);
@@ -456,6 +558,12 @@ public class OraDictionary {
 
                 keyOld = key;
             }
+            if(null!=keyOld) {
+                attachDocComments((DatabaseObject) objectTree.get(keyOld));
+            }
+            if(null!=completedType && null!=keyOld) {
+                complete(objectTree, (DatabaseObject) objectTree.get(keyOld));
+            }
 
             rset.close();
             rset = null;
@@ -468,6 +576,68 @@ public class OraDictionary {
         }
     }
 
+    /**
+     * Reads the dependencies between the objects of the schema in one query
+     *
+     * @param connection
+     * @param objectTree The objects of the schema
+     * @return The dependency graph
+     */
+    protected DependencyGraph readDependencies(Connection connection, TreeMap<?, ?> objectTree) {
+        DependencyGraph graph = new DependencyGraph(objectTree);
+        String query = "SELECT ud.type, ud.name, ud.referenced_type, ud.referenced_name "
+                     + "  FROM all_dependencies ud "
+                     + " WHERE ud.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
+                     + "   AND ud.referenced_owner = '" + OraDoclet.CURRENT_SCHEMA + "'";
+        try {
+            Statement stmt = connection.createStatement();
+            stmt.setFetchSize(1000);
+            ResultSet rset = stmt.executeQuery(query);
+            while(rset.next()) {
+                graph.addEdge(graph.getNode(rset.getString(1), rset.getString(2)),
+                              graph.getNode(rset.getString(3), rset.getString(4)));
+            }
+            rset.close();
+            stmt.close();
+        } catch(SQLException sqlx) {
+            OraDoclet.writeLog(sqlx.getMessage(), OraDoclet.ERROR, "readDependencies()", sqlx);
+        }
+        graph.build();
+        return graph;
+    }
+
+    /**
+     * Reads the identifiers collected by PL/Scope for the code of the schema,
+     * the rows are aggregated as they stream
+     *
+     * @param connection
+     * @param graph The objects of the schema, numbered
+     * @return The declarations and the references of the identifiers
+     */
+    protected CrossReference readIdentifiers(Connection connection, DependencyGraph graph) {
+        CrossReference crossReference = new CrossReference(graph);
+        String query = "SELECT ui.object_type, ui.object_name, ui.usage_id, ui.usage_context_id, "
+                     + "       ui.type, ui.name, ui.usage, ui.line, ui.signature "
+                     + "  FROM all_identifiers ui "
+                     + " WHERE ui.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
+                     + " ORDER BY ui.object_type, ui.object_name, ui.usage_id";
+        try {
+            Statement stmt = connection.createStatement();
+            stmt.setFetchSize(1000);
+            ResultSet rset = stmt.executeQuery(query);
+            while(rset.next()) {
+                crossReference.add(rset.getString(1), rset.getString(2), rset.getInt(3), rset.getInt(4),
+                    rset.getString(5), rset.getString(6), rset.getString(7), rset.getInt(8), rset.getString(9));
+            }
+            rset.close();
+            stmt.close();
+        } catch(SQLException sqlx) {
+            OraDoclet.writeLog(sqlx.getMessage(), OraDoclet.ERROR, "readIdentifiers()", sqlx);
+        }
+        crossReference.build();
+        return crossReference;
+    }
+
     protected void readTableAttributes(Connection connection, TreeMap objectTree) {
         String query;
         String[] columnObjectTypes;
@@ -507,7 +677,7 @@ public class OraDictionary {
              + " WHERE b.constraint_name = a.r_constraint_name "
              + "   AND a.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
              + "   AND b.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
-             + " ORDER BY b.table_name, a.table_name ";
+             + " ORDER BY b.table_name, a.table_name, a.constraint_name ";
         columnObjectTypes = (new String[] {"TABLE", "TABLE", "CONSTRAINT"});
         readAttributes(connection, objectTree, "TABLE", null, query, columnObjectTypes, false);
     }
@@ -628,7 +798,7 @@ public class OraDictionary {
               + "  AND ucc.position IS NOT NULL "
               + "   AND ucl.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
               + "   AND ucc.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
-              + " ORDER BY \"parent_name\", \"_owner_type\", \"_owner_name\", \"_position\"  ";
+              + " ORDER BY \"parent_name\", \"_owner_type\", \"_owner_name\", \"_position\", \"Column\"  ";
         columnObjectTypes = (new String[] {"COLUMN", "TABLE", null, "INDEX", null});
         readAttributes(connection, objectTree, "COLUMN", "TABLE", query, columnObjectTypes, false);
     }
@@ -717,7 +887,7 @@ public class OraDictionary {
               + "   AND ua.package_name IS NULL "
               + "   AND ua.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
               + "   AND uo.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
-              + "   ORDER BY ua.object_name, ua.position ";
+              + "   ORDER BY ua.object_name, ua.overload, ua.position, ua.sequence ";
         columnObjectTypes = (new String[] {"FUNCTION", null, null, null, null});
         readAttributes(connection, objectTree, "FUNCTION", null, query, columnObjectTypes, false);
 
@@ -731,7 +901,7 @@ public class OraDictionary {
               + "   AND ua.package_name IS NULL "
               + "   AND ua.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
               + "   AND uo.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
-              + "   ORDER BY ua.object_name ";
+              + "   ORDER BY ua.object_name, ua.overload, ua.sequence ";
         columnObjectTypes = (new String[] {"FUNCTION", null});
         readAttributes(connection, objectTree, "FUNCTION", null, query, columnObjectTypes, false);
 
@@ -747,7 +917,12 @@ public class OraDictionary {
               + "   AND uo.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
               + " ORDER BY uo.object_name, line ";
         columnObjectTypes = (new String[] {"FUNCTION", null});
+        // The source is read last, an object is complete when its source is
+        completedType = "FUNCTION";
+        scanDocComments = true;
         readAttributes(connection, objectTree, "FUNCTION", null, query, columnObjectTypes, true);
+        scanDocComments = false;
+        completedType = null;
     }
 
     protected void readProcedureAttributes(Connection connection, TreeMap objectTree) {
@@ -767,7 +942,7 @@ public class OraDictionary {
               + "   AND ua.package_name IS NULL "
               + "   AND ua.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
               + "   AND uo.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
-              + "   ORDER BY ua.object_name, ua.position ";
+              + "   ORDER BY ua.object_name, ua.overload, ua.position, ua.sequence ";
         columnObjectTypes = (new String[] {"PROCEDURE", null, null, null, null});
         readAttributes(connection, objectTree, "PROCEDURE", null, query, columnObjectTypes, false);
 
@@ -783,13 +958,21 @@ public class OraDictionary {
               + "   AND uo.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
               + " ORDER BY uo.object_name, line ";
         columnObjectTypes = (new String[] {"PROCEDURE", null});
+        // The source is read last, an object is complete when its source is
+        completedType = "PROCEDURE";
+        scanDocComments = true;
         readAttributes(connection, objectTree, "PROCEDURE", null, query, columnObjectTypes, true);
+        scanDocComments = false;
+        completedType = null;
     }
 
     protected void readPackageAttributes(Connection connection, TreeMap objectTree) {
         String query;
         String[] columnObjectTypes;
 
+        // The members are read before the source, a package is complete once its body is read
+        readPackageMembers(connection, objectTree);
+
         query = "SELECT uo.object_name                                    \"Package\", "
               + "       us.text   \"Package Code\" "
               //+ "       us.line||LPAD(':',5 - LENGTH(us.line))||to_clob(us.text)   \"Package Code\" "
@@ -802,7 +985,10 @@ public class OraDictionary {
               + "   AND uo.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
               + " ORDER BY uo.object_name, line ";
         columnObjectTypes = (new String[] {"PACKAGE", null});
+        // The documentation comments of the specification describe the package and its members
+        scanDocComments = true;
         readAttributes(connection, objectTree, "PACKAGE", null, query, columnObjectTypes, true);
+        scanDocComments = false;
 
         query = "SELECT uo.object_name                                    \"Package\", "
               + "  us.text   \"Package Body Code\" "
@@ -816,7 +1002,158 @@ public class OraDictionary {
               + "   AND uo.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
               + " ORDER BY uo.object_name, line ";
         columnObjectTypes = (new String[] {"PACKAGE", null});
+        // The body is read last, a package is complete when its body is
+        completedType = "PACKAGE";
         readAttributes(connection, objectTree, "PACKAGE", null, query, columnObjectTypes, true);
+        completedType = null;
+    }
+
+    /**
+     * Reads the procedures and functions of all the packages of the schema,
+     * with their arguments and return types, in one query. Each overload
+     * becomes a line of the attribute matrix of its package: the member name,
+     * its kind, its arguments and what it returns.
+     *
+     * @param connection
+     * @param objectTree
+     */
+    protected void readPackageMembers(Connection connection, TreeMap<?, ?> objectTree) {
+        String query = "SELECT ua.package_name, ua.object_name, ua.subprogram_id, ua.position, "
+                     + "       ua.argument_name, ua.in_out, ua.data_type, ua.type_name, ua.type_subname, ua.defaulted "
+                     + "  FROM all_arguments ua "
+                     + " WHERE ua.owner = '" + OraDoclet.CURRENT_SCHEMA + "'"
+                     + "   AND ua.package_name IS NOT NULL "
+                     + "   AND ua.data_level = 0 "
+                     + " ORDER BY ua.package_name, ua.subprogram_id, ua.sequence";
+        try {
+            Statement stmt = connection.createStatement();
+            stmt.setFetchSize(1000);
+            ResultSet rset = stmt.executeQuery(query);
+            DatabaseObject dbobject   = null;
+            String         packageOld = null;
+            String         memberOld  = null;
+            String         member     = null;
+            List<String>   arguments  = new ArrayList<String>();
+            String         returns    = null;
+            while(rset.next()) {
+                String packageName  = rset.getString(1);
+                String memberKey    = packageName + "." + rset.getString(3);
+                if(!memberKey.equals(memberOld)) {
+                    addPackageMember(dbobject, member, arguments, returns);
+                    if(!packageName.equals(packageOld)) {
+                        dbobject   = (DatabaseObject) objectTree.get(DatabaseObject.genKey("PACKAGE", packageName));
+                        packageOld = packageName;
+                    }
+                    memberOld = memberKey;
+                    member    = rset.getString(2);
+                    arguments.clear();
+                    returns   = null;
+                }
+                String type = getArgumentType(rset.getString(7), rset.getString(8), rset.getString(9));
+                if(0 == rset.getInt(4)) {
+                    returns = type;
+                } else if(null != rset.getString(5)) {
+                    // A procedure without arguments has a single row with no argument name
+                    String argument = rset.getString(5) + " " + rset.getString(6) + " " + type;
+                    arguments.add("Y".equals(rset.getString(10)) ? argument + " DEFAULT" : argument);
+                }
+            }
+            addPackageMember(dbobject, member, arguments, returns);
+            rset.close();
+            stmt.close();
+        } catch(SQLException sqlx) {
+            OraDoclet.writeLog(sqlx.getMessage(), OraDoclet.ERROR, "readPackageMembers()", sqlx);
+        }
+    }
+
+    /**
+     * Adds the documentation comments found in the code of the object read
+     * last to its attributes: the description of the object itself and the
+     * description of each member of a package, the n-th declaration of a
+     * name documenting its n-th overload
+     *
+     * @param dbobject The object, nothing is added when it is null
+     */
+    @SuppressWarnings("unchecked")
+    private void attachDocComments(DatabaseObject dbobject) {
+        DocCommentScanner scanner = docComments;
+        docComments = null;
+        if(null == scanner || null == dbobject) {
+            return;
+        }
+        Vector<Vector<DatabaseAttribute>> attrMatrix = dbobject.getAttributeMatrix();
+        if(null != scanner.getUnitDescription()) {
+            Vector<DatabaseAttribute> attrMatrixLine = new Vector<DatabaseAttribute>();
+            attrMatrixLine.add(new DatabaseAttribute("Description", scanner.getUnitDescription(), true));
+            attrMatrix.add(attrMatrixLine);
+        }
+        List<String> names = scanner.getMemberNames();
+        if(names.isEmpty()) {
+            return;
+        }
+        // The lines of the members by name, in the order of the overloads
+        HashMap<String, List<Vector<DatabaseAttribute>>> members = new HashMap<String, List<Vector<DatabaseAttribute>>>();
+        for(int i=0; i<attrMatrix.size(); i++) {
+            Vector<DatabaseAttribute> attrMatrixLine = attrMatrix.elementAt(i);
+            if(null!=attrMatrixLine && attrMatrixLine.size() > 0
+                && attrMatrixLine.elementAt(0).getName().equals("Member")) {
+                String name = attrMatrixLine.elementAt(0).getValue().toUpperCase();
+                List<Vector<DatabaseAttribute>> overloads = members.get(name);
+                if(null == overloads) {
+                    overloads = new ArrayList<Vector<DatabaseAttribute>>();
+                    members.put(name, overloads);
+                }
+                overloads.add(attrMatrixLine);
+            }
+        }
+        for(int i=0; i<names.size(); i++) {
+            List<Vector<DatabaseAttribute>> overloads = members.get(names.get(i).toUpperCase());
+            int overload = scanner.getMemberOverloads().get(i).intValue();
+            if(null != overloads && overload < overloads.size()) {
+                overloads.get(overload).add(
+                    new DatabaseAttribute("Description", scanner.getMemberDescriptions().get(i), true));
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the type of an argument: the data type or,
+     * for a PL/SQL or an object type, the name of the type
+     */
+    private static String getArgumentType(String dataType, String typeName, String typeSubname) {
+        if(null != typeName && null != typeSubname) {
+            return typeName + "." + typeSubname;
+        }
+        if(null != typeName) {
+            return typeName;
+        }
+        return (null == dataType) ? "" : dataType;
+    }
+
+    /**
+     * Adds a line for a member to the attribute matrix of the package
+     *
+     * @param dbobject The package, nothing is added when it is null
+     * @param member The name of the procedure or the function
+     * @param arguments The arguments, each an attribute of its own
+     * @param returns The return type of a function, null for a procedure
+     */
+    @SuppressWarnings("unchecked")
+    private static void addPackageMember(DatabaseObject dbobject, String member, List<String> arguments, String returns) {
+        if(null == dbobject || null == member) {
+            return;
+        }
+        Vector<DatabaseAttribute> attrMatrixLine = new Vector<DatabaseAttribute>();
+        attrMatrixLine.add(new DatabaseAttribute("Member", member, true));
+        attrMatrixLine.add(new DatabaseAttribute("Kind", (null == returns) ? "Procedure" : "Function", true));
+        if(arguments.isEmpty()) {
+            attrMatrixLine.add(new DatabaseAttribute("Arguments", "", true));
+        }
+        for(int i=0; i<arguments.size(); i++) {
+            attrMatrixLine.add(new DatabaseAttribute("Arguments", arguments.get(i), true));
+        }
+        attrMatrixLine.add(new DatabaseAttribute("Returns", (null == returns) ? "" : returns, true));
+        dbobject.getAttributeMatrix().add(attrMatrixLine);
     }
 
     /**
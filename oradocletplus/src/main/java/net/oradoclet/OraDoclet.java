@@ -23,9 +23,8 @@
 package net.oradoclet;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.sql.Connection;
@@ -33,7 +32,11 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
+import java.util.Vector;
 
 import com.sun.javadoc.DocErrorReporter;
 import com.sun.javadoc.RootDoc;
@@ -97,6 +100,66 @@ public class OraDoclet {
      */
     private static final String OPTION_COPYRIGHT = "-copyright";
 
+    /** The command line option that makes the doclet serve the pages over HTTP on the given port instead of writing files */
+    private static final String OPTION_SERVE = "-serve";
+
+    /** The command line option that limits the size (in megabytes) of the rendered pages cached by the HTTP server */
+    private static final String OPTION_CACHE = "-cache";
+
+    /** The command line option that specifies the number of threads rendering the pages */
+    private static final String OPTION_THREADS = "-threads";
+
+    /** The command line option that makes the doclet write the pages while reading the dictionary, limiting the number of queued objects */
+    private static final String OPTION_PIPELINE = "-pipeline";
+
+    /** The command line option that specifies the number of threads writing the pages */
+    private static final String OPTION_WRITERS = "-writers";
+
+    /** The command line option that specifies the ZIP or TAR archive the pages are written into */
+    private static final String OPTION_ARCHIVE = "-archive";
+
+    /** The command line option that makes the doclet write gzip-compressed pages, only them or along with the plain ones */
+    private static final String OPTION_GZIP = "-gzip";
+
+    /** The command line option that specifies the manifest of the pages, making the doclet write only the pages changed since the previous run */
+    private static final String OPTION_INCREMENTAL = "-incremental";
+
+    /** The command line option that makes the doclet compare the pages rendered serially and by the given number of threads instead of writing them */
+    private static final String OPTION_CHECK_REPRODUCIBLE = "-checkreproducible";
+
+    /** The command line option that specifies the directory layout of the pages, flat or sharded by type and name prefix */
+    private static final String OPTION_LAYOUT = "-layout";
+
+    /** The command line option that specifies the directory keeping the versions of the documentation */
+    private static final String OPTION_HISTORY = "-history";
+
+    /** The command line option that splits the name index into a page per leading character, optionally limiting the names per page */
+    private static final String OPTION_NAME_INDEX = "-nameindex";
+
+    /** The command line option that specifies the number of rows on a page of a list or an index of objects */
+    private static final String OPTION_PAGE_SIZE = "-pagesize";
+
+    /** The command line option that specifies how the source code is rendered, a list item per line or a single text block */
+    private static final String OPTION_SOURCE = "-source";
+
+    /** The command line option that specifies the number of source lines per page, splitting longer source into pages loaded on demand */
+    private static final String OPTION_SOURCE_CHUNK = "-sourcechunk";
+
+    /** The command line option that makes the doclet write a trigram index of the source code of each schema */
+    private static final String OPTION_SOURCE_INDEX = "-sourceindex";
+
+    /** The command line option that specifies whether the names found in the source code are linked to the pages of the objects */
+    private static final String OPTION_SOURCE_LINKS = "-sourcelinks";
+
+    /** The command line option that makes the doclet read the identifiers collected by PL/Scope */
+    private static final String OPTION_PLSCOPE = "-plscope";
+
+    /** The command line option that specifies the depth of the foreign key diagram on the page of each table */
+    private static final String OPTION_ER_DEPTH = "-erdepth";
+
+    /** The command line subcommand searching the source index written by a previous run */
+    private static final String COMMAND_GREP = "-grep";
+
     /** Doclet configuration parameters */
     private static Configuration configuration = null;
 
@@ -125,6 +188,7 @@ public class OraDoclet {
      * @param parameters Command line parameters
      */
     public OraDoclet(String[] parameters) {
+        parameters = readSwitches(parameters);
         if(null != parameters) {
             // Assign the parameters depending on their presence.
             // The parameter order is predefined.
@@ -156,19 +220,47 @@ public class OraDoclet {
      */
     public static void main(String[] args) {
         try {
-            if(args.length > 0 && null != args[0]) {
+            if(args.length == 3 && COMMAND_GREP.equals(args[0])) {
+                SourceIndex.grep(args[1], args[2]);
+            } else if(args.length > 0 && null != args[0]) {
                 thisOraDoclet = new OraDoclet(args);
                 thisOraDoclet.run();
                 thisOraDoclet = null;
             } else {
                 System.out.println("OraDoclet version " + oraDocletVersion);
                 System.out.println("");
-                System.out.println("Usage:    java -jar OraDocletPlus-"+oraDocletVersion+".jar <dbconnect> [<output_directory> [<copyright_notice>]] ");
+                System.out.println("Usage:    java -jar OraDocletPlus-"+oraDocletVersion+".jar [<options>] <dbconnect> [<output_directory> [<copyright_notice> [<comma_separated_schema_list>]]] ");
                 System.out.println("");
                 System.out.println("Where the <dbconnect> has one of the following formats:");
                 System.out.println("");
                 System.out.println("    username/password@tnsname              - when connecting using SQL*Net");
                 System.out.println("    username/password@hostname:port:sid    - when connecting using a thin driver");
+                System.out.println("");
+                System.out.println("Options:");
+                System.out.println("");
+                System.out.println("    -serve <port>                          - serve the pages over HTTP, rendering them on request");
+                System.out.println("    -cache <megabytes>                     - size of the page cache of the HTTP server (default 64)");
+                System.out.println("    -threads <n>                           - number of threads rendering the pages (default: one per processor)");
+                System.out.println("    -pipeline <n>                          - write the pages while reading the dictionary, queueing up to n objects");
+                System.out.println("    -writers <n>                           - number of threads writing the pages behind the rendering (default 2, 0 to disable)");
+                System.out.println("    -archive <file>                        - write the pages into a ZIP (*.zip) or TAR archive, - for TAR to the standard output");
+                System.out.println("    -gzip only|both                        - write gzip-compressed pages (*.html.gz), only them or along with the plain ones");
+                System.out.println("    -incremental <manifest>                - write only the pages changed since the run that wrote the manifest, not with -archive");
+                System.out.println("    -checkreproducible <n>                 - compare the pages rendered serially and by n threads, write nothing");
+                System.out.println("    -layout flat|sharded                   - put the object pages into directories by type and name prefix (default flat)");
+                System.out.println("    -history <directory>                   - write each run into a dated directory, linking the pages unchanged since the previous one, not with -archive or -incremental");
+                System.out.println("    -nameindex letter|<n>                  - split the name index into a page per leading character, of at most n names");
+                System.out.println("    -pagesize <n>                          - split the lists and the indexes of the objects into pages of n rows");
+                System.out.println("    -source lines|compact                  - render the source code as a list item per line or as a single text block (default lines)");
+                System.out.println("    -sourcechunk <n>                       - split source longer than n lines into pages of n lines, loaded into the page on demand");
+                System.out.println("    -sourceindex on|off                    - write a trigram index of the source code (source-index.bin) of each schema (default off)");
+                System.out.println("    -sourcelinks on|off                    - link the names of the tables, views, packages... found in the source code to their pages (default on)");
+                System.out.println("    -plscope on|off                        - list the identifiers declared and referenced in the code, as collected by PL/Scope (default off)");
+                System.out.println("    -erdepth <n>                           - draw the tables up to n foreign keys away from each table on its page, 0 for none (default 1)");
+                System.out.println("");
+                System.out.println("          java -jar OraDocletPlus-"+oraDocletVersion+".jar -grep <source_index_file> <text>");
+                System.out.println("");
+                System.out.println("    searches the source index for the lines containing the text, regardless of the case");
             }
         } catch(Exception ex) {
             ex.printStackTrace();
@@ -191,37 +283,55 @@ public class OraDoclet {
      * The main routine of the OraDoclet application
      */
     public void run() throws IOException {
+        if(ArchivePageSink.STDOUT.equals(configuration.archive) && configuration.serverPort <= 0) {
+            // The archive goes to the standard output, the messages to the standard error
+            System.setOut(System.err);
+        }
         System.out.println("OraDoclet version " + oraDocletVersion);
         targetdir = configuration.destdirname;
 
-        HtmlWriter writer = new HtmlWriter(OraDoclet.getConfiguration(), targetdir, "index.html", "UTF-8");
-        writer.html();
-        writer.head();
-        writer.title("");
-        writer.link("rel='stylesheet' type='text/css' href='style.css'");
-        writer.headEnd();
-        writer.body(true);
+        if(configuration.serverPort > 0) {
+            serve();
+            return;
+        }
 
-        for(String schema : configuration.schemas) {
-            writer.println("<h1><a href=\"" + schema + "/index.html\">" + schema + "</a></h1>");
-            writer.br();
+        if(configuration.checkThreads > 0) {
+            // The pages are compared, not written
+            configuration.pageSink = new MemoryPageSink();
+        } else if(null != configuration.archive) {
+            configuration.pageSink = new ArchivePageSink(configuration.archive, targetdir);
+            // The entries come in the order the pages are written, a single writer keeps it
+            configuration.writers = Math.min(configuration.writers, 1);
+        } else if(null != configuration.history) {
+            // Each run is a version of its own, the destination directory is not used
+            HistoryPageSink history = new HistoryPageSink(configuration.pageSink, configuration.history,
+                HistoryPageSink.getVersionName(configuration.history));
+            configuration.pageSink = history;
+            targetdir = history.getVersionDirectory();
+        } else if(null != configuration.manifest) {
+            configuration.pageSink = new HashingPageSink(configuration.pageSink, targetdir, configuration.manifest);
         }
-        writer.hr(1, "noshade");
-        writer.println("<small>"+OraDoclet.PROJ_GEN_STR+", "
-                + " Copyright &copy; " + configuration.copyrightLabel + "</small>");
-        writer.bodyEnd();
-        writer.htmlEnd();
+
+        if(configuration.writers > 0 && configuration.checkThreads <= 0) {
+            // The pages are written behind the rendering, a few pages per writer may wait
+            configuration.pageSink = new AsyncPageSink(configuration.pageSink, configuration.writers, configuration.writers * 16);
+        }
+        if(null != configuration.gzip && configuration.checkThreads <= 0) {
+            configuration.pageSink = new GzipPageSink(configuration.pageSink, configuration.gzip.equals("both"),
+                (null != configuration.archive) ? 1 : configuration.threads);
+        }
+        if(null != configuration.archive && configuration.checkThreads <= 0) {
+            // The pages are handed over in the order of the page lists whatever the number
+            // of rendering threads, a few pages per thread wait in memory for those before them
+            configuration.pageSink = new OrderedPageSink(configuration.pageSink, configuration.threads * 4);
+        }
+
+        HtmlWriter writer = new HtmlWriter(OraDoclet.getConfiguration(), targetdir, "index.html", "UTF-8");
+        generateRootIndex(writer);
         writer.close();
         writer = null;
 
-        FileOutputStream fos = new FileOutputStream(new File(targetdir+"/style.css"));
-        InputStream is = getClass().getResourceAsStream("/net/oradoclet/style.css");
-        int r;
-        while ((r = is.read()) != -1) {
-            fos.write(r);
-        }
-        is.close();
-        fos.close();
+        configuration.pageSink.writePage(targetdir, "style.css", ByteBuffer.wrap(DocFilesetWriter.getStyleSheet()));
 
         connection = getDBConnection();
 
@@ -230,7 +340,9 @@ public class OraDoclet {
             configuration.applicationTitle = schema;
             System.out.println("Generate for schema " + schema);
             configuration.destdirname = targetdir + '/' + schema;
-            Files.createDirectories(new File(configuration.destdirname).toPath());
+            if(null == configuration.archive && configuration.checkThreads <= 0) {
+                Files.createDirectories(new File(configuration.destdirname).toPath());
+            }
 
             try {
                 generate(); // Main routine that generates the documentation files
@@ -239,6 +351,8 @@ public class OraDoclet {
             }
         }
 
+        configuration.pageSink.close();
+
         // Free the connection resource
         if(null != connection) {
             try {
@@ -251,6 +365,51 @@ public class OraDoclet {
     }
 
 
+    /**
+     * Generates the top index page listing the documented schemas
+     *
+     * @param writer The writer the page is generated into
+     */
+    protected static void generateRootIndex(HtmlWriter writer) {
+        writer.html();
+        writer.head();
+        writer.title("");
+        writer.link("rel='stylesheet' type='text/css' href='style.css'");
+        writer.headEnd();
+        writer.body(true);
+
+        for(String schema : configuration.schemas) {
+            writer.println("<h1><a href=\"" + schema + "/index.html\">" + schema + "</a></h1>");
+            writer.br();
+        }
+        writer.hr(1, "noshade");
+        writer.println("<small>"+OraDoclet.PROJ_GEN_STR+", "
+                + " Copyright &copy; " + configuration.copyrightLabel + "</small>");
+        writer.bodyEnd();
+        writer.htmlEnd();
+    }
+
+    /**
+     * Reads the object trees of all the schemas and serves the documentation
+     * over HTTP. The pages are rendered on request, no files are written.
+     * The connection remains open while the server is running.
+     */
+    protected void serve() throws IOException {
+        Map<String, TreeMap<?, ?>> objectTrees = new LinkedHashMap<String, TreeMap<?, ?>>();
+
+        connection = getDBConnection();
+        for(String schema : configuration.schemas) {
+            OraDoclet.CURRENT_SCHEMA = schema;
+            System.out.println("Read schema " + schema);
+            OraDictionary oraDict = new OraDictionary(connection);
+            objectTrees.put(schema, oraDict.buildObjectTree());
+            oraDict = null;
+        }
+
+        DocServer server = new DocServer(connection, configuration, objectTrees);
+        server.start();
+    }
+
     /**
      * The entry point when calling as a doclet
      * (like <b>javadoc -doclet net.oradoclet.OraDoclet _sourcepath_\*.java</b> )
@@ -298,9 +457,207 @@ public class OraDoclet {
         if (option.equals(OPTION_COPYRIGHT)) {
             return 2;
         }
+        if (option.equals(OPTION_SERVE)) {
+            return 2;
+        }
+        if (option.equals(OPTION_CACHE)) {
+            return 2;
+        }
+        if (option.equals(OPTION_THREADS)) {
+            return 2;
+        }
+        if (option.equals(OPTION_PIPELINE)) {
+            return 2;
+        }
+        if (option.equals(OPTION_WRITERS)) {
+            return 2;
+        }
+        if (option.equals(OPTION_ARCHIVE)) {
+            return 2;
+        }
+        if (option.equals(OPTION_GZIP)) {
+            return 2;
+        }
+        if (option.equals(OPTION_INCREMENTAL)) {
+            return 2;
+        }
+        if (option.equals(OPTION_CHECK_REPRODUCIBLE)) {
+            return 2;
+        }
+        if (option.equals(OPTION_LAYOUT)) {
+            return 2;
+        }
+        if (option.equals(OPTION_HISTORY)) {
+            return 2;
+        }
+        if (option.equals(OPTION_NAME_INDEX)) {
+            return 2;
+        }
+        if (option.equals(OPTION_PAGE_SIZE)) {
+            return 2;
+        }
+        if (option.equals(OPTION_SOURCE)) {
+            return 2;
+        }
+        if (option.equals(OPTION_SOURCE_CHUNK)) {
+            return 2;
+        }
+        if (option.equals(OPTION_SOURCE_INDEX)) {
+            return 2;
+        }
+        if (option.equals(OPTION_SOURCE_LINKS)) {
+            return 2;
+        }
+        if (option.equals(OPTION_PLSCOPE)) {
+            return 2;
+        }
+        if (option.equals(OPTION_ER_DEPTH)) {
+            return 2;
+        }
         return 0;
     }
 
+    /**
+     * Assigns the value of a generation option to the configuration.
+     * The options are common to the command line and the doclet call.
+     *
+     * @param config OraDoclet configuration settings structure
+     * @param option The option name
+     * @param value The option value
+     * @return True if the option is known, false otherwise
+     */
+    protected static boolean readOption(Configuration config, String option, String value) {
+        if (option.equals(OPTION_SERVE)) {
+            config.serverPort = Integer.parseInt(value);
+            return true;
+        }
+        if (option.equals(OPTION_CACHE)) {
+            config.serverCacheSize = Integer.parseInt(value);
+            return true;
+        }
+        if (option.equals(OPTION_THREADS)) {
+            config.threads = Math.max(1, Integer.parseInt(value));
+            return true;
+        }
+        if (option.equals(OPTION_PIPELINE)) {
+            config.pipeline = Math.max(0, Integer.parseInt(value));
+            return true;
+        }
+        if (option.equals(OPTION_WRITERS)) {
+            config.writers = Math.max(0, Integer.parseInt(value));
+            return true;
+        }
+        if (option.equals(OPTION_ARCHIVE)) {
+            config.archive = value;
+            return true;
+        }
+        if (option.equals(OPTION_GZIP)) {
+            if(!value.equals("only") && !value.equals("both")) {
+                throw new IllegalArgumentException(OPTION_GZIP + " expects 'only' or 'both': " + value);
+            }
+            config.gzip = value;
+            return true;
+        }
+        if (option.equals(OPTION_INCREMENTAL)) {
+            config.manifest = value;
+            return true;
+        }
+        if (option.equals(OPTION_CHECK_REPRODUCIBLE)) {
+            config.checkThreads = Math.max(2, Integer.parseInt(value));
+            return true;
+        }
+        if (option.equals(OPTION_LAYOUT)) {
+            if(!value.equals("flat") && !value.equals("sharded")) {
+                throw new IllegalArgumentException(OPTION_LAYOUT + " expects 'flat' or 'sharded': " + value);
+            }
+            config.sharded = value.equals("sharded");
+            return true;
+        }
+        if (option.equals(OPTION_HISTORY)) {
+            config.history = value;
+            return true;
+        }
+        if (option.equals(OPTION_NAME_INDEX)) {
+            config.nameIndexBucket = value.equals("letter") ? 0 : Math.max(1, Integer.parseInt(value));
+            return true;
+        }
+        if (option.equals(OPTION_PAGE_SIZE)) {
+            config.pageSize = Math.max(0, Integer.parseInt(value));
+            return true;
+        }
+        if (option.equals(OPTION_SOURCE)) {
+            if(!value.equals("lines") && !value.equals("compact")) {
+                throw new IllegalArgumentException(OPTION_SOURCE + " expects 'lines' or 'compact': " + value);
+            }
+            config.compactSource = value.equals("compact");
+            return true;
+        }
+        if (option.equals(OPTION_SOURCE_CHUNK)) {
+            config.sourceChunk = Math.max(0, Integer.parseInt(value));
+            return true;
+        }
+        if (option.equals(OPTION_SOURCE_INDEX)) {
+            if(!value.equals("on") && !value.equals("off")) {
+                throw new IllegalArgumentException(OPTION_SOURCE_INDEX + " expects 'on' or 'off': " + value);
+            }
+            config.sourceIndex = value.equals("on");
+            return true;
+        }
+        if (option.equals(OPTION_SOURCE_LINKS)) {
+            if(!value.equals("on") && !value.equals("off")) {
+                throw new IllegalArgumentException(OPTION_SOURCE_LINKS + " expects 'on' or 'off': " + value);
+            }
+            config.sourceLinks = value.equals("on");
+            return true;
+        }
+        if (option.equals(OPTION_PLSCOPE)) {
+            if(!value.equals("on") && !value.equals("off")) {
+                throw new IllegalArgumentException(OPTION_PLSCOPE + " expects 'on' or 'off': " + value);
+            }
+            config.plscope = value.equals("on");
+            return true;
+        }
+        if (option.equals(OPTION_ER_DEPTH)) {
+            config.erDepth = Math.max(0, Integer.parseInt(value));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Assigns the options found in the command line to the configuration
+     * and returns the remaining positional parameters.
+     *
+     * @param parameters Command line parameters
+     * @return parameters without the options
+     */
+    private static String[] readSwitches(String[] parameters) {
+        if(null == parameters) {
+            return null;
+        }
+        List<String> positional = new Vector<String>();
+        for(int i = 0; i < parameters.length; i++) {
+            if(null != parameters[i] && optionLength(parameters[i]) == 2 && i + 1 < parameters.length
+                && readOption(configuration, parameters[i], parameters[i + 1])) {
+                i++;
+            } else {
+                positional.add(parameters[i]);
+            }
+        }
+        // The pages written into an archive are not compared with the files of a previous run
+        if(null != configuration.manifest && null != configuration.archive) {
+            throw new IllegalArgumentException(OPTION_INCREMENTAL + " cannot be combined with " + OPTION_ARCHIVE);
+        }
+        // The history keeps the hashes of its versions itself and writes the pages into a directory
+        if(null != configuration.history && null != configuration.archive) {
+            throw new IllegalArgumentException(OPTION_HISTORY + " cannot be combined with " + OPTION_ARCHIVE);
+        }
+        if(null != configuration.history && null != configuration.manifest) {
+            throw new IllegalArgumentException(OPTION_HISTORY + " cannot be combined with " + OPTION_INCREMENTAL);
+        }
+        return positional.toArray(new String[positional.size()]);
+    }
+
 
     /**
      * The method is an optional method that can be used to test the validity
@@ -383,6 +740,13 @@ public class OraDoclet {
         config.destdirname = readOptions(root.options(), OPTION_DESTDIR);
         // The copyright notice text
         config.copyrightLabel = readOptions(root.options(), OPTION_COPYRIGHT);
+        // Further generation options
+        String[][] options = root.options();
+        for (int i = 0; i < options.length; i++) {
+            if (options[i].length == 2) {
+                readOption(config, options[i][0], options[i][1]);
+            }
+        }
     }
 
     /**
@@ -485,7 +849,50 @@ public class OraDoclet {
      */
     protected void generate() throws Exception {
         OraDictionary oraDict = new OraDictionary(getDBConnection());
-        TreeMap objectTree = oraDict.buildObjectTree();
+        SourceIndex sourceIndex = (configuration.sourceIndex && configuration.checkThreads <= 0) ? new SourceIndex() : null;
+        PagePipeline pipeline = null;
+        Connection pipelineConnection = null;
+        if(configuration.pipeline > 0 && configuration.checkThreads <= 0) {
+            // The object pages are written while the dictionary is read, on a second
+            // session since the first one is busy reading the dictionary
+            pipelineConnection = getDBConnection(this.dbconnect);
+            if(null == pipelineConnection) {
+                writeLog("No second connection for the pipeline, the pages are written after reading the dictionary",
+                    WARNING, "generate()", null);
+            } else {
+                pipeline = new PagePipeline(pipelineConnection, configuration.threads, configuration.pipeline);
+                // The source is indexed before the pipeline drops it
+                pipeline.setSourceIndex(sourceIndex);
+                oraDict.setListener(pipeline);
+                pipeline.start();
+            }
+        }
+        TreeMap<?, ?> objectTree = null;
+        try {
+            objectTree = oraDict.buildObjectTree();
+            if(null != pipeline) {
+                pipeline.finish();
+            }
+        } finally {
+            if(null != pipelineConnection) {
+                try {
+                    pipelineConnection.close();
+                } catch(SQLException ex) {
+                    writeLog("SQL error: " + ex.getMessage(), WARNING, "generate()", ex);
+                }
+            }
+        }
+
+        if(configuration.checkThreads > 0) {
+            checkReproducible(objectTree);
+            return;
+        }
+
+        if(null != sourceIndex) {
+            sourceIndex.addAll(objectTree);
+            configuration.pageSink.writePage(configuration.destdirname, SourceIndex.FILE_NAME, ByteBuffer.wrap(sourceIndex.build()));
+            sourceIndex = null;
+        }
 
         // Test output of the object tree
         Iterator it = objectTree.values().iterator();
@@ -494,51 +901,54 @@ public class OraDoclet {
         }
 
         // Begin the file generation
-        // Create a documentation index file and other related files
-        DocFilesetWriter docFilesetWriter = new DocFilesetWriter(getDBConnection(), objectTree);
-        docFilesetWriter.generate();
-        docFilesetWriter = null;
-
-        // Tables
-        DatabaseObject dbobject = null;
-        it = objectTree.values().iterator();
-        while(it.hasNext()) {
-            dbobject = (DatabaseObject)it.next();
-            if(dbobject.getObjectType().equalsIgnoreCase("TABLE")) {
-                ObjectWriter tableWriter = new ObjectWriter(getDBConnection(), objectTree, dbobject, null);
-                tableWriter.generate();
-                tableWriter.close(); // Important, otherwise the writing efforts get lost
-                tableWriter = null;
-            }
-            if(dbobject.getObjectType().equalsIgnoreCase("VIEW")) {
-                ObjectWriter viewWriter = new ViewWriter(getDBConnection(), objectTree, dbobject);
-                viewWriter.generate();
-                viewWriter.close(); // Important, otherwise the writing efforts get lost
-                viewWriter = null;
-            }
-            if(dbobject.getObjectType().equalsIgnoreCase("PROCEDURE")) {
-                ObjectWriter procedureWriter = new ProcedureWriter(getDBConnection(), objectTree, dbobject);
-                procedureWriter.generate();
-                procedureWriter.close(); // Important, otherwise the writing efforts get lost
-                procedureWriter = null;
-            }
-            if(dbobject.getObjectType().equalsIgnoreCase("FUNCTION")) {
-                ObjectWriter procedureWriter = new FunctionWriter(getDBConnection(), objectTree, dbobject);
-                procedureWriter.generate();
-                procedureWriter.close(); // Important, otherwise the writing efforts get lost
-                procedureWriter = null;
-            }
-            if(dbobject.getObjectType().equalsIgnoreCase("PACKAGE")) {
-                ObjectWriter packageWriter = new PackageWriter(getDBConnection(), objectTree, dbobject);
-                packageWriter.generate();
-                packageWriter.close(); // Important, otherwise the writing efforts get lost
-                packageWriter = null;
-            }
-
-            dbobject = null;
-        }
+        // The documentation index file and other related files as well as the pages
+        // of the tables, views, procedures, functions and packages (unless already written)
+        // are rendered in parallel
+        PageRenderer renderer = new PageRenderer(getDBConnection(), objectTree, null == pipeline);
+        renderer.render(configuration.threads);
+        renderer = null;
         it = null;
         objectTree = null;
         oraDict = null;
     }
+
+    /**
+     * Renders the documentation of the current schema serially and in parallel
+     * and compares the pages byte for byte. Nothing is written.
+     *
+     * @param objectTree The object tree of the schema
+     * @return Number of pages which differ
+     */
+    protected int checkReproducible(TreeMap<?, ?> objectTree) throws IOException {
+        PageSink       sink     = configuration.pageSink;
+        MemoryPageSink serial   = new MemoryPageSink();
+        MemoryPageSink parallel = new MemoryPageSink();
+        try {
+            configuration.pageSink = serial;
+            new PageRenderer(getDBConnection(), objectTree).render(1);
+            configuration.pageSink = parallel;
+            new PageRenderer(getDBConnection(), objectTree).render(configuration.checkThreads);
+        } finally {
+            configuration.pageSink = sink;
+        }
+
+        int differences = 0;
+        List<String> serialNames = serial.getPageNames();
+        if(!serialNames.equals(parallel.getPageNames())) {
+            writeLog("The serial and the parallel rendering produced different pages", ERROR, "checkReproducible()", null);
+            differences++;
+        }
+        for(int i=0; i<serialNames.size(); i++) {
+            String name = serialNames.get(i);
+            if(!Arrays.equals(serial.getPage(name), parallel.getPage(name))) {
+                writeLog("The page " + name + " differs between the serial and the parallel rendering", ERROR, "checkReproducible()", null);
+                differences++;
+            }
+        }
+        if(0 == differences) {
+            writeLog(serialNames.size() + " pages of " + CURRENT_SCHEMA + " are identical when rendered serially and by "
+                + configuration.checkThreads + " threads", INFO, "checkReproducible()", null);
+        }
+        return differences;
+    }
 }
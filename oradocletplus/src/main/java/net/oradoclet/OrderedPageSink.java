@@ -0,0 +1,189 @@
+/*
+ * OrderedPageSink.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands the pages over to the underlying sink in the order of the page
+ * list, whatever the number of threads rendering them. The renderer
+ * reserves a number per page of its list, the rendering thread begins the
+ * slot of that number before writing the page and ends it afterwards.
+ *
+ * The pages of the first slot not ended are written through at once, the
+ * pages of the further slots are kept in memory until the slots before them
+ * are ended. A thread beginning a slot too far ahead of the first one waits,
+ * so the pages kept in memory stay few.
+ *
+ * Pages written by a thread outside of a slot go straight through.
+ */
+public class OrderedPageSink implements PageSink {
+    private final PageSink sink;
+
+    /** Number of slots which may be begun ahead of the first slot not ended, including it */
+    private final int      window;
+
+    /** Number of the next slot to reserve */
+    private int            reserved = 0;
+
+    /** Number of the first slot not ended, the pages of the slots before it are written */
+    private int            released = 0;
+
+    /** The slots begun and not handed over yet, by number */
+    private final Map<Integer, Slot> slots = new HashMap<Integer, Slot>();
+
+    /** The slot of the current thread */
+    private final ThreadLocal<Slot> current = new ThreadLocal<Slot>();
+
+    /**
+     * @param sink The sink the pages are written into, in order
+     * @param window Number of slots which may be begun ahead of the first slot not ended
+     */
+    public OrderedPageSink(PageSink sink, int window) {
+        this.sink   = sink;
+        this.window = Math.max(1, window);
+    }
+
+    /**
+     * Reserves the numbers of the given number of pages, in the order they are written
+     *
+     * @param pages Number of pages
+     * @return The number of the first page
+     */
+    public synchronized int reserve(int pages) {
+        int first = reserved;
+        reserved += pages;
+        return first;
+    }
+
+    /**
+     * Begins the slot of a reserved number in the current thread,
+     * waits while it is too far ahead of the first slot not ended
+     *
+     * @param number The number of the page
+     * @throws IOException When interrupted
+     */
+    public synchronized void begin(int number) throws IOException {
+        while(number >= released + window) {
+            try {
+                wait();
+            } catch(InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for page " + released);
+            }
+        }
+        Slot slot = new Slot(number);
+        slots.put(Integer.valueOf(number), slot);
+        current.set(slot);
+    }
+
+    /**
+     * Ends the slot of the current thread, writes the pages
+     * of the slots which come next and are ended already
+     *
+     * @throws IOException
+     */
+    public synchronized void end() throws IOException {
+        Slot slot = current.get();
+        current.remove();
+        if(null == slot) {
+            return;
+        }
+        slot.ended = true;
+        // A page failing to be written does not hold up the following ones
+        IOException failure = null;
+        while(null != (slot = slots.get(Integer.valueOf(released)))) {
+            // The first slot not ended has its pages written so far, then writes the others through
+            try {
+                slot.flush();
+            } catch(IOException iox) {
+                if(null == failure) {
+                    failure = iox;
+                }
+            }
+            if(!slot.ended) {
+                break;
+            }
+            slots.remove(Integer.valueOf(released));
+            released++;
+        }
+        notifyAll();
+        if(null != failure) {
+            throw failure;
+        }
+    }
+
+    public void writePage(String dirname, String filename, ByteBuffer page) throws IOException {
+        Slot slot = current.get();
+        if(null == slot) {
+            sink.writePage(dirname, filename, page);
+            return;
+        }
+        synchronized(this) {
+            if(slot.number == released) {
+                sink.writePage(dirname, filename, page);
+            } else {
+                slot.add(dirname, filename, page);
+            }
+        }
+    }
+
+    public void close() throws IOException {
+        sink.close();
+    }
+
+    /**
+     * The pages written for a page of the list, until they can be handed over
+     */
+    private class Slot {
+        final int          number;
+        final List<Object[]> pages = new ArrayList<Object[]>();
+        boolean            ended   = false;
+
+        Slot(int number) {
+            this.number = number;
+        }
+
+        void add(String dirname, String filename, ByteBuffer page) {
+            byte[] bytes = new byte[page.remaining()];
+            page.get(bytes);
+            pages.add(new Object[] {dirname, filename, bytes});
+        }
+
+        void flush() throws IOException {
+            try {
+                for(int i=0; i<pages.size(); i++) {
+                    Object[] entry = pages.get(i);
+                    sink.writePage((String) entry[0], (String) entry[1], ByteBuffer.wrap((byte[]) entry[2]));
+                }
+            } finally {
+                pages.clear();
+            }
+        }
+    }
+}
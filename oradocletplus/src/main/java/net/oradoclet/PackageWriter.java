@@ -47,6 +47,25 @@ public class PackageWriter extends ObjectWriter {
         throws IOException {
         super(dbconnection, objectTree, dbobject, getSections());
     }
+
+    /**
+     * Creates a writer that hands the page over to the given
+     * page sink instead of the one of the configuration.
+     * 
+     * @param dbconnection
+     * @param objectTree
+     * @param dbobject
+     * @param sink
+     * @throws IOException
+     */
+    public PackageWriter(
+        Connection dbconnection,
+        TreeMap<?, ?> objectTree,
+        DatabaseObject dbobject,
+        PageSink sink)
+        throws IOException {
+        super(dbconnection, objectTree, dbobject, getSections(), sink);
+    }
     
     /**
      * The method returns the array of sections.
@@ -56,7 +75,9 @@ public class PackageWriter extends ObjectWriter {
      */
     protected static ObjectWriterSection[] getSections() {
         ObjectWriterSection[] s = 
-            {new ObjectWriterSection("Package Source",      "Package Code", true, false),
+            {new ObjectWriterSection("Description",         "Description", false, false),
+             new ObjectWriterSection("Members",             "Member", true, false),
+             new ObjectWriterSection("Package Source",      "Package Code", true, false),
              new ObjectWriterSection("Package Body Source", "Package Body Code", true, false)
             };
 
@@ -0,0 +1,233 @@
+/*
+ * PageBuffer.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+
+/**
+ * Collects a whole page in memory. The characters written are encoded
+ * into a byte buffer, which is handed over to the page sink in one piece
+ * when the page is complete.
+ *
+ * The buffer is not synchronized, a page is always written by one thread.
+ * The buffers are reused by the pages subsequently written by the same thread.
+ */
+public class PageBuffer extends Writer {
+    /** Size of the character buffer, the characters are encoded each time it is full */
+    private static final int CHAR_BUFFER_SIZE = 32 * 1024;
+
+    /** Initial size of the byte buffer, it grows up to the largest page written */
+    private static final int BYTE_BUFFER_SIZE = 256 * 1024;
+
+    /** Buffers larger than this are not kept for reuse */
+    private static final int MAX_REUSED_SIZE = 16 * 1024 * 1024;
+
+    /** The buffer released by the last page written by the thread */
+    private static final ThreadLocal<PageBuffer> released = new ThreadLocal<PageBuffer>();
+
+    private final char[]   chars = new char[CHAR_BUFFER_SIZE];
+    private int            count = 0;
+    private CharBuffer     charBuffer = CharBuffer.wrap(chars);
+    private ByteBuffer     bytes = ByteBuffer.allocate(BYTE_BUFFER_SIZE);
+    private CharsetEncoder encoder = null;
+
+    private PageBuffer() {
+        super();
+    }
+
+    /**
+     * Returns an empty buffer for a new page, reusing the one
+     * released by the current thread if available.
+     *
+     * @param encoding Encoding of the page, the platform encoding is used if null
+     * @return buffer
+     * @throws UnsupportedEncodingException
+     */
+    public static PageBuffer acquire(String encoding) throws UnsupportedEncodingException {
+        Charset charset = null;
+        try {
+            charset = (null == encoding) ? Charset.defaultCharset() : Charset.forName(encoding);
+        } catch(IllegalCharsetNameException ex) {
+            throw new UnsupportedEncodingException(encoding);
+        } catch(UnsupportedCharsetException ex) {
+            throw new UnsupportedEncodingException(encoding);
+        }
+
+        PageBuffer buffer = released.get();
+        if(null == buffer) {
+            buffer = new PageBuffer();
+        } else {
+            released.set(null);
+        }
+        buffer.reset(charset);
+        return buffer;
+    }
+
+    /**
+     * Returns the buffer for reuse by the next page of the current thread.
+     * The buffer must not be used afterwards.
+     */
+    public static void release(PageBuffer buffer) {
+        if(null != buffer && buffer.bytes.capacity() <= MAX_REUSED_SIZE) {
+            released.set(buffer);
+        }
+    }
+
+    private void reset(Charset charset) {
+        if(null == encoder || !encoder.charset().equals(charset)) {
+            encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        } else {
+            encoder.reset();
+        }
+        count = 0;
+        bytes.clear();
+    }
+
+    public void write(int c) {
+        if(count == chars.length) {
+            encode(false);
+        }
+        chars[count++] = (char) c;
+    }
+
+    public void write(char[] cbuf, int off, int len) {
+        while(len > 0) {
+            if(count == chars.length) {
+                encode(false);
+            }
+            int n = Math.min(len, chars.length - count);
+            System.arraycopy(cbuf, off, chars, count, n);
+            count += n;
+            off   += n;
+            len   -= n;
+        }
+    }
+
+    public void write(String str, int off, int len) {
+        while(len > 0) {
+            if(count == chars.length) {
+                encode(false);
+            }
+            int n = Math.min(len, chars.length - count);
+            str.getChars(off, off + n, chars, count);
+            count += n;
+            off   += n;
+            len   -= n;
+        }
+    }
+
+    /**
+     * Appends already encoded bytes to the page, after the characters written so far
+     *
+     * @param fragment The bytes, encoded in the encoding of the page
+     */
+    public void writeBytes(byte[] fragment) {
+        encode(false);
+        while(bytes.remaining() < fragment.length) {
+            grow();
+        }
+        bytes.put(fragment);
+    }
+
+    /**
+     * @return The charset the page is encoded with
+     */
+    public Charset getCharset() {
+        return encoder.charset();
+    }
+
+    /**
+     * The page is written when complete, there is nothing to flush
+     */
+    public void flush() {
+        // Do nothing
+    }
+
+    public void close() {
+        // Do nothing, the buffer is released by the owner
+    }
+
+    /**
+     * Returns the size of the page written so far, in bytes
+     * (not counting the characters not yet encoded)
+     */
+    public int size() {
+        return bytes.position();
+    }
+
+    /**
+     * Completes the page.
+     *
+     * @return The encoded page, ready to be read. The buffer is valid until the next page is started.
+     */
+    public ByteBuffer finish() {
+        encode(true);
+        while(encoder.flush(bytes).isOverflow()) {
+            grow();
+        }
+        bytes.flip();
+        return bytes;
+    }
+
+    /**
+     * Encodes the buffered characters into the byte buffer.
+     * An incomplete surrogate pair at the end of the buffer
+     * is kept until the rest of it is written.
+     */
+    private void encode(boolean endOfInput) {
+        charBuffer.limit(count);
+        charBuffer.position(0);
+        for(;;) {
+            CoderResult result = encoder.encode(charBuffer, bytes, endOfInput);
+            if(result.isOverflow()) {
+                grow();
+            } else {
+                break;
+            }
+        }
+        int remaining = charBuffer.remaining();
+        if(remaining > 0) {
+            System.arraycopy(chars, charBuffer.position(), chars, 0, remaining);
+        }
+        count = remaining;
+        charBuffer.clear();
+    }
+
+    private void grow() {
+        ByteBuffer larger = ByteBuffer.allocate(bytes.capacity() * 2);
+        bytes.flip();
+        larger.put(bytes);
+        bytes = larger;
+    }
+}
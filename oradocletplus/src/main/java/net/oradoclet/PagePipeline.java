@@ -0,0 +1,212 @@
+/*
+ * PagePipeline.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes the object pages while the dictionary is still being read.
+ * The objects are queued as soon as the dictionary reports them complete
+ * and are rendered by the worker threads. The queue is bounded: when the
+ * workers fall behind, the reading waits until there is room in the queue.
+ *
+ * The attributes of the stored procedures, functions and packages (mostly
+ * their source) are dropped once their page is written, the other pages
+ * do not need them.
+ *
+ * The pages query the dictionary through a connection of their own: the
+ * connection the dictionary is read from is busy with its result sets.
+ *
+ * Into an OrderedPageSink the pages are written in the order the objects
+ * are complete, whatever the number of workers.
+ */
+public class PagePipeline implements DictionaryListener {
+    /** Marks the end of the queue for a worker */
+    private static final Object[] END = new Object[0];
+
+    private Connection              dbconnection = null;
+    private BlockingQueue<Object[]> queue        = null;
+    private Thread[]                workers      = null;
+
+    /** The first failure of a page, reported once all pages are done */
+    private IOException   failure      = null;
+
+    /** Number of pages written */
+    private int           pageCount    = 0;
+
+    /** The index the source is added to as the objects are complete, none if null */
+    private SourceIndex   sourceIndex  = null;
+
+    /**
+     * @param dbconnection Connection used by the pages querying the dictionary,
+     *                     not the one the dictionary is read from
+     * @param threads Number of worker threads
+     * @param capacity Number of objects which may wait for their page to be rendered
+     */
+    public PagePipeline(Connection dbconnection, int threads, int capacity) {
+        this.dbconnection = dbconnection;
+        this.queue        = new ArrayBlockingQueue<Object[]>(Math.max(1, capacity));
+        this.workers      = new Thread[Math.max(1, threads)];
+    }
+
+    /**
+     * Sets the index the source of each object is added to before its page is written
+     *
+     * @param newSourceIndex index or null
+     */
+    public void setSourceIndex(SourceIndex newSourceIndex) {
+        sourceIndex = newSourceIndex;
+    }
+
+    /**
+     * Starts the worker threads
+     */
+    public void start() {
+        for(int i=0; i<workers.length; i++) {
+            workers[i] = new Thread(new Runnable() {
+                public void run() {
+                    work();
+                }
+            }, "oradoclet-render-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Queues the page of the object, waits while the queue is full
+     */
+    public void objectComplete(TreeMap<?, ?> objectTree, DatabaseObject dbobject) {
+        if(null != sourceIndex) {
+            sourceIndex.add(dbobject);
+        }
+        if(!ObjectWriter.hasPage(dbobject)) {
+            return;
+        }
+        PageSink sink = OraDoclet.getConfiguration().pageSink;
+        Integer number = (sink instanceof OrderedPageSink) ? Integer.valueOf(((OrderedPageSink) sink).reserve(1)) : null;
+        try {
+            queue.put(new Object[] {objectTree, dbobject, number});
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits until all the queued pages are written
+     *
+     * @return Number of pages written
+     * @throws IOException The first error occured
+     */
+    public int finish() throws IOException {
+        try {
+            for(int i=0; i<workers.length; i++) {
+                queue.put(END);
+            }
+            for(int i=0; i<workers.length; i++) {
+                workers[i].join();
+            }
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the pages");
+        }
+        if(null != failure) {
+            throw failure;
+        }
+        return pageCount;
+    }
+
+    private void work() {
+        try {
+            for(;;) {
+                Object[] entry = queue.take();
+                if(END == entry) {
+                    return;
+                }
+                if(null == entry[2]) {
+                    renderPage((TreeMap<?, ?>) entry[0], (DatabaseObject) entry[1]);
+                } else {
+                    renderPage((TreeMap<?, ?>) entry[0], (DatabaseObject) entry[1], ((Integer) entry[2]).intValue());
+                }
+            }
+        } catch(InterruptedException ex) {
+            // Stop working
+        }
+    }
+
+    /**
+     * Renders the page of a single object in the slot of the given number of the sink
+     */
+    protected void renderPage(TreeMap<?, ?> objectTree, DatabaseObject dbobject, int number) {
+        OrderedPageSink sink = (OrderedPageSink) OraDoclet.getConfiguration().pageSink;
+        try {
+            sink.begin(number);
+            try {
+                renderPage(objectTree, dbobject);
+            } finally {
+                sink.end();
+            }
+        } catch(IOException iox) {
+            synchronized(this) {
+                if(null == failure) {
+                    failure = iox;
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders the page of a single object
+     */
+    protected void renderPage(TreeMap<?, ?> objectTree, DatabaseObject dbobject) {
+        try {
+            ObjectWriter objectWriter = ObjectWriter.getObjectWriter(dbconnection, objectTree,
+                dbobject, OraDoclet.getConfiguration().pageSink);
+            objectWriter.generate();
+            objectWriter.close(); // Important, otherwise the writing efforts get lost
+
+            String objectType = dbobject.getObjectType();
+            if(objectType.equalsIgnoreCase("PROCEDURE")
+                || objectType.equalsIgnoreCase("FUNCTION")
+                || objectType.equalsIgnoreCase("PACKAGE")) {
+                dbobject.getAttributeMatrix().clear();
+            }
+            synchronized(this) {
+                pageCount++;
+            }
+        } catch(IOException iox) {
+            synchronized(this) {
+                if(null == failure) {
+                    failure = iox;
+                }
+            }
+        } catch(RuntimeException ex) {
+            OraDoclet.writeLog("Failed to write the page of " + dbobject.getObjectName() + ": " + ex.getMessage(),
+                OraDoclet.ERROR, "renderPage()", ex);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * PageRenderer.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders the documentation of a schema: the fileset pages (index, list
+ * and navigation pages) and the page of each table, view, procedure,
+ * function and package. The pages are independent of each other and are
+ * rendered by a pool of worker threads.
+ *
+ * The object tree is complete when the rendering starts and is only read
+ * by the writers, each page is collected in a buffer of its own and is
+ * handed over to the page sink as a whole. The contents of a page do not
+ * depend on the number of threads nor on the order the pages are rendered in.
+ * Into an OrderedPageSink the pages are written in the order of the list:
+ * the threads take the pages one after another, and the sink keeps the pages
+ * rendered ahead until those before them are written.
+ */
+public class PageRenderer {
+    /** Pages rendered by a task without splitting it further */
+    private static final int PAGES_PER_TASK = 4;
+
+    private Connection       dbconnection = null;
+    private TreeMap<?, ?>    objectTree   = null;
+    private DocFilesetWriter filesetWriter = null;
+
+    /** The pages to render: names of the fileset pages and the objects having a page */
+    private List<Object>     pages        = null;
+
+    /** The first failure of a page, reported once all pages are done */
+    private IOException      failure      = null;
+
+    public PageRenderer(Connection dbconnection, TreeMap<?, ?> objectTree) throws IOException {
+        this(dbconnection, objectTree, true);
+    }
+
+    /**
+     * @param dbconnection
+     * @param objectTree
+     * @param objectPages Whether the pages of the objects are rendered too, or only the fileset pages
+     * @throws IOException
+     */
+    public PageRenderer(Connection dbconnection, TreeMap<?, ?> objectTree, boolean objectPages) throws IOException {
+        this.dbconnection  = dbconnection;
+        this.objectTree    = objectTree;
+        this.filesetWriter = new DocFilesetWriter(dbconnection, objectTree);
+        this.pages         = new Vector<Object>(filesetWriter.getPageNames());
+
+        Iterator<?> it = objectTree.values().iterator();
+        while(objectPages && it.hasNext()) {
+            DatabaseObject dbobject = (DatabaseObject) it.next();
+            if(ObjectWriter.hasPage(dbobject)) {
+                pages.add(dbobject);
+            }
+        }
+    }
+
+    /**
+     * Renders all the pages
+     *
+     * @param threads Number of worker threads, the pages are rendered by the calling thread if 1
+     * @throws IOException The first error occured
+     */
+    public void render(int threads) throws IOException {
+        filesetWriter.writeCSS(OraDoclet.getConfiguration().destdirname);
+
+        PageSink sink = OraDoclet.getConfiguration().pageSink;
+        if(threads <= 1) {
+            for(int i=0; i<pages.size(); i++) {
+                renderPage(pages.get(i));
+            }
+        } else if(sink instanceof OrderedPageSink) {
+            renderInOrder((OrderedPageSink) sink, threads);
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                pool.invoke(new RenderTask(0, pages.size()));
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        if(null != failure) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Renders the pages by worker threads taking them in the order of the list
+     *
+     * @param sink The sink handing over the pages in the order of their numbers
+     * @param threads Number of worker threads
+     * @throws IOException When interrupted
+     */
+    private void renderInOrder(final OrderedPageSink sink, int threads) throws IOException {
+        final int first = sink.reserve(pages.size());
+        final AtomicInteger next = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        for(int i=0; i<workers.length; i++) {
+            workers[i] = new Thread(new Runnable() {
+                public void run() {
+                    int page;
+                    while((page = next.getAndIncrement()) < pages.size()) {
+                        renderPage(sink, first + page, pages.get(page));
+                    }
+                }
+            }, "oradoclet-render-" + (i + 1));
+            workers[i].start();
+        }
+        try {
+            for(int i=0; i<workers.length; i++) {
+                workers[i].join();
+            }
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering the pages");
+        }
+    }
+
+    /**
+     * Renders a single page in the slot of the given number of the sink
+     */
+    private void renderPage(OrderedPageSink sink, int number, Object page) {
+        try {
+            sink.begin(number);
+            try {
+                renderPage(page);
+            } finally {
+                sink.end();
+            }
+        } catch(IOException iox) {
+            synchronized(this) {
+                if(null == failure) {
+                    failure = iox;
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders a single page
+     *
+     * @param page Name of a fileset page or an object having a page
+     */
+    protected void renderPage(Object page) {
+        try {
+            if(page instanceof String) {
+                filesetWriter.generatePage((String) page);
+            } else {
+                ObjectWriter objectWriter = ObjectWriter.getObjectWriter(dbconnection, objectTree,
+                    (DatabaseObject) page, OraDoclet.getConfiguration().pageSink);
+                objectWriter.generate();
+                objectWriter.close(); // Important, otherwise the writing efforts get lost
+            }
+        } catch(IOException iox) {
+            synchronized(this) {
+                if(null == failure) {
+                    failure = iox;
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders a range of the pages, splitting it in halves until it is small enough
+     */
+    private class RenderTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        RenderTask(int from, int to) {
+            this.from = from;
+            this.to   = to;
+        }
+
+        protected void compute() {
+            if(to - from <= PAGES_PER_TASK) {
+                for(int i=from; i<to; i++) {
+                    renderPage(pages.get(i));
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RenderTask(from, middle), new RenderTask(middle, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * PageSink.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Destination of the generated pages. A page is handed over
+ * in one piece when its writer is closed.
+ */
+public interface PageSink {
+    /**
+     * Stores a complete page.
+     *
+     * @param dirname Destination directory name, the current directory is used if null or empty
+     * @param filename The name of the page
+     * @param page The page contents. The buffer is only valid during the call.
+     * @throws IOException
+     */
+    public void writePage(String dirname, String filename, ByteBuffer page) throws IOException;
+
+    /**
+     * Completes the output, no pages are written afterwards.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException;
+}
@@ -0,0 +1,161 @@
+/*
+ * PageSkeleton.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The markup shared by the pages of a schema: the head, the top bar and the
+ * bottom bar. The fragments are rendered once, encoded in the page encoding,
+ * and copied into each page as they are.
+ */
+public class PageSkeleton {
+    /** Skeletons by encoding, title, copyright and path to the schema directory */
+    private static final Map<String, PageSkeleton> skeletons = new HashMap<String, PageSkeleton>();
+
+    private static final String FRAGMENT = "fragment";
+
+    /** The fragments rendered */
+    private static final int PAGE_START = 0;
+    private static final int TOP_BAR    = 1;
+    private static final int BOTTOM_BAR = 2;
+    private static final int PAGE_END   = 3;
+
+    /** Start of an object page up to the end of the top bar */
+    private final byte[] header;
+
+    /** End of an object page starting with the bottom bar */
+    private final byte[] footer;
+
+    private final byte[] topBar;
+    private final byte[] bottomBar;
+
+    private PageSkeleton(Configuration config, String encoding, String title, String copyright, String rootPath)
+        throws UnsupportedEncodingException {
+        topBar    = render(config, encoding, title, copyright, rootPath, TOP_BAR);
+        bottomBar = render(config, encoding, title, copyright, rootPath, BOTTOM_BAR);
+        header    = concat(render(config, encoding, title, copyright, rootPath, PAGE_START), topBar);
+        footer    = concat(bottomBar, render(config, encoding, title, copyright, rootPath, PAGE_END));
+    }
+
+    /**
+     * Returns the skeleton of the pages having the given title and copyright
+     * in the encoding of the given page, linking from its directory.
+     *
+     * @param writer The page the fragments are written into
+     * @param title Application title shown in the top bar
+     * @param copyright Copyright label shown in the bottom bar
+     * @return skeleton
+     * @throws UnsupportedEncodingException
+     */
+    public static PageSkeleton getSkeleton(HtmlWriter writer, String title, String copyright)
+        throws UnsupportedEncodingException {
+        String key = writer.getEncoding() + '\n' + title + '\n' + copyright + '\n' + writer.rootPath;
+        synchronized(skeletons) {
+            PageSkeleton skeleton = skeletons.get(key);
+            if(null == skeleton) {
+                skeleton = new PageSkeleton(writer.configuration, writer.getEncoding(), title, copyright, writer.rootPath);
+                skeletons.put(key, skeleton);
+            }
+            return skeleton;
+        }
+    }
+
+    /**
+     * Writes the head and the top bar of an object page
+     */
+    public void writeHeader(HtmlWriter writer) {
+        writer.writeFragment(header);
+    }
+
+    /**
+     * Writes the bottom bar and closes the object page
+     */
+    public void writeFooter(HtmlWriter writer) {
+        writer.writeFragment(footer);
+    }
+
+    public void writeTopBar(HtmlWriter writer) {
+        writer.writeFragment(topBar);
+    }
+
+    public void writeBottomBar(HtmlWriter writer) {
+        writer.writeFragment(bottomBar);
+    }
+
+    /**
+     * Renders a fragment with the usual writer methods
+     */
+    private static byte[] render(Configuration config, String encoding, String title, String copyright, String rootPath, int fragment)
+        throws UnsupportedEncodingException {
+        MemoryPageSink sink   = new MemoryPageSink();
+        HtmlWriter     writer = new HtmlWriter(config, sink, null, FRAGMENT, encoding);
+
+        switch(fragment) {
+            case PAGE_START:
+                writer.html();
+                writer.head();
+                writer.link("rel='stylesheet' type='text/css' href='" + rootPath + "style.css'");
+                writer.headEnd();
+                writer.body(true);
+                break;
+            case TOP_BAR:
+                writer.write("<div id='topbar'>");
+                writer.anchor(rootPath + "overview.html", "Overview");
+                writer.anchor(rootPath + "tables-list.html","Tables");
+                writer.anchor(rootPath + "views-list.html","Views");
+                writer.anchor(rootPath + "indexes-list.html","Indexes");
+                writer.anchor(rootPath + "constraints-list.html","Constraints");
+                writer.anchor(rootPath + "triggers-list.html","Triggers");
+                writer.anchor(rootPath + "procedures-list.html","Procedures");
+                writer.anchor(rootPath + "functions-list.html","Functions");
+                writer.anchor(rootPath + "packages-list.html","Packages");
+                writer.anchor(rootPath + "sequences-list.html","Sequences");
+                writer.anchor(rootPath + "name-index.html","Index");
+                writer.println("<h3>" + title + "</h3>");
+                writer.write("</div>");
+                writer.hr();
+                break;
+            case BOTTOM_BAR:
+                writer.hr(1, "noshade");
+                writer.println("<small>"+OraDoclet.PROJ_GEN_STR+", "
+                + " Copyright &copy; " + copyright + "</small>");
+                break;
+            case PAGE_END:
+                writer.bodyEnd();
+                writer.htmlEnd();
+                break;
+        }
+        writer.close();
+        return sink.getPage(FRAGMENT);
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = new byte[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
@@ -49,6 +49,25 @@ public class ProcedureWriter extends ObjectWriter {
         super(dbconnection, objectTree, dbobject, getSections());
     }
 
+    /**
+     * Creates a writer that hands the page over to the given
+     * page sink instead of the one of the configuration.
+     * 
+     * @param dbconnection
+     * @param objectTree
+     * @param dbobject
+     * @param sink
+     * @throws IOException
+     */
+    public ProcedureWriter(
+        Connection dbconnection,
+        TreeMap<?, ?> objectTree,
+        DatabaseObject dbobject,
+        PageSink sink)
+        throws IOException {
+        super(dbconnection, objectTree, dbobject, getSections(), sink);
+    }
+
     /**
      * The method returns the array of sections.
      * It overrides the default behaviour of the superclass method
@@ -57,7 +76,8 @@ public class ProcedureWriter extends ObjectWriter {
      */
     protected static ObjectWriterSection[] getSections() {
         ObjectWriterSection[] s = 
-            {new ObjectWriterSection("Arguments",         "Argument name",    true,  false),
+            {new ObjectWriterSection("Description",       "Description",      false, false),
+             new ObjectWriterSection("Arguments",         "Argument name",    true,  false),
              new ObjectWriterSection("Returns",           "Returns",          false, false),
              new ObjectWriterSection("Procedure Source",            "Code",             true,  false)
             };
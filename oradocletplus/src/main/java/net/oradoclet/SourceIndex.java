@@ -0,0 +1,589 @@
+/*
+ * SourceIndex.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.Vector;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A trigram index of the source code of a schema: the PL/SQL source of the
+ * packages, procedures, functions and triggers and the queries of the views.
+ * For each sequence of three characters, in lower case, the index lists the
+ * lines containing it. A search looks up the trigrams of the text searched,
+ * intersects their lines and checks only these lines for the text.
+ *
+ * The index is written next to the pages of the schema as source-index.bin:
+ * <pre>
+ * magic "ODSRCIX1"
+ * int units, int lines, int trigrams
+ * per unit: int first line, UTF type, name, attribute name, link
+ * int[lines + 1]       offsets of the lines in the text
+ * long[trigrams]       the trigrams, sorted: three characters of 16 bits each
+ * int[trigrams + 1]    offsets of the lines of each trigram in the postings
+ * postings             line numbers, ascending, as varint encoded differences
+ * text                 the lines in UTF-8
+ * </pre>
+ * The file is mapped into memory when searched, only the postings of the
+ * trigrams searched and the lines found are read.
+ *
+ * The source of each object is split into lines and indexed as the object is
+ * added, the index keeps the lines in UTF-8 rather than the source strings.
+ * The units are numbered in the order they are added.
+ */
+public class SourceIndex {
+    public static final String FILE_NAME = "source-index.bin";
+
+    private static final byte[] MAGIC = {'O', 'D', 'S', 'R', 'C', 'I', 'X', '1'};
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** Bytes of postings read in the time a candidate line is checked */
+    private static final int CHECK_COST = 16;
+
+    /** The type, name, attribute name and link of each unit, in the order added */
+    private final List<String[]> units = new ArrayList<String[]>();
+
+    /** Keys of the objects added */
+    private final Set<String> added = new HashSet<String>();
+
+    /** The number of the first line of each unit */
+    private final IntList    firstLines  = new IntList();
+
+    /** The offset of each line in the text */
+    private final IntList    lineOffsets = new IntList();
+
+    /** The lines of each trigram, ascending */
+    private final TrigramMap postings    = new TrigramMap();
+
+    /** The lines in UTF-8 */
+    private final ByteArrayOutputStream text = new ByteArrayOutputStream();
+
+    /** The trigrams of the current line */
+    private long[] trigrams = new long[256];
+
+    /** Number of lines added */
+    private int    lines    = 0;
+
+    /**
+     * Adds the source of the object, once
+     *
+     * @param dbobject The object, complete
+     */
+    public synchronized void add(DatabaseObject dbobject) {
+        if(null == dbobject || null == dbobject.getAttributeMatrix() || !added.add(dbobject.getObjectID())) {
+            return;
+        }
+        Vector<?> matrix = dbobject.getAttributeMatrix();
+        for(int i=0; i<matrix.size(); i++) {
+            Vector<?> line = (Vector<?>) matrix.elementAt(i);
+            for(int j=0; null!=line && j<line.size(); j++) {
+                DatabaseAttribute attr = (DatabaseAttribute) line.elementAt(j);
+                if(attr.isPreformatted() && null!=attr.getValue() && attr.getValue().length() > 0) {
+                    String link = (null==dbobject.getLink()) ? "" : dbobject.getLink();
+                    units.add(new String[] {dbobject.getObjectType(), dbobject.getObjectName(), attr.getName(), link});
+                    firstLines.add(lines);
+                    addSource(attr.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the source of all the objects of the tree not added yet
+     */
+    public void addAll(TreeMap<?, ?> objectTree) {
+        Iterator<?> it = objectTree.values().iterator();
+        while(it.hasNext()) {
+            add((DatabaseObject) it.next());
+        }
+    }
+
+    /**
+     * Appends the lines of the source to the text and lists each line under its trigrams
+     */
+    private void addSource(String source) {
+        int start = 0;
+        while(start < source.length()) {
+            int end = source.indexOf('\n', start);
+            end = (end < 0) ? source.length() : end + 1;
+            String line = trimLineBreak(source.substring(start, end));
+            lineOffsets.add(text.size());
+            byte[] bytes = line.getBytes(UTF8);
+            text.write(bytes, 0, bytes.length);
+
+            // Each trigram of the line is listed once
+            int count = 0;
+            String lower = toLowerCase(line);
+            for(int i=0; i + 3 <= lower.length(); i++) {
+                if(count == trigrams.length) {
+                    trigrams = Arrays.copyOf(trigrams, count * 2);
+                }
+                trigrams[count++] = getTrigram(lower, i);
+            }
+            Arrays.sort(trigrams, 0, count);
+            for(int i=0; i<count; i++) {
+                if(i > 0 && trigrams[i] == trigrams[i - 1]) {
+                    continue;
+                }
+                postings.get(trigrams[i]).add(lines);
+            }
+            lines++;
+            start = end;
+        }
+    }
+
+    /**
+     * Builds the index of the source added
+     *
+     * @return the contents of the index file
+     * @throws IOException
+     */
+    public synchronized byte[] build() throws IOException {
+        long[] keys = postings.getKeys();
+        Arrays.sort(keys);
+
+        ByteArrayOutputStream postingBytes   = new ByteArrayOutputStream();
+        int[]                 postingOffsets = new int[keys.length + 1];
+        for(int i=0; i<keys.length; i++) {
+            postingOffsets[i] = postingBytes.size();
+            IntList posting = postings.get(keys[i]);
+            int previous = 0;
+            for(int j=0; j<posting.size; j++) {
+                writeVarint(postingBytes, posting.values[j] - previous);
+                previous = posting.values[j];
+            }
+        }
+        postingOffsets[keys.length] = postingBytes.size();
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(text.size() + postingBytes.size() + keys.length * 12 + lines * 4 + 1024);
+        DataOutputStream out = new DataOutputStream(bos);
+        out.write(MAGIC);
+        out.writeInt(units.size());
+        out.writeInt(lines);
+        out.writeInt(keys.length);
+        for(int i=0; i<units.size(); i++) {
+            String[] unit = units.get(i);
+            out.writeInt(firstLines.values[i]);
+            out.writeUTF(unit[0]);
+            out.writeUTF(unit[1]);
+            out.writeUTF(unit[2]);
+            out.writeUTF(unit[3]);
+        }
+        for(int i=0; i<lineOffsets.size; i++) {
+            out.writeInt(lineOffsets.values[i]);
+        }
+        // The end of the last line
+        out.writeInt(text.size());
+        for(int i=0; i<keys.length; i++) {
+            out.writeLong(keys[i]);
+        }
+        for(int i=0; i<postingOffsets.length; i++) {
+            out.writeInt(postingOffsets[i]);
+        }
+        postingBytes.writeTo(out);
+        text.writeTo(out);
+        out.flush();
+        return bos.toByteArray();
+    }
+
+    /**
+     * Searches the index file for the lines containing the text, regardless of the case,
+     * and prints them: the object, the line number and the line.
+     * Used by the command line: -grep &lt;index file&gt; &lt;text&gt;
+     *
+     * @param filename The index file, source-index.bin or source-index.bin.gz
+     * @param text The text searched
+     * @return Number of lines found
+     * @throws IOException
+     */
+    public static int grep(String filename, String text) throws IOException {
+        long started = System.nanoTime();
+        Reader reader = new Reader(load(new File(filename)));
+        List<Integer> found = reader.search(text);
+        for(int i=0; i<found.size(); i++) {
+            int line = found.get(i).intValue();
+            String[] unit = reader.getUnit(line);
+            System.out.println(unit[0] + " " + unit[1] + " (" + unit[2] + ") line "
+                + (line - reader.getFirstLine(line) + 1) + ": " + reader.getLine(line).trim()
+                + "  [" + unit[3] + "]");
+        }
+        System.out.println(found.size() + " lines found in " + (System.nanoTime() - started) / 1000000 + " ms");
+        return found.size();
+    }
+
+    /**
+     * Maps the index file into memory, a compressed file is read into memory
+     */
+    private static ByteBuffer load(File file) throws IOException {
+        if(file.getName().endsWith(".gz")) {
+            InputStream is = new GZIPInputStream(new FileInputStream(file));
+            try {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                byte[] buf = new byte[65536];
+                int r;
+                while((r = is.read(buf)) != -1) {
+                    bos.write(buf, 0, r);
+                }
+                return ByteBuffer.wrap(bos.toByteArray());
+            } finally {
+                is.close();
+            }
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            return raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Returns the trigram starting at the given position: the characters in the bits 32-47, 16-31 and 0-15
+     */
+    private static long getTrigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    /**
+     * Returns the string in lower case, character by character: the length does not change
+     */
+    private static String toLowerCase(String s) {
+        char[] chars = s.toCharArray();
+        for(int i=0; i<chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static String trimLineBreak(String line) {
+        int end = line.length();
+        while(end > 0 && (line.charAt(end - 1) == '\n' || line.charAt(end - 1) == '\r')) {
+            end--;
+        }
+        return line.substring(0, end);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Searches an index file mapped into memory
+     */
+    protected static class Reader {
+        private final ByteBuffer buffer;
+        private final int[]      firstLines;
+        private final String[][] units;
+        private final int        lines;
+        private final int        trigrams;
+        private final int        lineOffsetsAt;
+        private final int        keysAt;
+        private final int        postingOffsetsAt;
+        private final int        postingsAt;
+        private final int        textAt;
+
+        Reader(ByteBuffer buffer) throws IOException {
+            this.buffer = buffer;
+            byte[] magic = new byte[MAGIC.length];
+            buffer.position(0);
+            buffer.get(magic);
+            if(!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a source index");
+            }
+            int unitCount = buffer.getInt();
+            lines         = buffer.getInt();
+            trigrams      = buffer.getInt();
+            firstLines    = new int[unitCount];
+            units         = new String[unitCount][];
+            for(int i=0; i<unitCount; i++) {
+                firstLines[i] = buffer.getInt();
+                units[i] = new String[] {readUTF(), readUTF(), readUTF(), readUTF()};
+            }
+            lineOffsetsAt    = buffer.position();
+            keysAt           = lineOffsetsAt + (lines + 1) * 4;
+            postingOffsetsAt = keysAt + trigrams * 8;
+            postingsAt       = postingOffsetsAt + (trigrams + 1) * 4;
+            textAt           = postingsAt + buffer.getInt(postingOffsetsAt + trigrams * 4);
+        }
+
+        /**
+         * Returns the numbers of the lines containing the text, regardless of the case, ascending
+         */
+        List<Integer> search(String text) {
+            String        query = toLowerCase(text);
+            List<Integer> found = new ArrayList<Integer>();
+            if(0 == query.length()) {
+                return found;
+            }
+
+            // The trigrams having the fewest lines are intersected first
+            int[] slots = new int[Math.max(0, query.length() - 2)];
+            for(int i=0; i<slots.length; i++) {
+                slots[i] = findTrigram(getTrigram(query, i));
+                if(slots[i] < 0) {
+                    return found;
+                }
+            }
+            long[] bySize = new long[slots.length];
+            for(int i=0; i<slots.length; i++) {
+                bySize[i] = ((long) getPostingSize(slots[i]) << 32) | slots[i];
+            }
+            Arrays.sort(bySize);
+
+            int[] candidates = null;
+            for(int i=0; i<bySize.length; i++) {
+                int slot = (int) bySize[i];
+                if(null != candidates && candidates.length * CHECK_COST < getPostingSize(slot)) {
+                    // Checking the few lines left is cheaper than reading the long lists
+                    break;
+                }
+                int[] posting = getPosting(slot);
+                candidates = (null == candidates) ? posting : intersect(candidates, posting);
+                if(0 == candidates.length) {
+                    return found;
+                }
+            }
+
+            // A text shorter than a trigram is looked for in every line
+            int count = (null == candidates) ? lines : candidates.length;
+            for(int i=0; i<count; i++) {
+                int line = (null == candidates) ? i : candidates[i];
+                if(toLowerCase(getLine(line)).indexOf(query) >= 0) {
+                    found.add(Integer.valueOf(line));
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Returns the position of the trigram in the sorted trigrams, found by a binary search
+         *
+         * @return position or -1 if no line contains the trigram
+         */
+        private int findTrigram(long trigram) {
+            int lo = 0;
+            int hi = trigrams - 1;
+            while(lo <= hi) {
+                int  middle = (lo + hi) >>> 1;
+                long key    = buffer.getLong(keysAt + middle * 8);
+                if(key < trigram) {
+                    lo = middle + 1;
+                } else if(key > trigram) {
+                    hi = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the size of the encoded lines of the trigram in bytes
+         */
+        private int getPostingSize(int slot) {
+            return buffer.getInt(postingOffsetsAt + slot * 4 + 4) - buffer.getInt(postingOffsetsAt + slot * 4);
+        }
+
+        /**
+         * Returns the lines containing the trigram at the given position
+         */
+        private int[] getPosting(int slot) {
+            int from = postingsAt + buffer.getInt(postingOffsetsAt + slot * 4);
+            int to   = postingsAt + buffer.getInt(postingOffsetsAt + slot * 4 + 4);
+            IntList posting = new IntList();
+            int line = 0;
+            for(int p=from; p<to; ) {
+                int value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = buffer.get(p++);
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while((b & 0x80) != 0);
+                line += value;
+                posting.add(line);
+            }
+            return Arrays.copyOf(posting.values, posting.size);
+        }
+
+        private static int[] intersect(int[] a, int[] b) {
+            int[] result = new int[Math.min(a.length, b.length)];
+            int   count  = 0;
+            for(int i=0, j=0; i<a.length && j<b.length; ) {
+                if(a[i] < b[j]) {
+                    i++;
+                } else if(a[i] > b[j]) {
+                    j++;
+                } else {
+                    result[count++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        /**
+         * Returns the text of the line
+         */
+        String getLine(int line) {
+            int from = buffer.getInt(lineOffsetsAt + line * 4);
+            int to   = buffer.getInt(lineOffsetsAt + line * 4 + 4);
+            byte[] bytes = new byte[to - from];
+            ByteBuffer text = buffer.duplicate();
+            text.position(textAt + from);
+            text.get(bytes);
+            return new String(bytes, UTF8);
+        }
+
+        /**
+         * Returns the unit holding the line: type, name, attribute name and link of the object
+         */
+        String[] getUnit(int line) {
+            return units[getUnitIndex(line)];
+        }
+
+        /**
+         * Returns the number of the first line of the unit holding the line
+         */
+        int getFirstLine(int line) {
+            return firstLines[getUnitIndex(line)];
+        }
+
+        private int getUnitIndex(int line) {
+            // Each unit has a line at least, the first lines are unique
+            int i = Arrays.binarySearch(firstLines, line);
+            return (i < 0) ? -i - 2 : i;
+        }
+
+        private String readUTF() {
+            int length = buffer.getShort() & 0xFFFF;
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            // Modified UTF-8 equals UTF-8 except for the null character and the supplementary characters
+            return new String(bytes, UTF8);
+        }
+    }
+
+    /**
+     * The lines of each trigram, in an open addressing hash table
+     */
+    private static class TrigramMap {
+        private long[]    keys  = new long[1024];
+        private IntList[] lists = new IntList[1024];
+        private int       size  = 0;
+
+        /**
+         * Returns the lines of the trigram, an empty list is added for a new one
+         */
+        IntList get(long key) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while(null != lists[i]) {
+                if(keys[i] == key) {
+                    return lists[i];
+                }
+                i = (i + 1) & mask;
+            }
+            if(2 * (size + 1) > keys.length) {
+                grow();
+                return get(key);
+            }
+            keys[i]  = key;
+            lists[i] = new IntList();
+            size++;
+            return lists[i];
+        }
+
+        long[] getKeys() {
+            long[] result = new long[size];
+            int count = 0;
+            for(int i=0; i<keys.length; i++) {
+                if(null != lists[i]) {
+                    result[count++] = keys[i];
+                }
+            }
+            return result;
+        }
+
+        private void grow() {
+            long[]    oldKeys  = keys;
+            IntList[] oldLists = lists;
+            keys  = new long[oldKeys.length * 2];
+            lists = new IntList[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for(int j=0; j<oldKeys.length; j++) {
+                if(null != oldLists[j]) {
+                    int i = hash(oldKeys[j]) & mask;
+                    while(null != lists[i]) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i]  = oldKeys[j];
+                    lists[i] = oldLists[j];
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * A growable list of ints
+     */
+    private static class IntList {
+        int[] values = new int[4];
+        int   size   = 0;
+
+        void add(int value) {
+            if(size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
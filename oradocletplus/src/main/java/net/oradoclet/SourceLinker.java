@@ -0,0 +1,266 @@
+/*
+ * SourceLinker.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Finds the names of the objects of a schema in the source code, e.g. the
+ * tables a package uses, so that they can be linked to the pages of the objects.
+ *
+ * The names of the objects having a page or a link of their own are put into
+ * an Aho-Corasick automaton, the source is scanned once whatever the number
+ * of names. The names are matched regardless of the case, a match must be a
+ * whole identifier: it is neither preceded nor followed by a letter, a digit,
+ * '_', '$' or '#'. Overlapping matches are resolved leftmost-longest.
+ *
+ * The automaton is built once per object tree and is only read afterwards,
+ * the pages rendered in parallel share it.
+ */
+public class SourceLinker {
+    /** The linkers of the object trees alive */
+    private static final TreeRegistry<SourceLinker> linkers = new TreeRegistry<SourceLinker>();
+
+    private static final int[] NO_MATCHES = new int[0];
+
+    /** The objects the names stand for, by pattern number */
+    private final DatabaseObject[] targets;
+
+    /** Transitions: keys (state << 16 | character) and target states, 0 for an empty slot */
+    private long[] transitionKeys;
+    private int[]  transitionStates;
+    private int    transitionMask;
+
+    /** Per state: the failure link, the pattern ending here or -1, the next state on the failure chain ending a pattern or -1, the depth */
+    private int[] fail;
+    private int[] pattern;
+    private int[] output;
+    private int[] depth;
+
+    private int   states;
+
+    /**
+     * Returns the linker of the names of the given object tree, built on the first use
+     *
+     * @param objectTree The objects of the schema
+     * @return linker
+     */
+    public static SourceLinker getLinker(TreeMap<?, ?> objectTree) {
+        synchronized(linkers) {
+            SourceLinker linker = linkers.get(objectTree);
+            if(null == linker) {
+                linker = new SourceLinker(objectTree);
+                linkers.put(objectTree, linker);
+            }
+            return linker;
+        }
+    }
+
+    /**
+     * Builds the automaton of the names of the objects having a page
+     * or a list entry, e.g. the tables, the packages and the sequences
+     *
+     * @param objectTree The objects of the schema
+     */
+    public SourceLinker(TreeMap<?, ?> objectTree) {
+        List<DatabaseObject> objects = new ArrayList<DatabaseObject>();
+        int  chars   = 0;
+        Iterator<?> it = objectTree.values().iterator();
+        while(it.hasNext()) {
+            DatabaseObject dbobject = (DatabaseObject) it.next();
+            if(null != dbobject.getObjectName() && dbobject.getObjectName().length() > 0 && null != dbobject.getLink()
+                && (ObjectWriter.hasPage(dbobject) || dbobject.getObjectType().equalsIgnoreCase("SEQUENCE"))) {
+                objects.add(dbobject);
+                chars += dbobject.getObjectName().length();
+            }
+        }
+        targets = objects.toArray(new DatabaseObject[objects.size()]);
+
+        int capacity = chars + 1;
+        fail    = new int[capacity];
+        pattern = new int[capacity];
+        output  = new int[capacity];
+        depth   = new int[capacity];
+        Arrays.fill(pattern, -1);
+        Arrays.fill(output, -1);
+        int tableSize = Integer.highestOneBit(Math.max(16, capacity * 2)) * 2;
+        transitionKeys   = new long[tableSize];
+        transitionStates = new int[tableSize];
+        transitionMask   = tableSize - 1;
+
+        // The children of each state, to visit the trie breadth first
+        int[]  firstChild  = new int[capacity];
+        int[]  nextSibling = new int[capacity];
+        char[] edge        = new char[capacity];
+        states = 1;
+
+        for(int i=0; i<targets.length; i++) {
+            String name  = targets[i].getObjectName();
+            int    state = 0;
+            for(int j=0; j<name.length(); j++) {
+                char c    = Character.toUpperCase(name.charAt(j));
+                int  next = getTransition(state, c);
+                if(0 == next) {
+                    next = states++;
+                    depth[next] = depth[state] + 1;
+                    edge[next] = c;
+                    nextSibling[next] = firstChild[state];
+                    firstChild[state] = next;
+                    putTransition(state, c, next);
+                }
+                state = next;
+            }
+            // Names differing only in the case: the first one wins
+            if(pattern[state] < 0) {
+                pattern[state] = i;
+            }
+        }
+
+        // Failure links, breadth first: the longest proper suffix which is a prefix of a name
+        int[] queue = new int[states];
+        int   head  = 0;
+        int   tail  = 0;
+        for(int child = firstChild[0]; 0 != child; child = nextSibling[child]) {
+            fail[child] = 0;
+            queue[tail++] = child;
+        }
+        while(head < tail) {
+            int state = queue[head++];
+            output[state] = (pattern[fail[state]] >= 0) ? fail[state] : output[fail[state]];
+            for(int child = firstChild[state]; 0 != child; child = nextSibling[child]) {
+                int f = fail[state];
+                while(0 != f && 0 == getTransition(f, edge[child])) {
+                    f = fail[f];
+                }
+                int next = getTransition(f, edge[child]);
+                fail[child] = (next != child) ? next : 0;
+                queue[tail++] = child;
+            }
+        }
+        output[0] = -1;
+    }
+
+    /**
+     * Returns the object a match stands for
+     *
+     * @param target The target of a match, as returned by match()
+     */
+    public DatabaseObject getTarget(int target) {
+        return targets[target];
+    }
+
+    /**
+     * Finds the names in the part of the text, in one pass. The ends of
+     * the part are identifier boundaries.
+     *
+     * @param s The text, e.g. a line of source
+     * @param from The first character searched
+     * @param to The character following the last one searched
+     * @return The matches in the order of the text, three ints each:
+     * the first character, the character following the last one, the target
+     */
+    public int[] match(String s, int from, int to) {
+        int[] matches = NO_MATCHES;
+        int   count   = 0;
+        int   state   = 0;
+
+        for(int i=from; i<to; i++) {
+            char c = Character.toUpperCase(s.charAt(i));
+            int next = getTransition(state, c);
+            while(0 == next && 0 != state) {
+                state = fail[state];
+                next  = getTransition(state, c);
+            }
+            state = next;
+
+            // A match ends at an identifier boundary only
+            if(0 == state || (i + 1 < to && isIdentifierPart(s.charAt(i + 1)))) {
+                continue;
+            }
+            // The longest name ending here and starting at a boundary
+            for(int t = (pattern[state] >= 0) ? state : output[state]; t >= 0; t = output[t]) {
+                int start = i + 1 - depth[t];
+                if(start > from && isIdentifierPart(s.charAt(start - 1))) {
+                    continue;
+                }
+                // A match overlapping the previous ones replaces them when it starts before them
+                int kept = count;
+                while(kept > 0 && start < matches[(kept - 1) * 3 + 1] && start <= matches[(kept - 1) * 3]) {
+                    kept--;
+                }
+                // A match starting inside a previous one is dropped, a shorter name ending here may still fit
+                if(kept > 0 && start < matches[(kept - 1) * 3 + 1]) {
+                    continue;
+                }
+                count = kept;
+                if(matches.length < (count + 1) * 3) {
+                    matches = Arrays.copyOf(matches, Math.max(12, matches.length * 2));
+                }
+                matches[count * 3]     = start;
+                matches[count * 3 + 1] = i + 1;
+                matches[count * 3 + 2] = pattern[t];
+                count++;
+                break;
+            }
+        }
+        return (matches.length == count * 3) ? matches : Arrays.copyOf(matches, count * 3);
+    }
+
+    /**
+     * Tells whether the character may be a part of an unquoted identifier
+     */
+    public static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#';
+    }
+
+    private int getTransition(int state, char c) {
+        long key = ((long) state << 16) | c;
+        int  i   = hash(key) & transitionMask;
+        while(0 != transitionStates[i]) {
+            if(transitionKeys[i] == key) {
+                return transitionStates[i];
+            }
+            i = (i + 1) & transitionMask;
+        }
+        return 0;
+    }
+
+    private void putTransition(int state, char c, int next) {
+        long key = ((long) state << 16) | c;
+        int  i   = hash(key) & transitionMask;
+        while(0 != transitionStates[i]) {
+            i = (i + 1) & transitionMask;
+        }
+        transitionKeys[i]   = key;
+        transitionStates[i] = next;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
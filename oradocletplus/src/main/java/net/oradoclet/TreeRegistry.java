@@ -0,0 +1,82 @@
+/*
+ * TreeRegistry.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Keeps a value per object tree, e.g. the dependency graph of a schema, for
+ * the pages rendered out of the tree. The trees are compared by identity and
+ * are referenced weakly: the values of the trees no longer used are dropped
+ * when the next value is registered.
+ *
+ * @param <V> The type of the values
+ */
+public class TreeRegistry<V> {
+    private final List<Entry<V>> entries = new ArrayList<Entry<V>>();
+
+    /**
+     * Registers the value of the given object tree, replacing its previous one
+     *
+     * @param objectTree The objects of a schema
+     * @param value The value of the tree
+     */
+    public synchronized void put(TreeMap<?, ?> objectTree, V value) {
+        for(Iterator<Entry<V>> it = entries.iterator(); it.hasNext(); ) {
+            Object tree = it.next().get();
+            if(null == tree || tree == objectTree) {
+                it.remove();
+            }
+        }
+        entries.add(new Entry<V>(objectTree, value));
+    }
+
+    /**
+     * Returns the value of the given object tree
+     *
+     * @param objectTree The objects of a schema
+     * @return value or null if none was registered
+     */
+    public synchronized V get(TreeMap<?, ?> objectTree) {
+        for(int i=0; i<entries.size(); i++) {
+            Entry<V> entry = entries.get(i);
+            if(entry.get() == objectTree) {
+                return entry.value;
+            }
+        }
+        return null;
+    }
+
+    private static class Entry<V> extends WeakReference<TreeMap<?, ?>> {
+        private final V value;
+
+        Entry(TreeMap<?, ?> objectTree, V value) {
+            super(objectTree);
+            this.value = value;
+        }
+    }
+}
@@ -49,6 +49,25 @@ public class ViewWriter extends ObjectWriter {
         throws IOException {
         super(dbconnection, objectTree, dbobject, getSections());
     }
+
+    /**
+     * Creates a writer that hands the page over to the given
+     * page sink instead of the one of the configuration.
+     * 
+     * @param dbconnection
+     * @param objectTree
+     * @param dbobject
+     * @param sink
+     * @throws IOException
+     */
+    public ViewWriter(
+        Connection dbconnection,
+        TreeMap<?, ?> objectTree,
+        DatabaseObject dbobject,
+        PageSink sink)
+        throws IOException {
+        super(dbconnection, objectTree, dbobject, getSections(), sink);
+    }
     
     /**
      * The method returns the array of sections.
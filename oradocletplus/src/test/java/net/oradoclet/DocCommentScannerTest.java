@@ -0,0 +1,235 @@
+/*
+ * DocCommentScannerTest.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Scans the source of packages and standalone procedures for documentation comments
+ */
+public class DocCommentScannerTest {
+
+    @Test
+    public void attachesCommentsToTheMembers() {
+        DocCommentScanner scanner = scan("ORDERS_API", false,
+              "/** The orders */\n"
+            + "PACKAGE orders_api IS\n"
+            + "  /** Ships an order */\n"
+            + "  PROCEDURE ship(p_order_id IN NUMBER);\n"
+            + "  FUNCTION get_status(p_order_id IN NUMBER) RETURN VARCHAR2;\n"
+            + "  /** Cancels an order */ PROCEDURE cancel;\n"
+            + "END orders_api;\n");
+
+        assertEquals("The orders", scanner.getUnitDescription());
+        assertEquals(Arrays.asList("ship", "cancel"), scanner.getMemberNames());
+        assertEquals(Arrays.asList(Integer.valueOf(0), Integer.valueOf(0)), scanner.getMemberOverloads());
+        assertEquals(Arrays.asList("Ships an order", "Cancels an order"), scanner.getMemberDescriptions());
+    }
+
+    @Test
+    public void readsCommentsSpanningLines() {
+        DocCommentScanner scanner = scan("ORDERS_API", false,
+              "PACKAGE orders_api IS\n"
+            + "  /**\n"
+            + "   * Returns the total\n"
+            + "   *   of an order\n"
+            + "   */\n"
+            + "  FUNCTION get_total(p_order_id IN NUMBER) RETURN NUMBER;\n"
+            + "  /** Ships\r\n"
+            + "      an order */\r\n"
+            + "  PROCEDURE ship;\n"
+            + "END;\n");
+
+        assertNull(scanner.getUnitDescription());
+        assertEquals(Arrays.asList("get_total", "ship"), scanner.getMemberNames());
+        assertEquals(Arrays.asList("Returns the total\n  of an order", "Ships\nan order"), scanner.getMemberDescriptions());
+    }
+
+    @Test
+    public void readsLinesWithoutLineBreaks() {
+        DocCommentScanner scanner = new DocCommentScanner("ORDERS_API", false);
+        scanner.feed("PACKAGE orders_api IS");
+        scanner.feed("  /** Ships");
+        scanner.feed("      an order */");
+        scanner.feed("  PROCEDURE -- the name follows");
+        scanner.feed("  ship;");
+        scanner.feed("END;");
+
+        assertEquals(Arrays.asList("ship"), scanner.getMemberNames());
+        assertEquals(Arrays.asList("Ships\nan order"), scanner.getMemberDescriptions());
+    }
+
+    @Test
+    public void attachesCommentsByOverload() {
+        DocCommentScanner scanner = scan("ORDERS_API", false,
+              "PACKAGE orders_api IS\n"
+            + "  FUNCTION get_total(p_order_id IN NUMBER) RETURN NUMBER;\n"
+            + "  /** Returns the total of the orders of a customer */\n"
+            + "  FUNCTION Get_Total(p_customer_id IN NUMBER, p_since IN DATE) RETURN NUMBER;\n"
+            + "  /** Returns the total of all the orders */\n"
+            + "  FUNCTION GET_TOTAL RETURN NUMBER;\n"
+            + "  /** Ships an order */\n"
+            + "  PROCEDURE ship(p_order_id IN NUMBER);\n"
+            + "END;\n");
+
+        assertEquals(Arrays.asList("Get_Total", "GET_TOTAL", "ship"), scanner.getMemberNames());
+        assertEquals(Arrays.asList(Integer.valueOf(1), Integer.valueOf(2), Integer.valueOf(0)), scanner.getMemberOverloads());
+        assertEquals(Arrays.asList("Returns the total of the orders of a customer", "Returns the total of all the orders",
+            "Ships an order"), scanner.getMemberDescriptions());
+    }
+
+    @Test
+    public void documentsTheUnitOnlyBeforeItsMembers() {
+        DocCommentScanner scanner = scan("ORDERS_API", false,
+              "PACKAGE orders_api IS\n"
+            + "  PROCEDURE ship;\n"
+            + "  /** Documents nothing */\n"
+            + "  c_max CONSTANT NUMBER := 10;\n"
+            + "  /** Documents nothing either */\n"
+            + "END;\n");
+
+        assertNull(scanner.getUnitDescription());
+        assertTrue(scanner.getMemberNames().isEmpty());
+    }
+
+    @Test
+    public void documentsAStandaloneRoutineByItsHeader() {
+        DocCommentScanner scanner = scan("SHIP_ORDER", true,
+              "/** Ships an order */\n"
+            + "PROCEDURE ship_order(p_order_id IN NUMBER) IS\n"
+            + "  /** Logs the shipping */\n"
+            + "  PROCEDURE log_it IS BEGIN NULL; END;\n"
+            + "  /** Ships the order again */\n"
+            + "  PROCEDURE ship_order IS BEGIN NULL; END;\n"
+            + "BEGIN\n"
+            + "  log_it;\n"
+            + "END ship_order;\n");
+
+        assertEquals("Ships an order", scanner.getUnitDescription());
+        assertEquals(Arrays.asList("log_it", "ship_order"), scanner.getMemberNames());
+        assertEquals(Arrays.asList(Integer.valueOf(0), Integer.valueOf(1)), scanner.getMemberOverloads());
+        assertEquals(Arrays.asList("Logs the shipping", "Ships the order again"), scanner.getMemberDescriptions());
+    }
+
+    @Test
+    public void documentsAStandaloneRoutineAfterItsHeader() {
+        DocCommentScanner scanner = scan("GET_TOTAL", true,
+              "FUNCTION get_total(p_order_id IN NUMBER) RETURN NUMBER IS\n"
+            + "  /** Returns the total of an order */\n"
+            + "  l_total NUMBER;\n"
+            + "BEGIN\n"
+            + "  RETURN l_total;\n"
+            + "END;\n");
+
+        assertEquals("Returns the total of an order", scanner.getUnitDescription());
+        assertTrue(scanner.getMemberNames().isEmpty());
+    }
+
+    @Test
+    public void documentsAMemberOfThePackageName() {
+        DocCommentScanner scanner = scan("ORDERS", false,
+              "PACKAGE orders IS\n"
+            + "  /** Lists the orders */\n"
+            + "  PROCEDURE orders;\n"
+            + "END;\n");
+
+        assertNull(scanner.getUnitDescription());
+        assertEquals(Arrays.asList("orders"), scanner.getMemberNames());
+    }
+
+    @Test
+    public void skipsStringsAndComments() {
+        String[] traps = {
+            "-- /** Not a comment */ PROCEDURE commented_out;\n",
+            "/* /** Not a comment */ PROCEDURE in_comment; */\n",
+            "c_open CONSTANT VARCHAR2(10) := 'a /** b';\n",
+            "c_quote CONSTANT VARCHAR2(10) := 'it''s /** b';\n",
+            "c_q CONSTANT VARCHAR2(30) := q'[it's /** not a comment]';\n",
+            "c_nq CONSTANT NVARCHAR2(30) := Nq'{it's\n  /** not a comment }';\n",
+            "c_bang CONSTANT VARCHAR2(30) := q'!it's /** not a comment!';\n",
+            "\"/** Not a comment\" NUMBER;\n"
+        };
+        for(int i=0; i<traps.length; i++) {
+            DocCommentScanner scanner = scan("ORDERS_API", false,
+                  "PACKAGE orders_api IS\n"
+                + "  PROCEDURE undocumented;\n"
+                + "  " + traps[i]
+                + "  /** Ships an order */\n"
+                + "  PROCEDURE ship;\n"
+                + "END;\n");
+
+            assertNull(traps[i], scanner.getUnitDescription());
+            assertEquals(traps[i], Arrays.asList("ship"), scanner.getMemberNames());
+            assertEquals(traps[i], Arrays.asList("Ships an order"), scanner.getMemberDescriptions());
+        }
+    }
+
+    @Test
+    public void readsQuotedNames() {
+        DocCommentScanner scanner = scan("ORDERS_API", false,
+              "PACKAGE orders_api IS\n"
+            + "  /** Ships an order */\n"
+            + "  PROCEDURE \"Ship Order\";\n"
+            + "END;\n");
+
+        assertEquals(Arrays.asList("Ship Order"), scanner.getMemberNames());
+    }
+
+    @Test
+    public void skipsEmptyComments() {
+        DocCommentScanner scanner = scan("ORDERS_API", false,
+              "PACKAGE orders_api IS\n"
+            + "  /**/ PROCEDURE undocumented;\n"
+            + "  /** Ships an order */ /**/\n"
+            + "  -- before the declaration\n"
+            + "  PROCEDURE ship;\n"
+            + "  /***/ PROCEDURE undocumented_too;\n"
+            + "END;\n");
+
+        assertNull(scanner.getUnitDescription());
+        assertEquals(Arrays.asList("ship"), scanner.getMemberNames());
+        assertEquals(Arrays.asList("Ships an order"), scanner.getMemberDescriptions());
+    }
+
+    /**
+     * Feeds the source to a new scanner line by line, as it is read from the dictionary
+     */
+    private static DocCommentScanner scan(String unitName, boolean standalone, String source) {
+        DocCommentScanner scanner = new DocCommentScanner(unitName, standalone);
+        int start = 0;
+        while(start < source.length()) {
+            int end = source.indexOf('\n', start);
+            end = (end < 0) ? source.length() : end + 1;
+            scanner.feed(source.substring(start, end));
+            start = end;
+        }
+        return scanner;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * HtmlWriterTest.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * Tests the escaping of the text written into the pages
+ */
+public class HtmlWriterTest {
+
+    @Test
+    public void escapesSpecialCharacters() {
+        assertEquals("&amp;", HtmlWriter.escape("&"));
+        assertEquals("&lt;", HtmlWriter.escape("<"));
+        assertEquals("&gt;", HtmlWriter.escape(">"));
+        assertEquals("&quot;", HtmlWriter.escape("\""));
+        assertEquals("a &lt;b&gt; &amp; &quot;c&quot;", HtmlWriter.escape("a <b> & \"c\""));
+        assertEquals("&amp;amp;", HtmlWriter.escape("&amp;"));
+    }
+
+    @Test
+    public void returnsSameStringWhenNothingToEscape() {
+        String s = "SELECT name FROM orders WHERE id = 'x'";
+        assertSame(s, HtmlWriter.escape(s));
+        String empty = "";
+        assertSame(empty, HtmlWriter.escape(empty));
+        assertNull(HtmlWriter.escape(null));
+    }
+
+    @Test
+    public void keepsSurrogatePairs() {
+        // U+1D11E, a character outside of the basic plane
+        String clef = "\uD834\uDD1E";
+        assertSame(clef, HtmlWriter.escape(clef));
+        assertEquals(clef + "&lt;" + clef + "&gt;", HtmlWriter.escape(clef + "<" + clef + ">"));
+        assertEquals("&amp;" + clef + "&amp;", HtmlWriter.escape("&" + clef + "&"));
+    }
+
+    @Test
+    public void escapesPartOfString() {
+        StringBuilder sb = new StringBuilder("x");
+        HtmlWriter.escape(sb, "<a & b>", 1, 6);
+        assertEquals("xa &amp; b", sb.toString());
+    }
+}
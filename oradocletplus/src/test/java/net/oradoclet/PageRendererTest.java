@@ -0,0 +1,470 @@
+/*
+ * PageRendererTest.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Renders a small schema serially and by several threads and compares the pages.
+ * The schema is read from a stub dictionary: tables referencing each other
+ * twice, constraints and indexes of the same names, columns of the same names
+ * in different tables, a view, a trigger, a procedure and a package having
+ * overloaded members, documentation comments and dependencies.
+ */
+public class PageRendererTest {
+    /** Tables referencing ORDERS, they make the diagrams and the lists longer */
+    private static final int ITEM_TABLES = 12;
+
+    private Configuration configuration;
+    private PageSink      sink;
+    private String        destdirname;
+    private String        schema;
+    private int           erDepth;
+
+    @Before
+    public void saveConfiguration() {
+        configuration = OraDoclet.getConfiguration();
+        sink          = configuration.pageSink;
+        destdirname   = configuration.destdirname;
+        schema        = OraDoclet.CURRENT_SCHEMA;
+        erDepth       = configuration.erDepth;
+        configuration.destdirname = "SCH";
+        configuration.erDepth     = 2;
+        OraDoclet.CURRENT_SCHEMA  = "SCH";
+    }
+
+    @After
+    public void restoreConfiguration() {
+        configuration.pageSink    = sink;
+        configuration.destdirname = destdirname;
+        configuration.erDepth     = erDepth;
+        OraDoclet.CURRENT_SCHEMA  = schema;
+    }
+
+    @Test
+    public void parallelRenderingWritesTheSamePages() throws Exception {
+        MemoryPageSink serial = render(1);
+        MemoryPageSink parallel = render(4);
+
+        List<String> names = serial.getPageNames();
+        assertEquals(names, parallel.getPageNames());
+        for(int i=0; i<names.size(); i++) {
+            String name = names.get(i);
+            assertNotNull(name, serial.getPage(name));
+            assertArrayEquals(name, serial.getPage(name), parallel.getPage(name));
+        }
+    }
+
+    @Test
+    public void pagesCoverTheDictionary() throws Exception {
+        MemoryPageSink pages = render(4);
+
+        // ORDERS references CUSTOMERS twice, the second entry is enumerated and gets a row of its own
+        String customers = getPage(pages, "table-customers.html");
+        assertEquals(customers, 2, count(customers, "valign=\"top\"><a href=\"table-orders.html\">ORDERS</a>"));
+        assertTrue(customers, customers.contains("ORDERS_BILL_TO_FK"));
+        assertTrue(customers, customers.contains("ORDERS_CUSTOMER_FK"));
+
+        // The primary key and its index have the same name
+        String orders = getPage(pages, "table-orders.html");
+        assertTrue(orders, orders.contains("t-primary key"));
+        assertTrue(orders, orders.contains("t-indexes"));
+        assertTrue(orders, orders.contains("ORDERS_STATUS_IX"));
+        assertTrue(orders, orders.contains("table-items_0.html"));
+        assertTrue(orders, orders.contains("package-orders_api.html"));
+
+        // The overloads of GET_TOTAL, their arguments and their descriptions
+        String api = getPage(pages, "package-orders_api.html");
+        assertEquals(api, 2, count(api, "valign=\"top\">GET_TOTAL"));
+        assertTrue(api, api.contains("P_CUSTOMER_ID IN NUMBER<br>P_SINCE IN DATE DEFAULT"));
+        assertTrue(api, api.contains("Returns the total of the orders of a customer &lt;since&gt; a date"));
+        assertTrue(api, api.contains("table-order_lines.html"));
+
+        String procedure = getPage(pages, "procedure-ship_order.html");
+        assertTrue(procedure, procedure.contains("package-orders_api.html"));
+    }
+
+    @Test
+    public void parallelRenderingWritesTheSameArchive() throws Exception {
+        byte[] serial = renderArchive(1);
+        byte[] parallel = renderArchive(4);
+        assertTrue(serial.length > 0);
+        assertArrayEquals(serial, parallel);
+    }
+
+    /**
+     * Renders the pages of a new object tree into a TAR archive through an ordered sink
+     */
+    private byte[] renderArchive(int threads) throws Exception {
+        File archive = File.createTempFile("oradoclet-test", ".tar");
+        try {
+            OrderedPageSink pages = new OrderedPageSink(new ArchivePageSink(archive.getPath(), ""), 2);
+            configuration.pageSink = pages;
+            new PageRenderer(getConnection(), createObjectTree()).render(threads);
+            pages.close();
+            return Files.readAllBytes(archive.toPath());
+        } finally {
+            archive.delete();
+        }
+    }
+
+    /**
+     * Renders the pages of a new object tree into memory
+     */
+    private MemoryPageSink render(int threads) throws Exception {
+        MemoryPageSink pages = new MemoryPageSink();
+        configuration.pageSink = pages;
+        new PageRenderer(getConnection(), createObjectTree()).render(threads);
+        return pages;
+    }
+
+    private static int count(String page, String text) {
+        int count = 0;
+        for(int at=page.indexOf(text); at>=0; at=page.indexOf(text, at + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static String getPage(MemoryPageSink pages, String name) {
+        byte[] page = pages.getPage(name);
+        assertNotNull(name, page);
+        return new String(page, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the object tree read from the stub dictionary
+     */
+    private static TreeMap<?, ?> createObjectTree() {
+        return new OraDictionary(getConnection()).buildObjectTree();
+    }
+
+    /**
+     * Returns a connection to the stub dictionary
+     */
+    private static Connection getConnection() {
+        final Statement statement = (Statement) proxy(Statement.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if(method.getName().equals("executeQuery")) {
+                    return query((String) args[0]);
+                }
+                return getDefault(method.getReturnType());
+            }
+        });
+        return (Connection) proxy(Connection.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if(method.getName().equals("createStatement")) {
+                    return statement;
+                }
+                return getDefault(method.getReturnType());
+            }
+        });
+    }
+
+    /**
+     * Returns the rows of the stub dictionary for the query, the first row
+     * giving the column names. A query for a single object (uo.object_name = '...')
+     * gets the rows of that object only, a query counting the rows its count.
+     */
+    private static ResultSet query(String query) {
+        if(query.startsWith("SELECT COUNT(*) FROM (")) {
+            List<String[]> rows = getRows(query.substring("SELECT COUNT(*) FROM (".length()));
+            return resultSet(new String[][] {{"COUNT"}, {String.valueOf(Math.max(0, rows.size() - 1))}});
+        }
+        List<String[]> rows = getRows(query);
+        int at = query.indexOf("uo.object_name = '");
+        if(at >= 0 && rows.size() > 1) {
+            String name = query.substring(at + 18, query.indexOf('\'', at + 18));
+            for(int i=rows.size() - 1; i>0; i--) {
+                if(!name.equals(rows.get(i)[0])) {
+                    rows.remove(i);
+                }
+            }
+        }
+        return resultSet(rows.toArray(new String[rows.size()][]));
+    }
+
+    private static List<String[]> getRows(String query) {
+        List<String[]> rows = new ArrayList<String[]>();
+        if(query.contains("FROM all_objects WHERE object_type IN(")) {
+            rows.add(new String[] {"OBJECT_TYPE", "OBJECT_NAME"});
+            rows.add(new String[] {"CONSTRAINT", "CUSTOMERS_PK"});
+            rows.add(new String[] {"CONSTRAINT", "ORDERS_BILL_TO_FK"});
+            rows.add(new String[] {"CONSTRAINT", "ORDERS_CUSTOMER_FK"});
+            rows.add(new String[] {"CONSTRAINT", "ORDERS_PK"});
+            rows.add(new String[] {"CONSTRAINT", "ORDER_LINES_ORDERS_FK"});
+            rows.add(new String[] {"CONSTRAINT", "ORDER_LINES_PK"});
+            rows.add(new String[] {"CONSTRAINT", "SYS_C0011"});
+            for(int i=0; i<ITEM_TABLES; i++) {
+                rows.add(new String[] {"CONSTRAINT", "ITEMS_" + i + "_FK"});
+            }
+            rows.add(new String[] {"INDEX", "CUSTOMERS_PK"});
+            rows.add(new String[] {"INDEX", "ORDERS_PK"});
+            rows.add(new String[] {"INDEX", "ORDERS_STATUS_IX"});
+            rows.add(new String[] {"INDEX", "ORDER_LINES_PK"});
+            rows.add(new String[] {"PACKAGE", "ORDERS_API"});
+            rows.add(new String[] {"PROCEDURE", "SHIP_ORDER"});
+            rows.add(new String[] {"SEQUENCE", "ORDERS_SEQ"});
+            rows.add(new String[] {"TABLE", "CUSTOMERS"});
+            for(int i=0; i<ITEM_TABLES; i++) {
+                rows.add(new String[] {"TABLE", "ITEMS_" + i});
+            }
+            rows.add(new String[] {"TABLE", "ORDERS"});
+            rows.add(new String[] {"TABLE", "ORDER_LINES"});
+            rows.add(new String[] {"TRIGGER", "ORDERS_BIU"});
+            rows.add(new String[] {"VIEW", "ORDERS_VIEW"});
+        } else if(query.contains("uo.object_type parent_type")) {
+            rows.add(new String[] {"OBJECT_NAME", "PARENT_NAME", "PARENT_TYPE"});
+            rows.add(new String[] {"ID", "CUSTOMERS", "TABLE"});
+            rows.add(new String[] {"NAME", "CUSTOMERS", "TABLE"});
+            for(int i=0; i<ITEM_TABLES; i++) {
+                rows.add(new String[] {"ID", "ITEMS_" + i, "TABLE"});
+                rows.add(new String[] {"ORDER_ID", "ITEMS_" + i, "TABLE"});
+            }
+            rows.add(new String[] {"ID", "ORDERS", "TABLE"});
+            rows.add(new String[] {"CUSTOMER_ID", "ORDERS", "TABLE"});
+            rows.add(new String[] {"BILL_TO_ID", "ORDERS", "TABLE"});
+            rows.add(new String[] {"STATUS", "ORDERS", "TABLE"});
+            rows.add(new String[] {"ORDER_ID", "ORDER_LINES", "TABLE"});
+            rows.add(new String[] {"LINE_NO", "ORDER_LINES", "TABLE"});
+            rows.add(new String[] {"AMOUNT", "ORDER_LINES", "TABLE"});
+            rows.add(new String[] {"ID", "ORDERS_VIEW", "VIEW"});
+            rows.add(new String[] {"STATUS", "ORDERS_VIEW", "VIEW"});
+        } else if(query.contains("FROM all_dependencies")) {
+            rows.add(new String[] {"TYPE", "NAME", "REFERENCED_TYPE", "REFERENCED_NAME"});
+            rows.add(new String[] {"VIEW", "ORDERS_VIEW", "TABLE", "ORDERS"});
+            rows.add(new String[] {"PACKAGE BODY", "ORDERS_API", "TABLE", "ORDERS"});
+            rows.add(new String[] {"PACKAGE BODY", "ORDERS_API", "TABLE", "ORDER_LINES"});
+            rows.add(new String[] {"PROCEDURE", "SHIP_ORDER", "PACKAGE", "ORDERS_API"});
+            rows.add(new String[] {"PROCEDURE", "SHIP_ORDER", "TABLE", "ORDERS"});
+        } else if(query.contains("utc.table_type = 'TABLE'")) {
+            rows.add(new String[] {"Table", "Description"});
+            rows.add(new String[] {"CUSTOMERS", "The customers & <suppliers>"});
+            rows.add(new String[] {"ORDERS", "The orders"});
+        } else if(query.contains("\"Referenced by\"")) {
+            rows.add(new String[] {"Table", "Referenced by", "Constraint"});
+            rows.add(new String[] {"CUSTOMERS", "ORDERS", "ORDERS_BILL_TO_FK"});
+            rows.add(new String[] {"CUSTOMERS", "ORDERS", "ORDERS_CUSTOMER_FK"});
+            for(int i=0; i<ITEM_TABLES; i++) {
+                rows.add(new String[] {"ORDERS", "ITEMS_" + i, "ITEMS_" + i + "_FK"});
+            }
+            rows.add(new String[] {"ORDERS", "ORDER_LINES", "ORDER_LINES_ORDERS_FK"});
+        } else if(query.contains("\"Primary key\"")) {
+            rows.add(new String[] {"Primary key", "parent_name"});
+            rows.add(new String[] {"CUSTOMERS_PK", "CUSTOMERS"});
+            rows.add(new String[] {"ORDERS_PK", "ORDERS"});
+            rows.add(new String[] {"ORDER_LINES_PK", "ORDER_LINES"});
+        } else if(query.contains("\"Check constraint\"")) {
+            rows.add(new String[] {"Check constraint", "parent_name", "Check condition"});
+            rows.add(new String[] {"SYS_C0011", "ORDERS", "STATUS IN ('NEW', 'SHIPPED') AND ID > 0"});
+        } else if(query.contains("\"Foreign key\"")) {
+            rows.add(new String[] {"Foreign key", "parent_name", "Referenced table", "Referenced constraint", "Delete rule"});
+            for(int i=0; i<ITEM_TABLES; i++) {
+                rows.add(new String[] {"ITEMS_" + i + "_FK", "ITEMS_" + i, "ORDERS", "ORDERS_PK", "CASCADE"});
+            }
+            rows.add(new String[] {"ORDERS_BILL_TO_FK", "ORDERS", "CUSTOMERS", "CUSTOMERS_PK", "NO ACTION"});
+            rows.add(new String[] {"ORDERS_CUSTOMER_FK", "ORDERS", "CUSTOMERS", "CUSTOMERS_PK", "NO ACTION"});
+            rows.add(new String[] {"ORDER_LINES_ORDERS_FK", "ORDER_LINES", "ORDERS", "ORDERS_PK", "CASCADE"});
+        } else if(query.contains("index_name \"Index\"")) {
+            rows.add(new String[] {"Index", "parent_name", "Type", "Uniqueness"});
+            rows.add(new String[] {"CUSTOMERS_PK", "CUSTOMERS", "NORMAL", "UNIQUE"});
+            rows.add(new String[] {"ORDERS_PK", "ORDERS", "NORMAL", "UNIQUE"});
+            rows.add(new String[] {"ORDERS_STATUS_IX", "ORDERS", "NORMAL", "NONUNIQUE"});
+            rows.add(new String[] {"ORDER_LINES_PK", "ORDER_LINES", "NORMAL", "UNIQUE"});
+        } else if(query.contains("\"_owner_type\"")) {
+            rows.add(new String[] {"Column", "parent_name", "_owner_type", "_owner_name", "_position"});
+            rows.add(new String[] {"ID", "CUSTOMERS", "CONSTRAINT", "CUSTOMERS_PK", "1"});
+            rows.add(new String[] {"ID", "CUSTOMERS", "INDEX", "CUSTOMERS_PK", "1"});
+            rows.add(new String[] {"BILL_TO_ID", "ORDERS", "CONSTRAINT", "ORDERS_BILL_TO_FK", "1"});
+            rows.add(new String[] {"CUSTOMER_ID", "ORDERS", "CONSTRAINT", "ORDERS_CUSTOMER_FK", "1"});
+            rows.add(new String[] {"ID", "ORDERS", "CONSTRAINT", "ORDERS_PK", "1"});
+            rows.add(new String[] {"ID", "ORDERS", "INDEX", "ORDERS_PK", "1"});
+            rows.add(new String[] {"STATUS", "ORDERS", "INDEX", "ORDERS_STATUS_IX", "1"});
+            rows.add(new String[] {"ORDER_ID", "ORDER_LINES", "CONSTRAINT", "ORDER_LINES_PK", "1"});
+            rows.add(new String[] {"LINE_NO", "ORDER_LINES", "CONSTRAINT", "ORDER_LINES_PK", "2"});
+            rows.add(new String[] {"ORDER_ID", "ORDER_LINES", "INDEX", "ORDER_LINES_PK", "1"});
+            rows.add(new String[] {"LINE_NO", "ORDER_LINES", "INDEX", "ORDER_LINES_PK", "2"});
+        } else if(query.contains("ucl.data_default")) {
+            rows.add(new String[] {"Column", "parent_name", "Datatype", "Nullable", "Default value", "Comment"});
+            rows.add(new String[] {"ID", "CUSTOMERS", "NUMBER(10)", "N", "", "The customer"});
+            rows.add(new String[] {"NAME", "CUSTOMERS", "VARCHAR2(100)", "N", "", ""});
+            for(int i=0; i<ITEM_TABLES; i++) {
+                rows.add(new String[] {"ID", "ITEMS_" + i, "NUMBER(10)", "N", "", ""});
+                rows.add(new String[] {"ORDER_ID", "ITEMS_" + i, "NUMBER(10)", "N", "", ""});
+            }
+            rows.add(new String[] {"ID", "ORDERS", "NUMBER(10)", "N", "", "The order"});
+            rows.add(new String[] {"CUSTOMER_ID", "ORDERS", "NUMBER(10)", "N", "", ""});
+            rows.add(new String[] {"BILL_TO_ID", "ORDERS", "NUMBER(10)", "Y", "", ""});
+            rows.add(new String[] {"STATUS", "ORDERS", "VARCHAR2(10)", "N", "'NEW'", "NEW or SHIPPED"});
+            rows.add(new String[] {"ORDER_ID", "ORDER_LINES", "NUMBER(10)", "N", "", ""});
+            rows.add(new String[] {"LINE_NO", "ORDER_LINES", "NUMBER(5)", "N", "", ""});
+            rows.add(new String[] {"AMOUNT", "ORDER_LINES", "NUMBER(12,2)", "N", "0", ""});
+        } else if(query.contains("utc.table_type = 'VIEW'")) {
+            rows.add(new String[] {"View", "Description"});
+            rows.add(new String[] {"ORDERS_VIEW", "The orders not shipped yet"});
+        } else if(query.contains("view_name AS \"View\"")) {
+            rows.add(new String[] {"View", "Code"});
+            rows.add(new String[] {"ORDERS_VIEW", "SELECT o.id, o.status FROM orders o WHERE o.status <> 'SHIPPED'"});
+        } else if(query.contains("\"Insertable\"")) {
+            rows.add(new String[] {"Column", "parent_name", "Datatype", "Nullable", "Insertable", "Updateable", "Deletable", "Comment"});
+            rows.add(new String[] {"ID", "ORDERS_VIEW", "NUMBER(10)", "N", "YES", "YES", "YES", ""});
+            rows.add(new String[] {"STATUS", "ORDERS_VIEW", "VARCHAR2(10)", "N", "YES", "YES", "YES", ""});
+        } else if(query.contains("all_triggers ut")) {
+            rows.add(new String[] {"Trigger", "parent_name", "Code"});
+            rows.add(new String[] {"ORDERS_BIU", "ORDERS", "TRIGGER orders_biu BEFORE INSERT OR UPDATE ON orders\n"});
+            rows.add(new String[] {"ORDERS_BIU", "ORDERS", "BEGIN :new.id := NVL(:new.id, orders_seq.NEXTVAL); END;\n"});
+        } else if(query.contains("ua.package_name, ua.object_name")) {
+            rows.add(new String[] {"PACKAGE_NAME", "OBJECT_NAME", "SUBPROGRAM_ID", "POSITION", "ARGUMENT_NAME",
+                "IN_OUT", "DATA_TYPE", "TYPE_NAME", "TYPE_SUBNAME", "DEFAULTED"});
+            rows.add(new String[] {"ORDERS_API", "GET_TOTAL", "1", "0", null, "OUT", "NUMBER", null, null, "N"});
+            rows.add(new String[] {"ORDERS_API", "GET_TOTAL", "1", "1", "P_ORDER_ID", "IN", "NUMBER", null, null, "N"});
+            rows.add(new String[] {"ORDERS_API", "GET_TOTAL", "2", "0", null, "OUT", "NUMBER", null, null, "N"});
+            rows.add(new String[] {"ORDERS_API", "GET_TOTAL", "2", "1", "P_CUSTOMER_ID", "IN", "NUMBER", null, null, "N"});
+            rows.add(new String[] {"ORDERS_API", "GET_TOTAL", "2", "2", "P_SINCE", "IN", "DATE", null, null, "Y"});
+            rows.add(new String[] {"ORDERS_API", "SHIP", "3", "1", "P_ORDER_ID", "IN", "NUMBER", null, null, "N"});
+        } else if(query.contains("\"Package Code\"")) {
+            rows.add(new String[] {"Package", "Package Code"});
+            rows.add(new String[] {"ORDERS_API", "PACKAGE orders_api IS\n"});
+            rows.add(new String[] {"ORDERS_API", "  /** The orders, their totals and their shipping */\n"});
+            rows.add(new String[] {"ORDERS_API", "  -- /** not a comment */ FUNCTION not_a_member;\n"});
+            rows.add(new String[] {"ORDERS_API", "  /** Returns the total of an order */\n"});
+            rows.add(new String[] {"ORDERS_API", "  FUNCTION get_total(p_order_id IN NUMBER) RETURN NUMBER;\n"});
+            rows.add(new String[] {"ORDERS_API", "  /**\n"});
+            rows.add(new String[] {"ORDERS_API", "   * Returns the total of the orders of a customer <since> a date\n"});
+            rows.add(new String[] {"ORDERS_API", "   */\n"});
+            rows.add(new String[] {"ORDERS_API", "  FUNCTION get_total(p_customer_id IN NUMBER, p_since IN DATE := NULL) RETURN NUMBER;\n"});
+            rows.add(new String[] {"ORDERS_API", "  PROCEDURE ship(p_order_id IN NUMBER);\n"});
+            rows.add(new String[] {"ORDERS_API", "END orders_api;\n"});
+        } else if(query.contains("\"Package Body Code\"")) {
+            rows.add(new String[] {"Package", "Package Body Code"});
+            rows.add(new String[] {"ORDERS_API", "PACKAGE BODY orders_api IS\n"});
+            rows.add(new String[] {"ORDERS_API", "  FUNCTION get_total(p_order_id IN NUMBER) RETURN NUMBER IS\n"});
+            rows.add(new String[] {"ORDERS_API", "    l_total NUMBER;\n"});
+            rows.add(new String[] {"ORDERS_API", "  BEGIN\n"});
+            rows.add(new String[] {"ORDERS_API", "    SELECT SUM(amount) INTO l_total FROM order_lines WHERE order_id = p_order_id;\n"});
+            rows.add(new String[] {"ORDERS_API", "    RETURN l_total;\n"});
+            rows.add(new String[] {"ORDERS_API", "  END;\n"});
+            rows.add(new String[] {"ORDERS_API", "  PROCEDURE ship(p_order_id IN NUMBER) IS\n"});
+            rows.add(new String[] {"ORDERS_API", "  BEGIN\n"});
+            rows.add(new String[] {"ORDERS_API", "    UPDATE orders SET status = 'SHIPPED' WHERE id = p_order_id AND status <> 'SHIPPED';\n"});
+            rows.add(new String[] {"ORDERS_API", "  END;\n"});
+            rows.add(new String[] {"ORDERS_API", "END orders_api;\n"});
+        } else if(query.contains("'PROCEDURE'    AND uo.object_type = us.type")) {
+            rows.add(new String[] {"Procedure", "Code"});
+            rows.add(new String[] {"SHIP_ORDER", "/** Ships an order & logs it */\n"});
+            rows.add(new String[] {"SHIP_ORDER", "PROCEDURE ship_order(p_order_id IN NUMBER) IS\n"});
+            rows.add(new String[] {"SHIP_ORDER", "BEGIN\n"});
+            rows.add(new String[] {"SHIP_ORDER", "  orders_api.ship(p_order_id);\n"});
+            rows.add(new String[] {"SHIP_ORDER", "END ship_order;\n"});
+        } else {
+            rows.add(new String[] {"NONE"});
+        }
+        return rows;
+    }
+
+    /**
+     * Returns a result set of the rows, the first row giving the column names
+     */
+    private static ResultSet resultSet(final String[][] rows) {
+        final ResultSetMetaData metaData = (ResultSetMetaData) proxy(ResultSetMetaData.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if(method.getName().equals("getColumnCount")) {
+                    return Integer.valueOf(rows[0].length);
+                }
+                if(method.getName().equals("getColumnName") || method.getName().equals("getColumnLabel")) {
+                    return rows[0][((Integer) args[0]).intValue() - 1];
+                }
+                if(method.getName().equals("getColumnTypeName")) {
+                    return "VARCHAR2";
+                }
+                return getDefault(method.getReturnType());
+            }
+        });
+        return (ResultSet) proxy(ResultSet.class, new InvocationHandler() {
+            private int row = 0;
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if(name.equals("next")) {
+                    return Boolean.valueOf(++row < rows.length);
+                }
+                if(name.equals("getMetaData")) {
+                    return metaData;
+                }
+                if(name.equals("getString") && args[0] instanceof Integer) {
+                    return rows[row][((Integer) args[0]).intValue() - 1];
+                }
+                if(name.equals("getInt") && args[0] instanceof Integer) {
+                    String value = rows[row][((Integer) args[0]).intValue() - 1];
+                    return Integer.valueOf(null == value ? 0 : Integer.parseInt(value));
+                }
+                return getDefault(method.getReturnType());
+            }
+        });
+    }
+
+    /**
+     * Returns an implementation of the interface
+     */
+    private static Object proxy(Class<?> type, InvocationHandler handler) {
+        return Proxy.newProxyInstance(PageRendererTest.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    /**
+     * Returns false, zero or null
+     */
+    private static Object getDefault(Class<?> returnType) {
+        if(returnType == boolean.class) {
+            return Boolean.FALSE;
+        }
+        if(returnType == int.class) {
+            return Integer.valueOf(0);
+        }
+        if(returnType == long.class) {
+            return Long.valueOf(0);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * SourceIndexTest.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Vector;
+
+import org.junit.Test;
+
+/**
+ * Indexes the source of a few objects and searches the index
+ */
+public class SourceIndexTest {
+
+    @Test
+    public void findsTheLinesContainingTheText() throws Exception {
+        SourceIndex index = new SourceIndex();
+        index.add(createObject("PROCEDURE", "SHIP_ORDER", "Code",
+            "PROCEDURE ship_order(p_order_id NUMBER) IS\nBEGIN\n  UPDATE orders SET status = 'SHIPPED'\r\n  WHERE order_id = p_order_id;\nEND;\n"));
+        index.add(createObject("PACKAGE", "ORDERS_API", "Package Code",
+            "PACKAGE orders_api IS\n  FUNCTION get_status(p_order_id NUMBER) RETURN VARCHAR2;\nEND;"));
+
+        SourceIndex.Reader reader = new SourceIndex.Reader(ByteBuffer.wrap(index.build()));
+
+        List<Integer> found = reader.search("P_ORDER_ID");
+        assertEquals(3, found.size());
+        assertEquals("PROCEDURE ship_order(p_order_id NUMBER) IS", reader.getLine(found.get(0).intValue()));
+        assertEquals("  WHERE order_id = p_order_id;", reader.getLine(found.get(1).intValue()));
+        assertEquals("  FUNCTION get_status(p_order_id NUMBER) RETURN VARCHAR2;", reader.getLine(found.get(2).intValue()));
+
+        int line = found.get(2).intValue();
+        assertArrayEquals(new String[] {"PACKAGE", "ORDERS_API", "Package Code", "package-orders_api.html"}, reader.getUnit(line));
+        assertEquals(1, line - reader.getFirstLine(line));
+
+        assertEquals(1, reader.search("shipped").size());
+        assertTrue(reader.search("no such text").isEmpty());
+    }
+
+    @Test
+    public void addsAnObjectOnce() throws Exception {
+        SourceIndex index = new SourceIndex();
+        DatabaseObject dbobject = createObject("PROCEDURE", "SHIP_ORDER", "Code", "BEGIN\n  NULL;\nEND;");
+        index.add(dbobject);
+        index.add(dbobject);
+
+        SourceIndex.Reader reader = new SourceIndex.Reader(ByteBuffer.wrap(index.build()));
+        assertEquals(1, reader.search("null").size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DatabaseObject createObject(String type, String name, String attrName, String source) {
+        DatabaseObject dbobject = new DatabaseObject(type, name, null);
+        dbobject.setLink(type.toLowerCase() + "-" + name.toLowerCase() + ".html");
+        DatabaseAttribute attr = new DatabaseAttribute(attrName, source, true);
+        attr.setPreformatted(true);
+        Vector<DatabaseAttribute> line = new Vector<DatabaseAttribute>();
+        line.add(attr);
+        dbobject.getAttributeMatrix().add(line);
+        return dbobject;
+    }
+}
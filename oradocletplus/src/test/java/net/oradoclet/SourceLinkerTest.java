@@ -0,0 +1,141 @@
+/*
+ * SourceLinkerTest.java
+ *
+ * OraDoclet 0.1
+ * Oracle Schema Documentation Generator
+ * Copyright (C) 2004 Vladimir Katchourovski <oradoclet@narod.ru>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package net.oradoclet;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * Finds the names of a few objects in lines of source
+ */
+public class SourceLinkerTest {
+
+    @Test
+    public void matchesWholeIdentifiersOnly() {
+        SourceLinker linker = createLinker("TABLE", "ORDERS", "TABLE", "ORDERS$LOG", "TABLE", "ORDER#LINES");
+
+        assertEquals(Arrays.asList("ORDERS@5", "ORDERS@27"), find(linker, "FROM orders o, ORDERS_X x, orders"));
+        assertEquals(Arrays.asList(), find(linker, "x_orders orders_ orders1 orders$ #orders orders#"));
+        assertEquals(Arrays.asList("ORDERS@0", "ORDERS@11", "ORDERS@19"), find(linker, "orders.id \"ORDERS\" orders;"));
+        assertEquals(Arrays.asList("ORDERS$LOG@7", "ORDER#LINES@19"), find(linker, "INSERT orders$log, order#lines"));
+        assertEquals(Arrays.asList(), find(linker, "orders$log$ order#lines#1 order"));
+    }
+
+    @Test
+    public void takesTheEndsOfThePartAsBoundaries() {
+        SourceLinker linker = createLinker("TABLE", "ORDERS");
+        String line = "x_orders_x";
+
+        assertEquals(Arrays.asList(), find(linker, line));
+        int[] matches = linker.match(line, 2, 8);
+        assertEquals(3, matches.length);
+        assertEquals(2, matches[0]);
+        assertEquals(8, matches[1]);
+        assertEquals(0, linker.match(line, 2, 9).length);
+        assertEquals(0, linker.match(line, 1, 8).length);
+    }
+
+    @Test
+    public void matchesRegardlessOfTheCase() {
+        SourceLinker linker = createLinker("PACKAGE", "ORDERS_API", "VIEW", "Orders_View", "TABLE", "ORDERS", "TABLE", "orders");
+
+        assertEquals(Arrays.asList("ORDERS_API@0", "Orders_View@11", "Orders_View@23"),
+            find(linker, "orders_api.ORDERS_VIEW oRdErS_vIeW"));
+        // Names differing in the case only: the first one in the tree stands for both
+        int[] matches = linker.match("Orders", 0, 6);
+        assertEquals(3, matches.length);
+        assertEquals("ORDERS", linker.getTarget(matches[2]).getObjectName());
+    }
+
+    @Test
+    public void resolvesOverlapsLeftmostLongest() {
+        // Quoted names may contain characters ending an identifier
+        SourceLinker linker = createLinker("TABLE", "ORDER", "TABLE", "ORDER LINES", "TABLE", "LINES",
+            "TABLE", "A B", "TABLE", "B C D", "TABLE", "D");
+
+        assertEquals(Arrays.asList("ORDER LINES@0"), find(linker, "order lines"));
+        assertEquals(Arrays.asList("ORDER@0", "LINES@7"), find(linker, "order, lines"));
+        assertEquals(Arrays.asList("ORDER LINES@0", "LINES@12"), find(linker, "order lines lines"));
+        assertEquals(Arrays.asList("A B@0", "D@6"), find(linker, "a b c d"));
+        assertEquals(Arrays.asList("B C D@0"), find(linker, "b c d"));
+
+        // A name starting inside a match leaves the matches after it alone
+        linker = createLinker("TABLE", "A B C", "TABLE", "D E", "TABLE", "C D E F");
+        assertEquals(Arrays.asList("A B C@0", "D E@6"), find(linker, "a b c d e f"));
+        assertEquals(Arrays.asList("C D E F@0"), find(linker, "c d e f"));
+    }
+
+    @Test
+    public void matchesTheObjectsHavingAPageOrAListEntry() {
+        TreeMap<String, DatabaseObject> objectTree = new TreeMap<String, DatabaseObject>();
+        DatabaseObject orders = add(objectTree, "TABLE", "ORDERS");
+        add(objectTree, "SEQUENCE", "ORDERS_SEQ");
+        add(objectTree, "INDEX", "ORDERS_PK");
+        add(objectTree, "TRIGGER", "ORDERS_BIU");
+        objectTree.put("ORDERS_TMP", new DatabaseObject("TABLE", "ORDERS_TMP", null));
+        SourceLinker linker = SourceLinker.getLinker(objectTree);
+
+        assertSame(linker, SourceLinker.getLinker(objectTree));
+        String line = "orders_seq orders_pk orders_biu orders_tmp orders";
+        assertEquals(Arrays.asList("ORDERS_SEQ@0", "ORDERS@43"), find(linker, line));
+        assertSame(orders, linker.getTarget(linker.match(line, 43, line.length())[2]));
+    }
+
+    /**
+     * Returns the matches in the text, each as the name of the object and the first character
+     */
+    private static List<String> find(SourceLinker linker, String text) {
+        int[] matches = linker.match(text, 0, text.length());
+        List<String> found = new ArrayList<String>();
+        for(int i=0; i<matches.length; i+=3) {
+            found.add(linker.getTarget(matches[i + 2]).getObjectName() + "@" + matches[i]);
+        }
+        return found;
+    }
+
+    /**
+     * Returns the linker of the objects, given as types and names
+     */
+    private static SourceLinker createLinker(String... typesAndNames) {
+        TreeMap<String, DatabaseObject> objectTree = new TreeMap<String, DatabaseObject>();
+        for(int i=0; i<typesAndNames.length; i+=2) {
+            add(objectTree, typesAndNames[i], typesAndNames[i + 1]);
+        }
+        return new SourceLinker(objectTree);
+    }
+
+    private static DatabaseObject add(TreeMap<String, DatabaseObject> objectTree, String type, String name) {
+        DatabaseObject dbobject = new DatabaseObject(type, name, null);
+        dbobject.setLink(type.toLowerCase() + "-" + name.toLowerCase() + ".html");
+        objectTree.put(name, dbobject);
+        return dbobject;
+    }
+}